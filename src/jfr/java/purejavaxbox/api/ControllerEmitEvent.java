@@ -0,0 +1,22 @@
+package purejavaxbox.api;
+
+import jdk.jfr.*;
+
+/**
+ * The delivery of a value to the subscribers of a controller.
+ */
+@Name("purejavaxbox.ControllerEmit")
+@Label("Controller Emit")
+@Description("The delivery of a controller value to its subscribers, on the polling thread.")
+@Category("purejavaxbox")
+@StackTrace(false)
+@Threshold("100 us")
+final class ControllerEmitEvent extends Event
+{
+    @Label("Subscriber Count")
+    int subscriberCount;
+
+    @Label("Dropped")
+    @Description("True if the value was dropped because subscribers could not keep up.")
+    boolean dropped;
+}
@@ -0,0 +1,22 @@
+package purejavaxbox.api;
+
+import jdk.jfr.*;
+
+/**
+ * A single call to a controller backend.
+ */
+@Name("purejavaxbox.ControllerPoll")
+@Label("Controller Poll")
+@Description("A call to a controller backend from the polling thread.")
+@Category("purejavaxbox")
+@StackTrace(false)
+@Threshold("100 us")
+final class ControllerPollEvent extends Event
+{
+    @Label("Slot")
+    @Description("The id of the controller.")
+    int slot;
+
+    @Label("Connected")
+    boolean connected;
+}
@@ -0,0 +1,105 @@
+package purejavaxbox.api;
+
+import jdk.jfr.EventType;
+
+/**
+ * The {@link FlightEvents} backed by {@code jdk.jfr}. Loaded reflectively, only when the API is available.
+ */
+final class JfrFlightEvents extends FlightEvents
+{
+    private final EventType poll = EventType.getEventType(ControllerPollEvent.class);
+    private final EventType mapperChain = EventType.getEventType(MapperChainEvent.class);
+    private final EventType emit = EventType.getEventType(ControllerEmitEvent.class);
+
+    @Override
+    Object beginPoll()
+    {
+        if (!poll.isEnabled())
+        {
+            return null;
+        }
+
+        ControllerPollEvent event = new ControllerPollEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endPoll(Object event, int slot, boolean connected)
+    {
+        if (event == null)
+        {
+            return;
+        }
+
+        ControllerPollEvent poll = (ControllerPollEvent) event;
+        poll.end();
+        if (poll.shouldCommit())
+        {
+            poll.slot = slot;
+            poll.connected = connected;
+            poll.commit();
+        }
+    }
+
+    @Override
+    Object beginMapperChain()
+    {
+        if (!mapperChain.isEnabled())
+        {
+            return null;
+        }
+
+        MapperChainEvent event = new MapperChainEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endMapperChain(Object event, int mappers)
+    {
+        if (event == null)
+        {
+            return;
+        }
+
+        MapperChainEvent chain = (MapperChainEvent) event;
+        chain.end();
+        if (chain.shouldCommit())
+        {
+            chain.mapperCount = mappers;
+            chain.commit();
+        }
+    }
+
+    @Override
+    Object beginEmit()
+    {
+        if (!emit.isEnabled())
+        {
+            return null;
+        }
+
+        ControllerEmitEvent event = new ControllerEmitEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endEmit(Object event, int subscribers, boolean dropped)
+    {
+        if (event == null)
+        {
+            return;
+        }
+
+        ControllerEmitEvent emitted = (ControllerEmitEvent) event;
+        emitted.end();
+        if (emitted.shouldCommit())
+        {
+            emitted.subscriberCount = subscribers;
+            emitted.dropped = dropped;
+            emitted.commit();
+        }
+    }
+}
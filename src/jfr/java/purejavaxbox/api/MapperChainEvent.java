@@ -0,0 +1,18 @@
+package purejavaxbox.api;
+
+import jdk.jfr.*;
+
+/**
+ * The mappers applied to a single value.
+ */
+@Name("purejavaxbox.MapperChain")
+@Label("Mapper Chain")
+@Description("The mappers applied to a single controller value.")
+@Category("purejavaxbox")
+@StackTrace(false)
+@Threshold("100 us")
+final class MapperChainEvent extends Event
+{
+    @Label("Mapper Count")
+    int mapperCount;
+}
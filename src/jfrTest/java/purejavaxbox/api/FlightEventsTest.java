@@ -0,0 +1,106 @@
+package purejavaxbox.api;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.*;
+
+public class FlightEventsTest
+{
+    private static final List<String> EVENTS = Arrays.asList("purejavaxbox.ControllerPoll", "purejavaxbox.MapperChain", "purejavaxbox.ControllerEmit");
+
+    @Test
+    public void testEventsAreLoaded()
+    {
+        Assert.assertTrue(FlightEvents.INSTANCE instanceof JfrFlightEvents);
+        Assert.assertNull("Disabled outside of a recording.", FlightEvents.INSTANCE.beginPoll());
+    }
+
+    @Test
+    public void testPipelineIsRecorded() throws Exception
+    {
+        Map<XboxButton, Number> buttons = new EnumMap<>(XboxButton.class);
+        Arrays
+                .asList(XboxButton.values())
+                .forEach(b -> buttons.put(b, 0));
+
+        XboxController mockedController = mock(XboxController.class);
+        when(mockedController.buttons()).thenReturn(buttons);
+        when(mockedController.poll(any())).thenCallRealMethod();
+
+        Path file = Files.createTempFile("purejavaxbox", ".jfr");
+        try (Recording recording = new Recording())
+        {
+            EVENTS.forEach(name -> recording
+                    .enable(name)
+                    .withThreshold(Duration.ZERO));
+            recording.start();
+
+            ControllerApi sp = new ControllerBuilder()
+                    .timing(200.0)
+                    .registerMetrics(false)
+                    .controllers(SinglePlayerTest.mockControllers(mockedController))
+                    .mapper(map -> map.put(XboxButton.A, 1))
+                    .player1();
+            Disposable d = sp
+                    .observe(XboxButton.A)
+                    .subscribe();
+
+            Thread.sleep(100);
+            d.dispose();
+            sp.dispose();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        new File(file.toString()).delete();
+
+        for (String name : EVENTS)
+        {
+            Assert.assertTrue(name, events
+                    .stream()
+                    .anyMatch(e -> e
+                            .getEventType()
+                            .getName()
+                            .equals(name)));
+        }
+
+        RecordedEvent poll = events
+                .stream()
+                .filter(e -> e
+                        .getEventType()
+                        .getName()
+                        .equals("purejavaxbox.ControllerPoll"))
+                .findFirst()
+                .get();
+        Assert.assertEquals(0, poll.getInt("slot"));
+        Assert.assertTrue(poll.getBoolean("connected"));
+
+        RecordedEvent chain = events
+                .stream()
+                .filter(e -> e
+                        .getEventType()
+                        .getName()
+                        .equals("purejavaxbox.MapperChain"))
+                .findFirst()
+                .get();
+        Assert.assertEquals(1, chain.getInt("mapperCount"));
+    }
+}
@@ -0,0 +1,84 @@
+package purejavaxbox.api;
+
+import org.openjdk.jmh.annotations.*;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import reactor.core.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of delivering one poll through the operator chains built by the default methods of {@link
+ * ControllerApi}. Each invocation publishes one snapshot to a single subscriber of the selected chain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerApiBenchmark
+{
+    @Param({"observe", "observeHeld", "observeCombo"})
+    public String chain;
+
+    private InMemoryControllerApi api;
+    private Disposable subscription;
+    private ControllerSnapshot[] polls;
+    private int index;
+    private long received;
+
+    @Setup
+    public void setup()
+    {
+        api = new InMemoryControllerApi();
+
+        switch (chain)
+        {
+            case "observe":
+                subscription = api
+                        .observe(XboxButton.A)
+                        .subscribe(n -> received++);
+                break;
+            case "observeHeld":
+                subscription = api
+                        .observeHeld(1, TimeUnit.MILLISECONDS, XboxButton.A)
+                        .subscribe(b -> received++);
+                break;
+            default:
+                subscription = api
+                        .observe(XboxButton.A, XboxButton.B, XboxButton.X, XboxButton.Y)
+                        .subscribe(b -> received++);
+        }
+
+        // Alternate between idle, a partial combo and the full combo with moving sticks.
+        polls = new ControllerSnapshot[64];
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        for (int i = 0; i < polls.length; i++)
+        {
+            snapshot
+                    .pressed(XboxButton.A, i % 4 != 0)
+                    .pressed(XboxButton.B, i % 8 > 1)
+                    .pressed(XboxButton.X, i % 8 > 1)
+                    .pressed(XboxButton.Y, i % 16 > 3)
+                    .value(XboxButton.LEFT_STICK_HORIZONTAL, Math.sin(i))
+                    .value(XboxButton.LEFT_TRIGGER, i / (double) polls.length);
+            polls[i] = snapshot.immutableCopy();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        subscription.dispose();
+    }
+
+    @Benchmark
+    public long publish()
+    {
+        api.send(polls[index]);
+        index = (index + 1) & (polls.length - 1);
+        return received;
+    }
+}
@@ -0,0 +1,104 @@
+package purejavaxbox.api;
+
+import org.openjdk.jmh.annotations.*;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single application of each dead zone strategy, either to a full controller map or in place to a snapshot
+ * through {@link PrimitiveButtonMapper}. Stick strategies are measured with and without {@link
+ * StickDeadZones#lookupTable(boolean) lookup tables}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeadZoneBenchmark
+{
+    private static final double[] SAMPLES = {0.0, 0.1, -0.3, 0.5, -0.7, 0.9, 1.0, -1.0, 0.25, -0.05};
+
+    @Param({"axial", "radial", "scaledRadial", "triggerLinear"})
+    public String strategy;
+
+    @Param({"false", "true"})
+    public boolean lookupTable;
+
+    private ButtonMapper mapper;
+    private PrimitiveButtonMapper primitive;
+    private Map<XboxButton, Number> buttons;
+    private MutableSnapshot snapshot;
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        StickDeadZones sticks = new StickDeadZones()
+                .innerDeadZone((short) 7849)
+                .outerDeadZone((short) 32000)
+                .lookupTable(lookupTable);
+        TriggerDeadZones triggers = new TriggerDeadZones()
+                .innerDeadZone(30)
+                .outerDeadZone(250);
+
+        switch (strategy)
+        {
+            case "axial":
+                mapper = sticks.buildAxialDeadZone();
+                break;
+            case "radial":
+                mapper = sticks.buildRadialDeadZone();
+                break;
+            case "scaledRadial":
+                mapper = sticks.buildScaledRadialDeadZone();
+                break;
+            default:
+                mapper = triggers.buildLinearScalar();
+        }
+
+        primitive = PrimitiveButtonMapper.of(mapper);
+        snapshot = new MutableSnapshot().connected(true);
+
+        buttons = new EnumMap<>(XboxButton.class);
+        for (XboxButton button : XboxButton.values())
+        {
+            buttons.put(button, button.isAnalog() ? 0.0 : 0);
+        }
+    }
+
+    @Benchmark
+    public Map<XboxButton, Number> apply()
+    {
+        double h = SAMPLES[index];
+        double v = SAMPLES[(index + 3) % SAMPLES.length];
+        index = (index + 1) % SAMPLES.length;
+
+        buttons.put(XboxButton.LEFT_STICK_HORIZONTAL, h);
+        buttons.put(XboxButton.LEFT_STICK_VERTICAL, v);
+        buttons.put(XboxButton.LEFT_TRIGGER, Math.abs(h));
+
+        mapper.accept(buttons);
+        return buttons;
+    }
+
+    @Benchmark
+    public MutableSnapshot applyPrimitive()
+    {
+        double h = SAMPLES[index];
+        double v = SAMPLES[(index + 3) % SAMPLES.length];
+        index = (index + 1) % SAMPLES.length;
+
+        snapshot
+                .value(XboxButton.LEFT_STICK_HORIZONTAL, h)
+                .value(XboxButton.LEFT_STICK_VERTICAL, v)
+                .value(XboxButton.LEFT_TRIGGER, Math.abs(h));
+
+        primitive.apply(snapshot);
+        return snapshot;
+    }
+}
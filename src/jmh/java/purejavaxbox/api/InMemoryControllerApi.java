@@ -0,0 +1,43 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.XboxButton;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.Map;
+
+/**
+ * A {@link ControllerApi} fed directly by the benchmark thread. Mirrors how {@link SinglePlayer} publishes values,
+ * without the polling thread.
+ */
+final class InMemoryControllerApi implements ControllerApi
+{
+    private EmitterProcessor<ControllerSnapshot> flux = EmitterProcessor.create(false);
+    private FluxSink<ControllerSnapshot> sink = flux.sink(FluxSink.OverflowStrategy.DROP);
+    private Flux<Map<XboxButton, Number>> mapFlux = flux.map(ControllerSnapshot::asMap);
+
+    void send(ControllerSnapshot snapshot)
+    {
+        sink.next(snapshot);
+    }
+
+    @Override
+    public Flux<Map<XboxButton, Number>> get()
+    {
+        return mapFlux;
+    }
+
+    @Override
+    public Flux<ControllerSnapshot> snapshots()
+    {
+        return flux;
+    }
+
+    @Override
+    public void dispose()
+    {
+        sink.complete();
+    }
+}
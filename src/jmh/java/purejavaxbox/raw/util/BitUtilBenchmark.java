@@ -0,0 +1,32 @@
+package purejavaxbox.raw.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures extracting all 16 bits of the XInput button field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitUtilBenchmark
+{
+    private short value = 0;
+
+    @Benchmark
+    public int getBitFromShort()
+    {
+        short target = value++;
+        int sum = 0;
+
+        for (int i = 0; i < Short.SIZE; i++)
+        {
+            sum += BitUtil.getBitFrom(target, i);
+        }
+        return sum;
+    }
+}
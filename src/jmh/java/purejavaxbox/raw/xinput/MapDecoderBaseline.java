@@ -0,0 +1,61 @@
+package purejavaxbox.raw.xinput;
+
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.util.BitUtil;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static purejavaxbox.XboxButton.*;
+
+/**
+ * A copy of the decoding done by {@link XInputController#buttons()} before snapshots existed, which built a new boxed
+ * {@link EnumMap} on every call. Kept only as the baseline of {@link XInputDecodeBenchmark}.
+ */
+final class MapDecoderBaseline
+{
+    private static final XboxButton[] INDEX_ORDER = {DPAD_UP, DPAD_DOWN, DPAD_LEFT, DPAD_RIGHT, START, BACK, LEFT_STICK_BUTTON, RIGHT_STICK_BUTTON, LEFT_BUMPER, RIGHT_BUMPER, GUIDE, UNKNOWN, A, B, X, Y};
+
+    private MapDecoderBaseline()
+    {
+        // Utility class
+    }
+
+    static Map<XboxButton, Number> decode(XInputControllerState controllerState)
+    {
+        Map<XboxButton, Number> poll = new EnumMap<>(XboxButton.class);
+
+        short btns = controllerState.buttons;
+
+        for (int i = 0; i < INDEX_ORDER.length; i++)
+        {
+            XboxButton button = INDEX_ORDER[i];
+            poll.put(button, BitUtil.getBitFrom(btns, i));
+        }
+
+        poll.put(LEFT_TRIGGER, normalizeTrigger(controllerState.lTrigger));
+        poll.put(RIGHT_TRIGGER, normalizeTrigger(controllerState.rTrigger));
+
+        poll.put(LEFT_STICK_HORIZONTAL, normalizeStick(controllerState.leftStickY));
+        poll.put(LEFT_STICK_VERTICAL, normalizeStick(controllerState.leftStickX));
+
+        poll.put(RIGHT_STICK_HORIZONTAL, normalizeStick(controllerState.rightStickY));
+        poll.put(RIGHT_STICK_VERTICAL, normalizeStick(controllerState.rightStickX));
+
+        return Collections.unmodifiableMap(poll);
+    }
+
+    private static double normalizeTrigger(byte value)
+    {
+        double valueDz = (double) Byte.toUnsignedInt(value);
+        double sizeDz = (double) Byte.MAX_VALUE - Byte.MIN_VALUE;
+
+        return valueDz / sizeDz;
+    }
+
+    private static double normalizeStick(short value)
+    {
+        return value / (double) Short.MAX_VALUE;
+    }
+}
@@ -0,0 +1,86 @@
+package purejavaxbox.raw.xinput;
+
+import com.sun.jna.Memory;
+import org.openjdk.jmh.annotations.*;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding done by {@link XInputController} after the native call returns. The native call is replaced by
+ * writes to the native memory of the state, whose values change on every invocation. The {@link XInputControllerState}
+ * benchmark reads the same memory through JNA's reflective structure copy, for comparison, and {@link
+ * MapDecoderBaseline} measures the map built by the original implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XInputDecodeBenchmark
+{
+    private Memory memory;
+    private XInputControllerState state;
+    private MutableSnapshot snapshot;
+    private short counter;
+
+    @Setup
+    public void setup()
+    {
+        memory = new Memory(XInputDecoder.STATE_SIZE);
+        memory.clear();
+        state = new XInputControllerState(memory);
+        snapshot = new MutableSnapshot();
+    }
+
+    private void advance()
+    {
+        counter++;
+        memory.setInt(XInputDecoder.PACKET_OFFSET, counter);
+        memory.setShort(XInputDecoder.BUTTONS_OFFSET, (short) (counter * 0x1111));
+        memory.setByte(XInputDecoder.LEFT_TRIGGER_OFFSET, (byte) (counter * 3));
+        memory.setByte(XInputDecoder.RIGHT_TRIGGER_OFFSET, (byte) (counter * 5));
+        memory.setShort(XInputDecoder.LEFT_STICK_X_OFFSET, (short) (counter * 101));
+        memory.setShort(XInputDecoder.LEFT_STICK_Y_OFFSET, (short) (counter * -211));
+        memory.setShort(XInputDecoder.RIGHT_STICK_X_OFFSET, (short) (counter * 307));
+        memory.setShort(XInputDecoder.RIGHT_STICK_Y_OFFSET, (short) (counter * -401));
+    }
+
+    @Benchmark
+    public MutableSnapshot decodeIntoSnapshot()
+    {
+        advance();
+        XInputDecoder.decode(memory, snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public MutableSnapshot decodeThroughStructure()
+    {
+        advance();
+        state.read();
+        XInputDecoder.decode(state, snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public Map<XboxButton, Number> decodeToMap()
+    {
+        advance();
+        XInputDecoder.decode(memory, snapshot);
+        return snapshot
+                .immutableCopy()
+                .asMap();
+    }
+
+    @Benchmark
+    public Map<XboxButton, Number> decodeToMapBaseline()
+    {
+        advance();
+        state.read();
+        return MapDecoderBaseline.decode(state);
+    }
+}
@@ -0,0 +1,232 @@
+package purejavaxbox;
+
+import purejavaxbox.raw.XboxController;
+
+import java.util.Map;
+
+/**
+ * A primitive representation of a single poll of a controller. Toggle buttons are packed into a bitmask using {@link
+ * XboxButton#mask()}, and the analog components are stored as doubles using the same scales documented in {@link
+ * XboxController#buttons()}.
+ * <p>
+ * Snapshots are either {@link MutableSnapshot mutable}, which are meant to be reused by a single thread, or immutable,
+ * which can be shared freely. Use {@link #immutableCopy()} to hand a snapshot to another thread.
+ */
+public abstract class ControllerSnapshot
+{
+    /**
+     * Returned by {@link #packet()} when the backend does not provide packet numbers.
+     */
+    public static final long UNKNOWN_PACKET = -1L;
+
+    /**
+     * Returned by {@link #sequence()} when the snapshot was not produced by a polling loop.
+     */
+    public static final long UNKNOWN_SEQUENCE = -1L;
+
+    static final int FIRST_ANALOG = XboxButton.LEFT_STICK_VERTICAL.ordinal();
+    static final int ANALOG_COUNT = XboxButton.RIGHT_TRIGGER.ordinal() - FIRST_ANALOG + 1;
+
+    /**
+     * The snapshot used when no controller is connected.
+     */
+    public static final ControllerSnapshot DISCONNECTED = new MutableSnapshot().immutableCopy();
+
+    boolean connected;
+    int buttons;
+    final double[] analogs = new double[ANALOG_COUNT];
+    long packet = UNKNOWN_PACKET;
+    long timestamp;
+    long sequence = UNKNOWN_SEQUENCE;
+
+    ControllerSnapshot()
+    {
+        // Only this package provides implementations.
+    }
+
+    /**
+     * Creates an immutable snapshot from a map produced by {@link XboxController#buttons()}. Missing values are treated
+     * as 0. An empty map produces {@link #DISCONNECTED}. The snapshot has no timestamp or sequence number.
+     *
+     * @param buttons - the map to convert.
+     * @return the snapshot holding the values of the map.
+     */
+    public static ControllerSnapshot fromMap(Map<XboxButton, Number> buttons)
+    {
+        return buttons.isEmpty() ? DISCONNECTED : new MutableSnapshot()
+                .copyFrom(buttons)
+                .immutableCopy();
+    }
+
+    /**
+     * Checks if the controller produced values during the poll. When false, all values are 0.
+     *
+     * @return true if the controller is connected.
+     */
+    public boolean isConnected()
+    {
+        return connected;
+    }
+
+    /**
+     * The packet number reported by the driver for this state. Drivers change the packet number whenever the state of
+     * the controller changes, so two snapshots from the same controller with the same packet number hold the same
+     * values.
+     *
+     * @return the packet number, or {@link #UNKNOWN_PACKET} if the backend does not provide one.
+     */
+    public long packet()
+    {
+        return packet;
+    }
+
+    /**
+     * The time the controller was polled, in nanoseconds. Polling loops read their clock once per poll, and every
+     * value derived from that poll carries the same timestamp. Time based operators use this value rather than the
+     * time the value is delivered. With the default clock, the timestamp uses the same source as {@link
+     * System#nanoTime()}, and is only meaningful when compared to other timestamps.
+     *
+     * @return the timestamp in nanoseconds, or 0 if the snapshot was not produced by a polling loop.
+     */
+    public long timestamp()
+    {
+        return timestamp;
+    }
+
+    /**
+     * The number of the poll that produced this snapshot. Polling loops number every poll, including the ones that are
+     * not distributed because nothing changed, so gaps in the sequence show skipped polls.
+     *
+     * @return the sequence number, or {@link #UNKNOWN_SEQUENCE}.
+     */
+    public long sequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * The state of all toggle buttons.
+     *
+     * @return a bitmask where each bit is set according to {@link XboxButton#mask()}.
+     */
+    public int buttons()
+    {
+        return buttons;
+    }
+
+    /**
+     * Checks a single toggle button.
+     *
+     * @param button - the button to check.
+     * @return true if the button is pressed. Always false for analog components.
+     */
+    public boolean isPressed(XboxButton button)
+    {
+        return !button.isAnalog() && (buttons & button.mask()) != 0;
+    }
+
+    /**
+     * Checks a combination of toggle buttons.
+     *
+     * @param mask - a mask built from {@link XboxButton#mask()}.
+     * @return true if every button in the mask is pressed.
+     */
+    public boolean allPressed(int mask)
+    {
+        return (buttons & mask) == mask;
+    }
+
+    /**
+     * Gets the value of any button, using the scales documented in {@link XboxController#buttons()}.
+     *
+     * @param button - the button.
+     * @return 0.0 or 1.0 for toggle buttons, or the scaled value of an analog component.
+     */
+    public double value(XboxButton button)
+    {
+        if (button.isAnalog())
+        {
+            return analogs[button.ordinal() - FIRST_ANALOG];
+        }
+
+        return isPressed(button) ? 1.0 : 0.0;
+    }
+
+    public double leftTrigger()
+    {
+        return value(XboxButton.LEFT_TRIGGER);
+    }
+
+    public double rightTrigger()
+    {
+        return value(XboxButton.RIGHT_TRIGGER);
+    }
+
+    public double leftStickHorizontal()
+    {
+        return value(XboxButton.LEFT_STICK_HORIZONTAL);
+    }
+
+    public double leftStickVertical()
+    {
+        return value(XboxButton.LEFT_STICK_VERTICAL);
+    }
+
+    public double rightStickHorizontal()
+    {
+        return value(XboxButton.RIGHT_STICK_HORIZONTAL);
+    }
+
+    public double rightStickVertical()
+    {
+        return value(XboxButton.RIGHT_STICK_VERTICAL);
+    }
+
+    /**
+     * Compares the values of two snapshots.
+     *
+     * @param other - the snapshot to compare against.
+     * @return true if both snapshots hold the same connection state, buttons and analog values. Packet numbers are not
+     * compared, nor are timestamps and sequence numbers.
+     */
+    public boolean sameValues(ControllerSnapshot other)
+    {
+        if (connected != other.connected || buttons != other.buttons)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < ANALOG_COUNT; i++)
+        {
+            if (Double.compare(analogs[i], other.analogs[i]) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Provides a snapshot that will never change, and is safe to share between threads.
+     *
+     * @return an immutable snapshot. May return this if the snapshot is already immutable.
+     */
+    public abstract ControllerSnapshot immutableCopy();
+
+    /**
+     * Provides a read-only {@link Map} view of this snapshot with the same contents {@link XboxController#buttons()}
+     * would produce. Toggle buttons are provided as integers and analog components as doubles.
+     *
+     * @return a map backed by this snapshot, or an empty map if the controller is not connected.
+     */
+    public Map<XboxButton, Number> asMap()
+    {
+        return new SnapshotMap(this);
+    }
+
+    @Override
+    public String toString()
+    {
+        return asMap().toString();
+    }
+}
@@ -0,0 +1,43 @@
+package purejavaxbox;
+
+import java.util.Map;
+
+/**
+ * The thread safe {@link ControllerSnapshot}. Values are copied on creation and never change afterwards.
+ */
+final class ImmutableSnapshot extends ControllerSnapshot
+{
+    private Map<XboxButton, Number> view;
+
+    ImmutableSnapshot(ControllerSnapshot source)
+    {
+        connected = source.connected;
+        buttons = source.buttons;
+        packet = source.packet;
+        timestamp = source.timestamp;
+        sequence = source.sequence;
+        System.arraycopy(source.analogs, 0, analogs, 0, ANALOG_COUNT);
+    }
+
+    @Override
+    public ControllerSnapshot immutableCopy()
+    {
+        return this;
+    }
+
+    /**
+     * {@inheritDoc} The view is created once and shared between callers.
+     */
+    @Override
+    public Map<XboxButton, Number> asMap()
+    {
+        Map<XboxButton, Number> map = view;
+
+        if (map == null)
+        {
+            map = super.asMap();
+            view = map;
+        }
+        return map;
+    }
+}
@@ -0,0 +1,171 @@
+package purejavaxbox;
+
+import purejavaxbox.raw.XboxController;
+
+import java.util.Map;
+
+/**
+ * A {@link ControllerSnapshot} that can be refilled on every poll without allocating. Objects of this type are not
+ * thread safe, and are meant to be owned by the thread polling the controller.
+ *
+ * @see XboxController#poll(MutableSnapshot)
+ */
+public final class MutableSnapshot extends ControllerSnapshot
+{
+    /**
+     * Resets all values to 0 and marks the controller as disconnected. The timestamp and sequence number are reset as
+     * well.
+     *
+     * @return this.
+     */
+    public MutableSnapshot clear()
+    {
+        connected = false;
+        buttons = 0;
+        packet = UNKNOWN_PACKET;
+        timestamp = 0L;
+        sequence = UNKNOWN_SEQUENCE;
+
+        for (int i = 0; i < ANALOG_COUNT; i++)
+        {
+            analogs[i] = 0.0;
+        }
+        return this;
+    }
+
+    /**
+     * Marks the controller as connected or disconnected. Values are left untouched.
+     *
+     * @param connected - the connection state.
+     * @return this.
+     */
+    public MutableSnapshot connected(boolean connected)
+    {
+        this.connected = connected;
+        return this;
+    }
+
+    /**
+     * Sets the packet number reported by the driver.
+     *
+     * @param packet - the packet number, or {@link #UNKNOWN_PACKET}.
+     * @return this.
+     */
+    public MutableSnapshot packet(long packet)
+    {
+        this.packet = packet;
+        return this;
+    }
+
+    /**
+     * Sets the time of the poll.
+     *
+     * @param timestamp - the timestamp in nanoseconds.
+     * @return this.
+     */
+    public MutableSnapshot timestamp(long timestamp)
+    {
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    /**
+     * Sets the number of the poll.
+     *
+     * @param sequence - the sequence number, or {@link #UNKNOWN_SEQUENCE}.
+     * @return this.
+     */
+    public MutableSnapshot sequence(long sequence)
+    {
+        this.sequence = sequence;
+        return this;
+    }
+
+    /**
+     * Replaces the state of every toggle button.
+     *
+     * @param mask - a bitmask built from {@link XboxButton#mask()}.
+     * @return this.
+     */
+    public MutableSnapshot buttons(int mask)
+    {
+        this.buttons = mask;
+        return this;
+    }
+
+    /**
+     * Sets the state of a single toggle button. Analog components are ignored.
+     *
+     * @param button  - the button.
+     * @param pressed - true if the button is pressed.
+     * @return this.
+     */
+    public MutableSnapshot pressed(XboxButton button, boolean pressed)
+    {
+        if (!button.isAnalog())
+        {
+            buttons = pressed ? buttons | button.mask() : buttons & ~button.mask();
+        }
+        return this;
+    }
+
+    /**
+     * Sets the value of any button. Toggle buttons are pressed when the value is not 0.
+     *
+     * @param button - the button.
+     * @param value  - the value, using the scales documented in {@link XboxController#buttons()}.
+     * @return this.
+     */
+    public MutableSnapshot value(XboxButton button, double value)
+    {
+        if (button.isAnalog())
+        {
+            analogs[button.ordinal() - FIRST_ANALOG] = value;
+            return this;
+        }
+
+        return pressed(button, value != 0.0);
+    }
+
+    /**
+     * Copies all values from another snapshot.
+     *
+     * @param other - the source.
+     * @return this.
+     */
+    public MutableSnapshot copyFrom(ControllerSnapshot other)
+    {
+        connected = other.connected;
+        buttons = other.buttons;
+        packet = other.packet;
+        timestamp = other.timestamp;
+        sequence = other.sequence;
+        System.arraycopy(other.analogs, 0, analogs, 0, ANALOG_COUNT);
+        return this;
+    }
+
+    /**
+     * Copies all values from a map produced by {@link XboxController#buttons()}. An empty map marks this snapshot as
+     * disconnected. Like {@link #clear()}, the timestamp and sequence number are reset.
+     *
+     * @param map - the source.
+     * @return this.
+     */
+    public MutableSnapshot copyFrom(Map<XboxButton, Number> map)
+    {
+        clear();
+
+        if (!map.isEmpty())
+        {
+            connected = true;
+            map.forEach((button, value) -> value(button, value.doubleValue()));
+        }
+        return this;
+    }
+
+    @Override
+    public ControllerSnapshot immutableCopy()
+    {
+        return new ImmutableSnapshot(this);
+    }
+}
@@ -0,0 +1,99 @@
+package purejavaxbox;
+
+import java.util.*;
+
+/**
+ * Read-only {@link Map} adapter over a {@link ControllerSnapshot}. Values are boxed lazily as they are read, so users
+ * only pay for the buttons they look at.
+ */
+final class SnapshotMap extends AbstractMap<XboxButton, Number>
+{
+    private static final XboxButton[] BUTTONS = XboxButton.values();
+    private static final Integer OFF = 0;
+    private static final Integer ON = 1;
+
+    private final ControllerSnapshot snapshot;
+    private Set<Entry<XboxButton, Number>> entries;
+
+    SnapshotMap(ControllerSnapshot snapshot)
+    {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public int size()
+    {
+        return snapshot.isConnected() ? BUTTONS.length : 0;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return !snapshot.isConnected();
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return key instanceof XboxButton && snapshot.isConnected();
+    }
+
+    @Override
+    public Number get(Object key)
+    {
+        return containsKey(key) ? valueOf((XboxButton) key) : null;
+    }
+
+    private Number valueOf(XboxButton button)
+    {
+        if (button.isAnalog())
+        {
+            return snapshot.value(button);
+        }
+        return snapshot.isPressed(button) ? ON : OFF;
+    }
+
+    @Override
+    public Set<Entry<XboxButton, Number>> entrySet()
+    {
+        if (entries == null)
+        {
+            entries = new AbstractSet<Entry<XboxButton, Number>>()
+            {
+                @Override
+                public Iterator<Entry<XboxButton, Number>> iterator()
+                {
+                    return new Iterator<Entry<XboxButton, Number>>()
+                    {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return index < SnapshotMap.this.size();
+                        }
+
+                        @Override
+                        public Entry<XboxButton, Number> next()
+                        {
+                            if (!hasNext())
+                            {
+                                throw new NoSuchElementException();
+                            }
+
+                            XboxButton button = BUTTONS[index++];
+                            return new SimpleImmutableEntry<>(button, valueOf(button));
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return SnapshotMap.this.size();
+                }
+            };
+        }
+        return entries;
+    }
+}
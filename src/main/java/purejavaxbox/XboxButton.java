@@ -18,4 +18,25 @@ public enum XboxButton
     LEFT_TRIGGER, RIGHT_TRIGGER,
 
     UNKNOWN;
+
+    /**
+     * Checks if this identifier refers to an analog component (stick axis or trigger).
+     *
+     * @return true for sticks and triggers, false for toggle buttons.
+     */
+    public boolean isAnalog()
+    {
+        return LEFT_STICK_VERTICAL.ordinal() <= ordinal() && ordinal() <= RIGHT_TRIGGER.ordinal();
+    }
+
+    /**
+     * The bit used to represent this button in {@link ControllerSnapshot#buttons()}. Analog components do not have a
+     * bit in the mask, but a value is still returned so combinations can be built without checks.
+     *
+     * @return 1 shifted left by the ordinal of this button.
+     */
+    public int mask()
+    {
+        return 1 << ordinal();
+    }
 }
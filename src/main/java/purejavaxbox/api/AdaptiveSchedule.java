@@ -0,0 +1,92 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+/**
+ * The state of an {@link AdaptiveTiming}. Decides the delay before the next poll based on the latest one. Not thread
+ * safe, it is owned by the polling thread.
+ */
+final class AdaptiveSchedule
+{
+    private static final XboxButton[] ANALOGS = {XboxButton.LEFT_STICK_VERTICAL, XboxButton.LEFT_STICK_HORIZONTAL, XboxButton.RIGHT_STICK_VERTICAL, XboxButton.RIGHT_STICK_HORIZONTAL, XboxButton.LEFT_TRIGGER, XboxButton.RIGHT_TRIGGER};
+
+    private final long activeNanos;
+    private final long idleNanos;
+    private final long disconnectedNanos;
+    private final long idleAfterNanos;
+    private final double threshold;
+
+    private final MutableSnapshot reference = new MutableSnapshot();
+    private long lastActivity;
+    private long period;
+
+    AdaptiveSchedule(long activeNanos, long idleNanos, long disconnectedNanos, long idleAfterNanos, double threshold)
+    {
+        this.activeNanos = activeNanos;
+        this.idleNanos = idleNanos;
+        this.disconnectedNanos = disconnectedNanos;
+        this.idleAfterNanos = idleAfterNanos;
+        this.threshold = threshold;
+        this.period = activeNanos;
+    }
+
+    /**
+     * @return the period to use before the first poll.
+     */
+    long initialPeriod()
+    {
+        return activeNanos;
+    }
+
+    /**
+     * Computes the period to wait before polling again.
+     *
+     * @param snapshot - the latest poll.
+     * @param now      - the time of the poll, in nanoseconds.
+     * @return the period in nanoseconds.
+     */
+    long nextPeriod(ControllerSnapshot snapshot, long now)
+    {
+        if (!snapshot.isConnected())
+        {
+            reference.clear();
+            period = disconnectedNanos;
+            return period;
+        }
+
+        if (isActive(snapshot))
+        {
+            reference.copyFrom(snapshot);
+            lastActivity = now;
+            period = activeNanos;
+        }
+        else if (now - lastActivity >= idleAfterNanos)
+        {
+            period = Math.min(idleNanos, period * 2);
+        }
+        else
+        {
+            period = activeNanos;
+        }
+        return period;
+    }
+
+    private boolean isActive(ControllerSnapshot snapshot)
+    {
+        if (!reference.isConnected() || reference.buttons() != snapshot.buttons())
+        {
+            return true;
+        }
+
+        for (XboxButton analog : ANALOGS)
+        {
+            if (Math.abs(reference.value(analog) - snapshot.value(analog)) > threshold)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builder-style class that configures an adaptive poll rate for {@link ControllerBuilder#adaptiveTiming(AdaptiveTiming)}.
+ * <p>
+ * The controller is polled at the active rate while it is in use. Once no buttons have changed and no analog component
+ * has moved for the idle period, the rate decays towards the idle rate, halving on each poll. When no controller is
+ * connected, the slower probe rate is used until one appears.
+ */
+public final class AdaptiveTiming
+{
+    private long activeNanos = fpsToNanos(1000.0);
+    private long idleNanos = fpsToNanos(30.0);
+    private long disconnectedNanos = fpsToNanos(1.0);
+    private long idleAfterNanos = TimeUnit.SECONDS.toNanos(2L);
+    private double threshold = 0.01;
+
+    static long fpsToNanos(double fps)
+    {
+        return (long) (1.0 / fps * TimeUnit.SECONDS.toNanos(1L));
+    }
+
+    /**
+     * The rate used while the controller is in use. Defaults to 1000.
+     *
+     * @param fps - a measurement in FPS. Ignored if not positive.
+     * @return this.
+     */
+    public AdaptiveTiming activeRate(double fps)
+    {
+        if (fps > 0.0)
+        {
+            activeNanos = fpsToNanos(fps);
+        }
+        return this;
+    }
+
+    /**
+     * The slowest rate used while the controller is connected but idle. Defaults to 30.
+     *
+     * @param fps - a measurement in FPS. Ignored if not positive.
+     * @return this.
+     */
+    public AdaptiveTiming idleRate(double fps)
+    {
+        if (fps > 0.0)
+        {
+            idleNanos = fpsToNanos(fps);
+        }
+        return this;
+    }
+
+    /**
+     * The rate used to probe for a controller when none is connected. Defaults to 1.
+     *
+     * @param fps - a measurement in FPS. Ignored if not positive.
+     * @return this.
+     */
+    public AdaptiveTiming disconnectedRate(double fps)
+    {
+        if (fps > 0.0)
+        {
+            disconnectedNanos = fpsToNanos(fps);
+        }
+        return this;
+    }
+
+    /**
+     * How long the controller must be unused before the rate starts decaying. Defaults to 2 seconds.
+     *
+     * @param duration - measure of time.
+     * @param unit     - unit of duration.
+     * @return this.
+     */
+    public AdaptiveTiming idleAfter(long duration, TimeUnit unit)
+    {
+        idleAfterNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * The smallest change of an analog component that counts as activity. Prevents sticks resting near the center from
+     * keeping the rate up. Defaults to 0.01.
+     *
+     * @param threshold - the change, using the scales documented in {@link purejavaxbox.raw.XboxController#buttons()}.
+     * @return this.
+     */
+    public AdaptiveTiming activityThreshold(double threshold)
+    {
+        this.threshold = Math.abs(threshold);
+        return this;
+    }
+
+    /**
+     * @return a new schedule using the current configuration. Schedules hold state, and are not shared.
+     */
+    AdaptiveSchedule newSchedule()
+    {
+        return new AdaptiveSchedule(activeNanos, Math.max(activeNanos, idleNanos), disconnectedNanos, idleAfterNanos, threshold);
+    }
+}
@@ -0,0 +1,82 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A button combination compiled to a bitmask. Matching a snapshot is a single {@code (state & mask) == mask} check.
+ * Analog components cannot be part of the mask, so they are checked separately and must be fully pressed.
+ */
+final class ButtonCombo implements Predicate<ControllerSnapshot>
+{
+    private final int mask;
+    private final XboxButton[] analogs;
+
+    private ButtonCombo(int mask, XboxButton[] analogs)
+    {
+        this.mask = mask;
+        this.analogs = analogs;
+    }
+
+    /**
+     * Compiles the combination.
+     *
+     * @param b1      - the first button in the combo.
+     * @param b2      - the second button in the combo.
+     * @param buttons - the remaining buttons in the combo.
+     * @return the compiled combination.
+     */
+    static ButtonCombo of(XboxButton b1, XboxButton b2, XboxButton... buttons)
+    {
+        List<XboxButton> analogs = new ArrayList<>();
+        int mask = add(b1, 0, analogs);
+        mask = add(b2, mask, analogs);
+
+        for (XboxButton button : buttons)
+        {
+            mask = add(button, mask, analogs);
+        }
+
+        return new ButtonCombo(mask, analogs.toArray(new XboxButton[0]));
+    }
+
+    private static int add(XboxButton button, int mask, List<XboxButton> analogs)
+    {
+        if (button.isAnalog())
+        {
+            analogs.add(button);
+            return mask;
+        }
+        return mask | button.mask();
+    }
+
+    /**
+     * @return the mask of the toggle buttons in this combination.
+     */
+    int mask()
+    {
+        return mask;
+    }
+
+    @Override
+    public boolean test(ControllerSnapshot snapshot)
+    {
+        if (!snapshot.allPressed(mask))
+        {
+            return false;
+        }
+
+        for (XboxButton analog : analogs)
+        {
+            if (snapshot.value(analog) != 1.0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
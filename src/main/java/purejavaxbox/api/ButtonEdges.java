@@ -0,0 +1,64 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the button mask between polls and produces a {@link ButtonEvent} for every bit that changed. The work done per
+ * poll is a single XOR, plus one step for each button that actually changed. Not thread safe.
+ */
+final class ButtonEdges
+{
+    private static final XboxButton[] BUTTONS = XboxButton.values();
+
+    private int previous = 0;
+
+    /**
+     * Compares the snapshot against the previous one and reports every change. A disconnected snapshot releases all
+     * buttons. Events carry the {@link ControllerSnapshot#timestamp() timestamp} of the snapshot.
+     *
+     * @param snapshot - the latest poll.
+     * @param listener - receives the events, in button order. May be null to only update the tracked state.
+     */
+    void diff(ControllerSnapshot snapshot, Consumer<ButtonEvent> listener)
+    {
+        int current = snapshot.buttons();
+        int changed = previous ^ current;
+        previous = current;
+
+        if (listener == null)
+        {
+            return;
+        }
+
+        while (changed != 0)
+        {
+            int bit = Integer.numberOfTrailingZeros(changed);
+            listener.accept(new ButtonEvent(BUTTONS[bit], (current & 1 << bit) != 0, snapshot.timestamp()));
+            changed &= changed - 1;
+        }
+    }
+
+    /**
+     * Same as {@link #diff(ControllerSnapshot, Consumer)}, but collects the events.
+     *
+     * @param snapshot - the latest poll.
+     * @return the events, or an empty list if no buttons changed.
+     */
+    List<ButtonEvent> diff(ControllerSnapshot snapshot)
+    {
+        if (snapshot.buttons() == previous)
+        {
+            return Collections.emptyList();
+        }
+
+        List<ButtonEvent> events = new ArrayList<>(Integer.bitCount(snapshot.buttons() ^ previous));
+        diff(snapshot, events::add);
+        return events;
+    }
+}
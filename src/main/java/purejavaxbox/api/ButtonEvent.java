@@ -0,0 +1,62 @@
+package purejavaxbox.api;
+
+import purejavaxbox.XboxButton;
+
+/**
+ * Describes a toggle button changing state between two polls.
+ *
+ * @see ControllerApi#buttonEvents()
+ */
+public final class ButtonEvent
+{
+    private final XboxButton button;
+    private final boolean pressed;
+    private final long timestamp;
+
+    ButtonEvent(XboxButton button, boolean pressed, long timestamp)
+    {
+        this.button = button;
+        this.pressed = pressed;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the button that changed.
+     */
+    public XboxButton button()
+    {
+        return button;
+    }
+
+    /**
+     * @return true if the button was pressed, false if it was released.
+     */
+    public boolean isPressed()
+    {
+        return pressed;
+    }
+
+    /**
+     * @return true if the button was released.
+     */
+    public boolean isReleased()
+    {
+        return !pressed;
+    }
+
+    /**
+     * The time of the poll that detected the change, see {@link purejavaxbox.ControllerSnapshot#timestamp()}.
+     *
+     * @return the timestamp in nanoseconds.
+     */
+    public long timestamp()
+    {
+        return timestamp;
+    }
+
+    @Override
+    public String toString()
+    {
+        return button + (pressed ? " pressed" : " released") + " at " + timestamp;
+    }
+}
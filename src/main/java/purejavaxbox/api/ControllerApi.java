@@ -1,13 +1,15 @@
 package purejavaxbox.api;
 
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
 import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static purejavaxbox.api.HelperMethods.*;
@@ -32,6 +34,43 @@ public interface ControllerApi
      */
     Flux<Map<XboxButton, Number>> get();
 
+    /**
+     * Provides the same stream as {@link #get()} using {@link ControllerSnapshot snapshots} instead of maps. Snapshots
+     * store their values as primitives, so reading them does not box values. Snapshots emitted by this flux are
+     * immutable and may be retained by subscribers.
+     * <p>
+     * The default implementation converts the maps produced by {@link #get()}, and stamps them with the time they are
+     * received. Implementations should override this method if they can produce snapshots directly.
+     *
+     * @return the stream of controller snapshots.
+     */
+    default Flux<ControllerSnapshot> snapshots()
+    {
+        return get().map(map -> new MutableSnapshot()
+                .copyFrom(map)
+                .timestamp(System.nanoTime())
+                .immutableCopy());
+    }
+
+    /**
+     * Observe every press and release of the toggle buttons. Each poll is compared against the previous one, and an
+     * event is produced only for the buttons that changed, so listeners do work proportional to the number of changes
+     * rather than the poll rate. Disconnecting the controller releases any pressed buttons.
+     * <p>
+     * The default implementation tracks the changes separately for each subscriber. Implementations should override
+     * this method to compute the events once per poll.
+     *
+     * @return a flux of button events, in button order within a single poll.
+     */
+    default Flux<ButtonEvent> buttonEvents()
+    {
+        return Flux.defer(() ->
+        {
+            ButtonEdges edges = new ButtonEdges();
+            return snapshots().flatMapIterable(edges::diff);
+        });
+    }
+
     /**
      * Watch a particular button. This method will update as quickly as polling.
      *
@@ -61,7 +100,8 @@ public interface ControllerApi
 
     /**
      * Observe the state of a button combination. The returned flux will produce true only when all provided buttons are
-     * pressed.
+     * pressed. The combination is compiled to a bitmask and evaluated against a single subscription to {@link
+     * #snapshots()}, regardless of the number of buttons.
      *
      * @param b1      - the  first button in the combination.
      * @param b2      - the second button in the combination.
@@ -71,22 +111,11 @@ public interface ControllerApi
      */
     default Flux<Boolean> observe(XboxButton b1, XboxButton b2, XboxButton... buttons)
     {
-        Function<? super Number, ? extends Boolean> mapper = n -> n.intValue() == 1;
+        ButtonCombo combo = ButtonCombo.of(b1, b2, buttons);
 
-        Flux<Boolean> flux = observe(b1).map(mapper);
-
-        flux = flux
-                .zipWith(observe(b2).map(mapper))
-                .map(t -> t.getT1() && t.getT2());
-
-        for (XboxButton button : buttons)
-        {
-            flux = flux
-                    .zipWith(observe(button).map(mapper))
-                    .map(t -> t.getT1() && t.getT2());
-        }
-
-        return flux;
+        return snapshots()
+                .filter(ControllerSnapshot::isConnected)
+                .map(combo::test);
     }
 
     /**
@@ -97,13 +126,15 @@ public interface ControllerApi
      */
     default Flux<Boolean> observeToggle(XboxButton button)
     {
-        return observe(button)
-                .distinctUntilChanged()
-                .map(n -> n.intValue() == 1);
+        return snapshots()
+                .filter(ControllerSnapshot::isConnected)
+                .map(s -> s.value(button) == 1.0)
+                .distinctUntilChanged();
     }
 
     /**
-     * Observe when a button has been held down for the specified duration.
+     * Observe when a button has been held down for the specified duration. The duration is measured with the {@link
+     * ControllerSnapshot#timestamp() timestamps} of the polls, not the time values are delivered.
      *
      * @param duration - measure of time.
      * @param unit     - unit of duration.
@@ -116,20 +147,23 @@ public interface ControllerApi
         long timeToHold = unit.toNanos(duration);
 
         AtomicLong timestamp = new AtomicLong();
-        return observe(button)
-                .map(n -> n.intValue() == 1)
-                .doOnNext(pressed -> {
+        return snapshots()
+                .filter(ControllerSnapshot::isConnected)
+                .filter(s -> {
+                    boolean pressed = isPressed(s, button);
                     if (!pressed)
                     {
-                        timestamp.set(System.nanoTime());
+                        timestamp.set(s.timestamp());
                     }
+                    return s.timestamp() - timestamp.get() > timeToHold || !pressed;
                 })
-                .filter(pressed -> System.nanoTime() - timestamp.get() > timeToHold || !pressed)
+                .map(s -> isPressed(s, button))
                 .distinctUntilChanged();
     }
 
     /**
-     * Observe when a combination of buttons has been held down for the specified duration.
+     * Observe when a combination of buttons has been held down for the specified duration. The duration is measured
+     * with the {@link ControllerSnapshot#timestamp() timestamps} of the polls, not the time values are delivered.
      *
      * @param duration - measure of time.
      * @param unit     - unit of duration.
@@ -142,24 +176,28 @@ public interface ControllerApi
      */
     default Flux<Boolean> observeHeld(long duration, TimeUnit unit, XboxButton b1, XboxButton b2, XboxButton... buttons)
     {
-        Flux<Boolean> observeAll = observe(b1, b2, buttons);
+        ButtonCombo combo = ButtonCombo.of(b1, b2, buttons);
 
         long timeToHold = unit.toNanos(duration);
         AtomicLong timestamp = new AtomicLong();
-        return observeAll
-                .doOnNext(pressed -> {
+        return snapshots()
+                .filter(ControllerSnapshot::isConnected)
+                .filter(s -> {
+                    boolean pressed = combo.test(s);
                     if (!pressed)
                     {
-                        timestamp.set(System.nanoTime());
+                        timestamp.set(s.timestamp());
                     }
+                    return s.timestamp() - timestamp.get() > timeToHold || !pressed;
                 })
-                .filter(pressed -> System.nanoTime() - timestamp.get() > timeToHold || !pressed)
+                .map(combo::test)
                 .distinctUntilChanged();
     }
 
     /**
      * Notifies listeners when a value is pressed, and then provides a stream of values after the specified duration has
-     * elapsed and the button is still being held.
+     * elapsed and the button is still being held. The duration is measured with the {@link
+     * ControllerSnapshot#timestamp() timestamps} of the polls.
      *
      * @param duration - the amount of time to delay before streaming values.
      * @param unit     - the measure of duration.
@@ -173,22 +211,32 @@ public interface ControllerApi
 
         long time = unit.toNanos(duration);
 
-        return observe(button)
-                .doOnNext(n -> timestamp.getAndUpdate(v -> count.get() == 0 ? System.nanoTime() : v))
-                .filter(n -> {
-                    boolean isPressed = n.intValue() == 1;
+        return snapshots()
+                .filter(ControllerSnapshot::isConnected)
+                .doOnNext(s -> {
+                    if (count.get() == 0)
+                    {
+                        timestamp.set(s.timestamp());
+                    }
+                })
+                .filter(s -> {
+                    boolean isPressed = isPressed(s, button);
                     if (!isPressed)
                     {
                         count.set(0);
                     }
                     return isPressed;
                 })
-                .filter(duringDelay(count, timestamp, time));
+                .filter(duringDelay(count, timestamp, time))
+                .map(s -> s
+                        .asMap()
+                        .get(button));
     }
 
     /**
      * Notifies listeners when a value is pressed, and then provides a stream of values after the specified duration has
-     * elapsed and the button is still being held.
+     * elapsed and the button is still being held. The duration is measured with the {@link
+     * ControllerSnapshot#timestamp() timestamps} of the polls.
      *
      * @param duration - the amount of time to delay before streaming values.
      * @param unit     - the measure of duration.
@@ -199,26 +247,77 @@ public interface ControllerApi
      */
     default Flux<Boolean> observeAfterDelay(long duration, TimeUnit unit, XboxButton b1, XboxButton b2, XboxButton... buttons)
     {
+        ButtonCombo combo = ButtonCombo.of(b1, b2, buttons);
         AtomicLong count = new AtomicLong(0);
         AtomicLong timestamp = new AtomicLong(0);
 
         long time = unit.toNanos(duration);
 
-        return observe(b1, b2, buttons)
-                .doOnNext(n -> timestamp.getAndUpdate(v -> count.get() == 0 ? System.nanoTime() : v))
-                .filter(isPressed -> {
+        return snapshots()
+                .filter(ControllerSnapshot::isConnected)
+                .doOnNext(s -> {
+                    if (count.get() == 0)
+                    {
+                        timestamp.set(s.timestamp());
+                    }
+                })
+                .filter(s -> {
+                    boolean isPressed = combo.test(s);
                     if (!isPressed)
                     {
                         count.set(0);
                     }
                     return isPressed;
                 })
-                .filter(duringDelay(count, timestamp, time));
+                .filter(duringDelay(count, timestamp, time))
+                .map(combo::test);
+    }
+
+    /**
+     * Registers a listener that receives every change of a button, stick or trigger as primitives. Changes are found
+     * by comparing each poll against the previous one, starting from the poll after registration.
+     * <p>
+     * The default implementation subscribes to {@link #snapshots()}. Implementations should override this method to
+     * call listeners directly from the polling thread, without allocating.
+     *
+     * @param listener - the listener.
+     * @return the registration. Dispose it to remove the listener.
+     */
+    default Disposable addListener(ControllerListener listener)
+    {
+        ListenerDispatcher dispatcher = new ListenerDispatcher();
+        dispatcher.add(listener);
+        return snapshots().subscribe(dispatcher::dispatch);
+    }
+
+    /**
+     * Copies the latest state of the controller, without subscribing, locking or allocating. This lets a render or
+     * simulation loop read the exact latest input at the start of each frame, from any thread.
+     * <p>
+     * By default, no state is kept, so this method always returns false. Implementations that keep the latest state
+     * override it.
+     *
+     * @param into - receives the latest state, along with its timestamp and sequence number.
+     * @return false if the controller was not polled yet, or keeps no state, in which case into is left untouched.
+     */
+    default boolean sample(MutableSnapshot into)
+    {
+        return false;
+    }
+
+    /**
+     * Provides the runtime metrics of the polling pipeline.
+     *
+     * @return the metrics, or null if this implementation does not record any.
+     */
+    default ControllerMetrics metrics()
+    {
+        return null;
     }
 
     /**
-     * Terminates all listeners to this controller and removes it from the polling thread. The cancellation signal is
-     * delivered on the calling thread.
+     * Terminates all listeners to this controller, removes it from the polling thread and closes its {@link
+     * purejavaxbox.raw.XboxControllers controllers}. The cancellation signal is delivered on the calling thread.
      * <p>
      * This method blocks while it waits for the polling task to cancel, up to 1 second.
      * <p>
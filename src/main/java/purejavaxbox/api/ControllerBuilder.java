@@ -1,5 +1,6 @@
 package purejavaxbox.api;
 
+import purejavaxbox.XboxButton;
 import purejavaxbox.raw.XboxControllers;
 
 import java.util.ArrayList;
@@ -16,12 +17,19 @@ public final class ControllerBuilder
 {
     private XboxControllers controllers;
     private long nanos = -1L;
+    private boolean changeDetection = false;
+    private AdaptiveTiming adaptiveTiming;
+    private Pacing pacing;
+    private NanoClock clock = NanoClock.SYSTEM;
+    private boolean registerMetrics = true;
+    private SubscriberIsolation isolation;
+    private RumbleScheduler rumble;
 
-    private List<ButtonMapper> mappers = Collections.emptyList();
+    private List<PrimitiveButtonMapper> mappers = Collections.emptyList();
 
     /**
      * Provide a custom list of controllers. By default, this ControllerBuilder is configured {@link
-     * XboxControllers#useDefaults()}.
+     * XboxControllers#useDefaults()}. The controllers are closed when the api is disposed.
      *
      * @param controllers - the controller list.
      * @return this.
@@ -47,6 +55,102 @@ public final class ControllerBuilder
         return this;
     }
 
+    /**
+     * Polls at a rate that adapts to the use of the controller instead of the fixed rate provided by {@link
+     * #timing(double)}.
+     *
+     * @param adaptiveTiming - the configuration of the rates, or null to use the fixed rate.
+     * @return this.
+     */
+    public ControllerBuilder adaptiveTiming(AdaptiveTiming adaptiveTiming)
+    {
+        this.adaptiveTiming = adaptiveTiming;
+        return this;
+    }
+
+    /**
+     * Chooses how the polling thread waits between polls. By default, {@link Pacing#scheduledExecutor()} is used. For
+     * rates of several hundred polls per second, {@link Pacing#hybrid()} gives a much steadier period.
+     *
+     * @param pacing - the strategy, or null to use the default. The achieved timing can be read from it afterwards.
+     * @return this.
+     */
+    public ControllerBuilder pacing(Pacing pacing)
+    {
+        this.pacing = pacing;
+        return this;
+    }
+
+    /**
+     * Provide a custom source for the timestamps of each poll. By default, {@link System#nanoTime()} is used. Time based
+     * operators, such as {@link ControllerApi#observeHeld(long, TimeUnit, XboxButton)}, measure time using these
+     * timestamps, so a virtual clock makes them deterministic.
+     *
+     * @param clock - the clock, or null to use the default.
+     * @return this.
+     */
+    public ControllerBuilder clock(NanoClock clock)
+    {
+        this.clock = clock == null ? NanoClock.SYSTEM : clock;
+        return this;
+    }
+
+    /**
+     * Delivers values to each subscriber on its own thread, instead of running every subscriber on the polling thread.
+     * By default, subscribers run on the polling thread.
+     *
+     * @param isolation - the configuration of the hand-off, or null to run subscribers on the polling thread.
+     * @return this.
+     */
+    public ControllerBuilder isolateSubscribers(SubscriberIsolation isolation)
+    {
+        this.isolation = isolation;
+        return this;
+    }
+
+    /**
+     * Plays rumble effects from the polling thread, on the controller that is being listened to. A scheduler drives a
+     * single player.
+     *
+     * @param rumble - the scheduler, or null to not schedule effects.
+     * @return this.
+     */
+    public ControllerBuilder rumble(RumbleScheduler rumble)
+    {
+        this.rumble = rumble;
+        return this;
+    }
+
+    /**
+     * Enables or disables the registration of {@link ControllerApi#metrics() metrics} with the platform MBean server.
+     * Metrics are recorded either way. Enabled by default.
+     *
+     * @param enabled - true to register the metrics.
+     * @return this.
+     */
+    public ControllerBuilder registerMetrics(boolean enabled)
+    {
+        this.registerMetrics = enabled;
+        return this;
+    }
+
+    /**
+     * Enables or disables change detection. When enabled, a poll is only distributed to listeners if the state of the
+     * controller changed since the last distributed poll, and controllers are allowed to skip decoding when the driver
+     * reports the same packet. Disabled by default.
+     * <p>
+     * Time based operators such as {@link ControllerApi#observeHeld(long, TimeUnit, XboxButton)} only advance when a
+     * value is received, so they will not fire while the controller is idle when this mode is enabled.
+     *
+     * @param enabled - true to only distribute changes.
+     * @return this.
+     */
+    public ControllerBuilder changeDetection(boolean enabled)
+    {
+        this.changeDetection = enabled;
+        return this;
+    }
+
     private long fpsToNanos(double fps)
     {
         return (long) (1.0 / fps * TimeUnit.SECONDS.toNanos(1L));
@@ -59,6 +163,18 @@ public final class ControllerBuilder
      * @return this.
      */
     public ControllerBuilder mapper(ButtonMapper mapper)
+    {
+        return primitiveMapper(PrimitiveButtonMapper.of(mapper));
+    }
+
+    /**
+     * Adds a mapper that works on primitive values to this controller. All mappers are fused into a single pass that
+     * runs on the polling thread, in the order they were added.
+     *
+     * @param mapper - the mapper.
+     * @return this.
+     */
+    public ControllerBuilder primitiveMapper(PrimitiveButtonMapper mapper)
     {
         if (mappers.isEmpty())
         {
@@ -97,10 +213,48 @@ public final class ControllerBuilder
     }
 
     public ControllerApi player1()
+    {
+        ControllerApi api = new PreProcessedControllerApi(newPlayer().start());
+        return isolation == null ? api : new IsolatedControllerApi(api, isolation);
+    }
+
+    /**
+     * Creates a ring of snapshots for consumers that do not use Reactor, such as a game loop. The polling thread
+     * publishes every poll into the ring, after applying the mappers, and each {@link RingConsumer} reads it with its
+     * own cursor. {@link #isolateSubscribers(SubscriberIsolation)} does not apply to rings.
+     *
+     * @param capacity - the minimum number of snapshots kept for slow consumers. Rounded up to a power of two.
+     * @return the ring. Polling stops when it is disposed.
+     */
+    public ControllerRing ring(int capacity)
+    {
+        ControllerRing ring = new ControllerRing(capacity);
+        SinglePlayer player = newPlayer();
+        ring.publishedBy(player);
+        player
+                .publishTo(ring)
+                .start();
+        return ring;
+    }
+
+    private SinglePlayer newPlayer()
     {
         XboxControllers controllers = this.controllers == null ? XboxControllers.useDefaults() : this.controllers;
         long pollingInNanos = this.nanos <= 0L ? fpsToNanos(20.0) : this.nanos;
 
-        return new PreProcessedControllerApi(new SinglePlayer(pollingInNanos, controllers), mappers);
+        Pacing pacing = this.pacing == null ? Pacing.scheduledExecutor() : this.pacing;
+
+        SinglePlayer player = adaptiveTiming == null ? new SinglePlayer(pollingInNanos, controllers, changeDetection, pacing, clock) : new SinglePlayer(adaptiveTiming.newSchedule(), controllers, changeDetection, pacing, clock);
+        player
+                .mappers(MapperChain.of(mappers))
+                .rumble(rumble);
+
+        if (registerMetrics)
+        {
+            player
+                    .metrics()
+                    .register();
+        }
+        return player;
     }
 }
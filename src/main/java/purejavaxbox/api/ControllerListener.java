@@ -0,0 +1,35 @@
+package purejavaxbox.api;
+
+import purejavaxbox.XboxButton;
+
+/**
+ * Receives the changes of a controller as primitives, directly from the polling thread. This is the cheapest way to
+ * observe a controller: nothing is boxed or allocated, and a listener is only called for the inputs that changed since
+ * the previous poll. Register listeners with {@link ControllerApi#addListener(ControllerListener)}.
+ * <p>
+ * Listeners run on the polling thread, so they must return quickly: a slow listener delays the next poll.
+ */
+public interface ControllerListener
+{
+    /**
+     * Called when a toggle button is pressed or released.
+     *
+     * @param ordinal - the {@link XboxButton#ordinal() ordinal} of the button.
+     * @param pressed - true if the button is now pressed.
+     * @param nanos   - the timestamp of the poll, see {@link purejavaxbox.ControllerSnapshot#timestamp()}.
+     */
+    default void onButton(int ordinal, boolean pressed, long nanos)
+    {
+    }
+
+    /**
+     * Called when the value of a stick or trigger changes.
+     *
+     * @param ordinal - the {@link XboxButton#ordinal() ordinal} of the stick or trigger.
+     * @param value   - the new value, using the scales documented in {@link purejavaxbox.raw.XboxController#buttons()}.
+     * @param nanos   - the timestamp of the poll, see {@link purejavaxbox.ControllerSnapshot#timestamp()}.
+     */
+    default void onAxis(int ordinal, double value, long nanos)
+    {
+    }
+}
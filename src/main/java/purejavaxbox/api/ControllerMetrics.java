@@ -0,0 +1,273 @@
+package purejavaxbox.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Runtime metrics of a {@link ControllerApi}, see {@link ControllerApi#metrics()}. The polling thread records into this
+ * object without locking or allocating, and the values can be read from any thread, either directly or through JMX
+ * under the name {@code purejavaxbox:type=ControllerMetrics,name=player-N}.
+ */
+public final class ControllerMetrics implements ControllerMetricsMBean
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ControllerMetrics.class);
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private final AtomicLong polls = new AtomicLong();
+    private final LatencyHistogram nativeLatency = new LatencyHistogram();
+    private final LatencyHistogram emit = new LatencyHistogram();
+    private final LatencyHistogram mapperChain = new LatencyHistogram();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger slowSubscribers = new AtomicInteger();
+    private final AtomicLong eventOverflows = new AtomicLong();
+
+    private final PacingRecorder pacing;
+    private final IntSupplier subscribers;
+    private final IntSupplier connectedSlots;
+
+    private ObjectName name;
+
+    ControllerMetrics(PacingRecorder pacing, IntSupplier subscribers, IntSupplier connectedSlots)
+    {
+        this.pacing = pacing;
+        this.subscribers = subscribers;
+        this.connectedSlots = connectedSlots;
+    }
+
+    void recordPoll()
+    {
+        polls.incrementAndGet();
+    }
+
+    void recordNativeCall(long nanos)
+    {
+        nativeLatency.record(nanos);
+    }
+
+    void recordEmit(long nanos)
+    {
+        emit.record(nanos);
+    }
+
+    void recordMapperChain(long nanos)
+    {
+        mapperChain.record(nanos);
+    }
+
+    void recordDropped()
+    {
+        dropped.incrementAndGet();
+    }
+
+    void recordSlowSubscriber(int delta)
+    {
+        slowSubscribers.addAndGet(delta);
+    }
+
+    void recordEventOverflow()
+    {
+        eventOverflows.incrementAndGet();
+    }
+
+    /**
+     * Registers this object with the platform MBean server. Failures are logged, as metrics should never prevent a
+     * controller from working.
+     */
+    synchronized void register()
+    {
+        if (name != null)
+        {
+            return;
+        }
+
+        try
+        {
+            ObjectName objectName = new ObjectName("purejavaxbox:type=ControllerMetrics,name=player-" + COUNT.incrementAndGet());
+            ManagementFactory
+                    .getPlatformMBeanServer()
+                    .registerMBean(this, objectName);
+            name = objectName;
+        }
+        catch (JMException e)
+        {
+            LOG.warn("Unable to register the controller metrics.", e);
+        }
+    }
+
+    synchronized void unregister()
+    {
+        if (name == null)
+        {
+            return;
+        }
+
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name))
+            {
+                server.unregisterMBean(name);
+            }
+        }
+        catch (JMException e)
+        {
+            LOG.warn("Unable to unregister the controller metrics.", e);
+        }
+        name = null;
+    }
+
+    /**
+     * @return the name this object is registered under, or null if it is not registered.
+     */
+    public synchronized ObjectName objectName()
+    {
+        return name;
+    }
+
+    @Override
+    public long getPollCount()
+    {
+        return polls.get();
+    }
+
+    @Override
+    public long getNativeCallCount()
+    {
+        return nativeLatency.count();
+    }
+
+    @Override
+    public long[] getNativeLatencyHistogram()
+    {
+        return nativeLatency.buckets();
+    }
+
+    @Override
+    public double getNativeLatencyMeanNanos()
+    {
+        return nativeLatency.mean();
+    }
+
+    @Override
+    public long getNativeLatencyP99Nanos()
+    {
+        return nativeLatency.percentile(99.0);
+    }
+
+    @Override
+    public long getNativeLatencyMaxNanos()
+    {
+        return nativeLatency.max();
+    }
+
+    @Override
+    public double getEmitMeanNanos()
+    {
+        return emit.mean();
+    }
+
+    @Override
+    public long getEmitMaxNanos()
+    {
+        return emit.max();
+    }
+
+    @Override
+    public double getMapperChainMeanNanos()
+    {
+        return mapperChain.mean();
+    }
+
+    @Override
+    public long getMapperChainMaxNanos()
+    {
+        return mapperChain.max();
+    }
+
+    @Override
+    public long[] getTickLatenessHistogram()
+    {
+        return pacing
+                .snapshot()
+                .latenessHistogram();
+    }
+
+    @Override
+    public long getTickLatenessP99Nanos()
+    {
+        return pacing
+                .snapshot()
+                .latenessPercentile(99.0);
+    }
+
+    @Override
+    public long getTickOverruns()
+    {
+        return pacing
+                .snapshot()
+                .overruns();
+    }
+
+    @Override
+    public double getMeanPeriodNanos()
+    {
+        return pacing
+                .snapshot()
+                .meanPeriodNanos();
+    }
+
+    @Override
+    public long getDroppedEmissions()
+    {
+        return dropped.get();
+    }
+
+    @Override
+    public int getSubscriberCount()
+    {
+        return subscribers.getAsInt();
+    }
+
+    @Override
+    public int getSlowSubscribers()
+    {
+        return slowSubscribers.get();
+    }
+
+    @Override
+    public long getEventOverflows()
+    {
+        return eventOverflows.get();
+    }
+
+    @Override
+    public int getConnectedSlots()
+    {
+        return connectedSlots.getAsInt();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ControllerMetrics{polls=%d, native=%.0f ns (p99 %d ns), emit=%.0f ns, mappers=%.0f ns, " +
+                                     "overruns=%d, dropped=%d, subscribers=%d, slow=%d, connected=%d}",
+                             getPollCount(),
+                             getNativeLatencyMeanNanos(),
+                             getNativeLatencyP99Nanos(),
+                             getEmitMeanNanos(),
+                             getMapperChainMeanNanos(),
+                             getTickOverruns(),
+                             getDroppedEmissions(),
+                             getSubscriberCount(),
+                             getSlowSubscribers(),
+                             getConnectedSlots());
+    }
+}
@@ -0,0 +1,105 @@
+package purejavaxbox.api;
+
+/**
+ * The JMX view of {@link ControllerMetrics}. Durations are in nanoseconds. Histograms use power of two buckets: index 0
+ * counts durations of 0, and index {@code k} counts durations between {@code 2^(k-1)} and {@code 2^k} nanoseconds.
+ */
+public interface ControllerMetricsMBean
+{
+    /**
+     * @return the number of polls.
+     */
+    long getPollCount();
+
+    /**
+     * @return the number of calls made to the controller backends.
+     */
+    long getNativeCallCount();
+
+    /**
+     * @return the histogram of the time spent in each call to a controller backend. A call includes decoding the state
+     * of the controller into its snapshot, which happens inside the backend.
+     */
+    long[] getNativeLatencyHistogram();
+
+    /**
+     * @return the average time spent in each call to a controller backend.
+     */
+    double getNativeLatencyMeanNanos();
+
+    /**
+     * @return the upper bound of the histogram bucket holding the 99th percentile of the backend call times.
+     */
+    long getNativeLatencyP99Nanos();
+
+    /**
+     * @return the longest time spent in a single call to a controller backend.
+     */
+    long getNativeLatencyMaxNanos();
+
+    /**
+     * @return the average time spent between the backend call and the mappers: change detection, and copying the polled
+     * state into the distributed value.
+     */
+    double getEmitMeanNanos();
+
+    /**
+     * @return the longest time spent on change detection and copying a polled state into the distributed value.
+     */
+    long getEmitMaxNanos();
+
+    /**
+     * @return the average time spent running the mappers on a single value.
+     */
+    double getMapperChainMeanNanos();
+
+    /**
+     * @return the longest time spent running the mappers on a single value.
+     */
+    long getMapperChainMaxNanos();
+
+    /**
+     * @return the histogram of how late each poll started compared to its deadline.
+     */
+    long[] getTickLatenessHistogram();
+
+    /**
+     * @return the upper bound of the histogram bucket holding the 99th percentile of the poll lateness.
+     */
+    long getTickLatenessP99Nanos();
+
+    /**
+     * @return the number of polls that ran past the deadline of the next poll.
+     */
+    long getTickOverruns();
+
+    /**
+     * @return the average time between the start of two consecutive polls.
+     */
+    double getMeanPeriodNanos();
+
+    /**
+     * @return the number of values and events that were dropped because subscribers could not keep up.
+     */
+    long getDroppedEmissions();
+
+    /**
+     * @return the number of subscribers currently attached to the polling thread.
+     */
+    int getSubscriberCount();
+
+    /**
+     * @return the number of isolated subscribers currently flagged as slow, see {@link SubscriberIsolation}.
+     */
+    int getSlowSubscribers();
+
+    /**
+     * @return the number of button events dropped because the queue of an isolated subscriber was full.
+     */
+    long getEventOverflows();
+
+    /**
+     * @return the number of controllers found connected by their latest poll.
+     */
+    int getConnectedSlots();
+}
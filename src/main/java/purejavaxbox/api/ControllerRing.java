@@ -0,0 +1,141 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A pre-allocated ring of controller snapshots, published by the polling thread, for consumers that do not use Reactor.
+ * It is created by {@link ControllerBuilder#ring(int)}.
+ * <p>
+ * Every poll is stored in the next slot of the ring as primitive values, without allocating. Each {@link RingConsumer}
+ * reads the slots in order with its own cursor, so consumers never wait on each other. The polling thread never waits
+ * on consumers either: a consumer that falls more than {@link #capacity()} snapshots behind loses the oldest ones, and
+ * continues from the oldest snapshot still in the ring.
+ * <p>
+ * Slots are stored in an {@link AtomicLongArray}. Before overwriting a slot, the polling thread announces the sequence
+ * it claims, so a consumer can tell whether the slot it just copied was overwritten during the copy.
+ */
+public final class ControllerRing
+{
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray slots;
+    private final AtomicLong claimed = new AtomicLong(-1L);
+    private final AtomicLong cursor = new AtomicLong(-1L);
+
+    private SinglePlayer player;
+    private volatile boolean disposed;
+
+    /**
+     * @param capacity - the minimum number of snapshots kept. Rounded up to a power of two.
+     */
+    ControllerRing(int capacity)
+    {
+        if (capacity <= 0 || capacity > 1 << 24)
+        {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^24: " + capacity);
+        }
+
+        this.capacity = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicLongArray(this.capacity * SnapshotSlots.STRIDE);
+    }
+
+    /**
+     * Attaches the player that publishes into this ring, so it can be disposed with it.
+     */
+    ControllerRing publishedBy(SinglePlayer player)
+    {
+        this.player = player;
+        return this;
+    }
+
+    /**
+     * Creates a new consumer. It starts after the latest published snapshot, and is meant to be used by a single thread.
+     *
+     * @param strategy - how {@link RingConsumer#take(MutableSnapshot)} waits.
+     * @return the consumer.
+     */
+    public RingConsumer newConsumer(WaitStrategy strategy)
+    {
+        return new RingConsumer(this, strategy, cursor.get() + 1L);
+    }
+
+    /**
+     * @return the number of snapshots kept by the ring.
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * @return the sequence of the latest published snapshot, or -1 if none were published.
+     */
+    public long cursor()
+    {
+        return cursor.get();
+    }
+
+    /**
+     * @return the metrics of the polling pipeline feeding this ring.
+     */
+    public ControllerMetrics metrics()
+    {
+        return player == null ? null : player.metrics();
+    }
+
+    /**
+     * Stops polling. Consumers waiting in {@link RingConsumer#take(MutableSnapshot)} return false.
+     */
+    public void dispose()
+    {
+        disposed = true;
+        if (player != null)
+        {
+            player.dispose();
+        }
+    }
+
+    boolean isDisposed()
+    {
+        return disposed;
+    }
+
+    /**
+     * Stores a snapshot in the next slot. Called by the polling thread only.
+     */
+    void publish(ControllerSnapshot snapshot)
+    {
+        long sequence = cursor.get() + 1L;
+        claimed.lazySet(sequence);
+        SnapshotSlots.write(slots, (int) (sequence & mask) * SnapshotSlots.STRIDE, snapshot);
+        cursor.lazySet(sequence);
+    }
+
+    /**
+     * Copies a slot into a snapshot. The sequence must be published before the copy starts: with a capacity of 1, the
+     * oldest sequence still in the ring can be the one being written.
+     *
+     * @return true if the slot holds the requested sequence, false if it is not published yet or was overwritten
+     * during the copy.
+     */
+    boolean read(long sequence, MutableSnapshot into)
+    {
+        if (cursor.get() < sequence)
+        {
+            return false;
+        }
+
+        SnapshotSlots.read(slots, (int) (sequence & mask) * SnapshotSlots.STRIDE, into);
+        return claimed.get() - sequence < capacity;
+    }
+
+    long claimed()
+    {
+        return claimed.get();
+    }
+}
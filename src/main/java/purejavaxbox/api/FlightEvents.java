@@ -0,0 +1,121 @@
+package purejavaxbox.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Emits Java Flight Recorder events for the stages of the polling pipeline: {@code purejavaxbox.ControllerPoll}, {@code
+ * purejavaxbox.MapperChain} and {@code purejavaxbox.ControllerEmit}. The events are enabled, disabled and filtered
+ * through the usual JFR settings.
+ * <p>
+ * The events are compiled separately, since the {@code jdk.jfr} API does not exist on every supported runtime. When it
+ * is missing, {@link #INSTANCE} does nothing. Each stage is wrapped in a begin and end call. Begin returns null when
+ * the event is disabled, and end returns immediately when given null, so a disabled event costs a single check.
+ */
+abstract class FlightEvents
+{
+    private static final Logger LOG = LoggerFactory.getLogger(FlightEvents.class);
+
+    private static final String IMPLEMENTATION = "purejavaxbox.api.JfrFlightEvents";
+
+    /**
+     * Does nothing. Used when flight recorder is not available.
+     */
+    static final FlightEvents NONE = new FlightEvents()
+    {
+        @Override
+        Object beginPoll()
+        {
+            return null;
+        }
+
+        @Override
+        void endPoll(Object event, int slot, boolean connected)
+        {
+        }
+
+        @Override
+        Object beginMapperChain()
+        {
+            return null;
+        }
+
+        @Override
+        void endMapperChain(Object event, int mappers)
+        {
+        }
+
+        @Override
+        Object beginEmit()
+        {
+            return null;
+        }
+
+        @Override
+        void endEmit(Object event, int subscribers, boolean dropped)
+        {
+        }
+    };
+
+    static final FlightEvents INSTANCE = load();
+
+    static FlightEvents load()
+    {
+        try
+        {
+            Class.forName("jdk.jfr.Event");
+            FlightEvents events = (FlightEvents) Class
+                    .forName(IMPLEMENTATION)
+                    .getDeclaredConstructor()
+                    .newInstance();
+            LOG.debug("Flight recorder events are available.");
+            return events;
+        }
+        catch (ReflectiveOperationException | LinkageError e)
+        {
+            LOG.debug("Flight recorder events are not available.", e);
+            return NONE;
+        }
+    }
+
+    /**
+     * Starts timing a call to a controller backend.
+     *
+     * @return the event, or null if the event is disabled.
+     */
+    abstract Object beginPoll();
+
+    /**
+     * @param event     - the value returned by {@link #beginPoll()}, which may be null.
+     * @param slot      - the id of the controller.
+     * @param connected - the result of the poll.
+     */
+    abstract void endPoll(Object event, int slot, boolean connected);
+
+    /**
+     * Starts timing the mappers applied to a single value.
+     *
+     * @return the event, or null if the event is disabled.
+     */
+    abstract Object beginMapperChain();
+
+    /**
+     * @param event   - the value returned by {@link #beginMapperChain()}, which may be null.
+     * @param mappers - the number of mappers that were applied.
+     */
+    abstract void endMapperChain(Object event, int mappers);
+
+    /**
+     * Starts timing the delivery of a value to subscribers.
+     *
+     * @return the event, or null if the event is disabled.
+     */
+    abstract Object beginEmit();
+
+    /**
+     * @param event       - the value returned by {@link #beginEmit()}, which may be null.
+     * @param subscribers - the number of subscribers the value was delivered to.
+     * @param dropped     - true if the value was dropped because subscribers could not keep up.
+     */
+    abstract void endEmit(Object event, int subscribers, boolean dropped);
+}
@@ -1,5 +1,8 @@
 package purejavaxbox.api;
 
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.XboxButton;
+
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
@@ -14,20 +17,32 @@ final class HelperMethods
      * @param count     - the number of ticks since the button was first held down.
      * @param timestamp - the timestamp indicating when the buttons(s) were first pressed down.
      * @param timeNanos - the measure of the delay in nanos.
-     * @param <T>       - the type of value to consume. Value is unused in the calculation.
-     * @return returns true if count == 0, or the button(s) have been held longer than timeNanos.
+     * @return returns true if count == 0, or the button(s) have been held longer than timeNanos, measured with the
+     * timestamp of the snapshot.
      */
-    static <T> Predicate<T> duringDelay(AtomicLong count, AtomicLong timestamp, long timeNanos)
+    static Predicate<ControllerSnapshot> duringDelay(AtomicLong count, AtomicLong timestamp, long timeNanos)
     {
-        return v -> {
+        return snapshot -> {
             boolean isFirst = count.getAndIncrement() == 0;
-            long elapsed = System.nanoTime() - timestamp.get();
+            long elapsed = snapshot.timestamp() - timestamp.get();
             long diff = elapsed - timeNanos;
             boolean timeHasExceededDelay = diff >= 0;
             return isFirst || timeHasExceededDelay;
         };
     }
 
+    /**
+     * Checks whether a button is pressed, the same way {@link ControllerApi#observe(XboxButton)} values are checked.
+     *
+     * @param snapshot - the poll.
+     * @param button   - the button to check.
+     * @return true if the value of the button is 1.
+     */
+    static boolean isPressed(ControllerSnapshot snapshot, XboxButton button)
+    {
+        return (int) snapshot.value(button) == 1;
+    }
+
     private HelperMethods()
     {
         // Utility class
@@ -0,0 +1,116 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * This class is used with {@link ControllerBuilder} to deliver values to each subscriber on its own thread, see {@link
+ * SubscriberIsolation}. Every subscription gets its own hand-off, so the polling thread never runs subscriber code and
+ * subscribers never wait on each other. Delivery threads are daemons called controller-delivery, and are reused once a
+ * subscription ends.
+ */
+final class IsolatedControllerApi implements ControllerApi
+{
+    private static final Scheduler DELIVERY = Schedulers.newElastic("controller-delivery", 60, true);
+
+    private final ControllerApi parent;
+    private final SubscriberIsolation isolation;
+
+    private final Flux<ControllerSnapshot> snapshots;
+    private final Flux<Map<XboxButton, Number>> mapFlux;
+    private final Flux<ButtonEvent> events;
+
+    IsolatedControllerApi(ControllerApi parent, SubscriberIsolation isolation)
+    {
+        this.parent = parent;
+        this.isolation = isolation;
+
+        this.snapshots = Flux.defer(() ->
+        {
+            SubscriberMonitor monitor = newMonitor("snapshots");
+            return parent
+                    .snapshots()
+                    .doOnNext(s -> monitor.offered())
+                    .onBackpressureLatest()
+                    .publishOn(DELIVERY, 1)
+                    .doOnNext(s -> monitor.delivered())
+                    .doFinally(signal -> monitor.release());
+        });
+        this.mapFlux = snapshots.map(ControllerSnapshot::asMap);
+        this.events = Flux.defer(() ->
+        {
+            SubscriberMonitor monitor = newMonitor("button events");
+            Flux<ButtonEvent> offered = parent
+                    .buttonEvents()
+                    .doOnNext(e -> monitor.offered());
+            Flux<ButtonEvent> handOff = isolation.isQueueingEvents()
+                    ? offered.onBackpressureBuffer(isolation.eventCapacity(),
+                                                   e -> monitor.overflowed(),
+                                                   BufferOverflowStrategy.DROP_OLDEST)
+                    : offered.onBackpressureLatest();
+
+            return handOff
+                    .publishOn(DELIVERY, 1)
+                    .doOnNext(e -> monitor.delivered())
+                    .doFinally(signal -> monitor.release());
+        });
+    }
+
+    private SubscriberMonitor newMonitor(String stream)
+    {
+        return new SubscriberMonitor(stream, isolation.slowThresholdNanos(), parent.metrics());
+    }
+
+    @Override
+    public Flux<Map<XboxButton, Number>> get()
+    {
+        return mapFlux;
+    }
+
+    @Override
+    public Flux<ControllerSnapshot> snapshots()
+    {
+        return snapshots;
+    }
+
+    @Override
+    public Flux<ButtonEvent> buttonEvents()
+    {
+        return events;
+    }
+
+    /**
+     * {@inheritDoc} Listeners are not isolated, they are registered with the parent.
+     */
+    @Override
+    public Disposable addListener(ControllerListener listener)
+    {
+        return parent.addListener(listener);
+    }
+
+    @Override
+    public boolean sample(MutableSnapshot into)
+    {
+        return parent.sample(into);
+    }
+
+    @Override
+    public ControllerMetrics metrics()
+    {
+        return parent.metrics();
+    }
+
+    @Override
+    public void dispose()
+    {
+        parent.dispose();
+    }
+}
@@ -0,0 +1,95 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations with power of two buckets: bucket 0 counts durations of 0 or less, and bucket {@code k}
+ * counts durations between {@code 2^(k-1)} and {@code 2^k} nanoseconds. Recording is lock-free and does not allocate,
+ * so it can be used on every poll. Reads may run on any thread, and are only consistent with each other once recording
+ * has stopped.
+ */
+final class LatencyHistogram
+{
+    static final int BUCKETS = Long.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    static int bucketOf(long nanos)
+    {
+        return nanos <= 0L ? 0 : Math.min(Long.SIZE - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+
+    /**
+     * Estimates a percentile from buckets produced by {@link #buckets()}.
+     *
+     * @param buckets    - the histogram.
+     * @param percentile - between 0.0 and 100.0.
+     * @return the upper bound of the bucket containing the percentile, in nanoseconds. 0 if the histogram is empty.
+     */
+    static long percentile(long[] buckets, double percentile)
+    {
+        long total = 0L;
+        for (long count : buckets)
+        {
+            total += count;
+        }
+
+        long target = (long) Math.ceil(total * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0L;
+        for (int bucket = 0; bucket < buckets.length; bucket++)
+        {
+            seen += buckets[bucket];
+            if (seen >= target && seen > 0L)
+            {
+                return bucket == 0 ? 0L : 1L << Math.min(bucket, Long.SIZE - 2);
+            }
+        }
+        return 0L;
+    }
+
+    void record(long nanos)
+    {
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    long count()
+    {
+        return count.get();
+    }
+
+    long max()
+    {
+        return max.get();
+    }
+
+    double mean()
+    {
+        long n = count.get();
+        return n == 0L ? 0.0 : (double) sum.get() / n;
+    }
+
+    long percentile(double percentile)
+    {
+        return percentile(buckets(), percentile);
+    }
+
+    /**
+     * @return a copy of the buckets.
+     */
+    long[] buckets()
+    {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            copy[i] = buckets.get(i);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,56 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Holds the latest snapshot published by the polling thread behind a seqlock, for {@link ControllerApi#sample(MutableSnapshot)}.
+ * <p>
+ * The version is odd while a snapshot is being written. Publishing never waits, and neither side locks or allocates.
+ * A reader copies the values and retries only if the version changed during the copy, which requires a poll to be
+ * published in those few nanoseconds.
+ */
+final class LatestSnapshot
+{
+    private final AtomicLongArray slot = new AtomicLongArray(SnapshotSlots.STRIDE);
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Called by the polling thread only.
+     */
+    void publish(ControllerSnapshot snapshot)
+    {
+        long next = version.get() + 1L;
+        version.lazySet(next);
+        SnapshotSlots.write(slot, 0, snapshot);
+        version.lazySet(next + 1L);
+    }
+
+    /**
+     * @param into - receives the latest snapshot.
+     * @return false if nothing was published yet, in which case into is untouched.
+     */
+    boolean read(MutableSnapshot into)
+    {
+        while (true)
+        {
+            long before = version.get();
+            if (before == 0L)
+            {
+                return false;
+            }
+
+            if ((before & 1L) == 0L)
+            {
+                SnapshotSlots.read(slot, 0, into);
+                if (version.get() == before)
+                {
+                    return true;
+                }
+            }
+        }
+    }
+}
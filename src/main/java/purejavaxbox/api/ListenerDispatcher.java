@@ -0,0 +1,112 @@
+package purejavaxbox.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.Arrays;
+
+/**
+ * Calls {@link ControllerListener listeners} for every input that changed between polls. Buttons are compared with a
+ * single XOR of the masks, and axes one value at a time. Nothing is allocated. Not thread safe.
+ * <p>
+ * The set of listeners is copied on write, so it can be changed from any thread while the polling thread dispatches.
+ */
+final class ListenerDispatcher
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ListenerDispatcher.class);
+    private static final ControllerListener[] NONE = new ControllerListener[0];
+    private static final XboxButton[] ANALOGS = Arrays
+            .stream(XboxButton.values())
+            .filter(XboxButton::isAnalog)
+            .toArray(XboxButton[]::new);
+
+    private volatile ControllerListener[] listeners = NONE;
+
+    private int previousButtons;
+    private final double[] previousAxes = new double[ANALOGS.length];
+
+    synchronized void add(ControllerListener listener)
+    {
+        ControllerListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    synchronized void remove(ControllerListener listener)
+    {
+        ControllerListener[] current = listeners;
+        for (int i = 0; i < current.length; i++)
+        {
+            if (current[i] == listener)
+            {
+                ControllerListener[] updated = new ControllerListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, updated.length - i);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    boolean isEmpty()
+    {
+        return listeners.length == 0;
+    }
+
+    /**
+     * Compares the snapshot against the previous one and calls the listeners for every change, buttons first. A
+     * listener that throws is logged, and does not prevent the others from being called.
+     *
+     * @param snapshot - the latest poll.
+     */
+    void dispatch(ControllerSnapshot snapshot)
+    {
+        ControllerListener[] listeners = this.listeners;
+        long nanos = snapshot.timestamp();
+
+        int current = snapshot.buttons();
+        int changed = previousButtons ^ current;
+        previousButtons = current;
+
+        while (changed != 0)
+        {
+            int bit = Integer.numberOfTrailingZeros(changed);
+            boolean pressed = (current & 1 << bit) != 0;
+            for (ControllerListener listener : listeners)
+            {
+                try
+                {
+                    listener.onButton(bit, pressed, nanos);
+                }
+                catch (RuntimeException e)
+                {
+                    LOG.error("Listener failed on button {}.", bit, e);
+                }
+            }
+            changed &= changed - 1;
+        }
+
+        for (int i = 0; i < ANALOGS.length; i++)
+        {
+            double value = snapshot.value(ANALOGS[i]);
+            if (value != previousAxes[i])
+            {
+                previousAxes[i] = value;
+                int ordinal = ANALOGS[i].ordinal();
+                for (ControllerListener listener : listeners)
+                {
+                    try
+                    {
+                        listener.onAxis(ordinal, value, nanos);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        LOG.error("Listener failed on axis {}.", ordinal, e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package purejavaxbox.api;
+
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@link ButtonMapper map based mappers} as a {@link PrimitiveButtonMapper}. Consecutive map based mappers share a
+ * single adapter, so the snapshot is copied into a map and back once for the whole run. Instances are immutable.
+ */
+final class MapAdapter implements PrimitiveButtonMapper
+{
+    private final List<ButtonMapper> mappers;
+
+    MapAdapter(ButtonMapper mapper)
+    {
+        this(Collections.singletonList(mapper));
+    }
+
+    private MapAdapter(List<ButtonMapper> mappers)
+    {
+        this.mappers = mappers;
+    }
+
+    /**
+     * @param next - the next adapter of the run.
+     * @return a new adapter running the mappers of this adapter, then the mappers of the given adapter.
+     */
+    MapAdapter andThen(MapAdapter next)
+    {
+        List<ButtonMapper> all = new ArrayList<>(mappers);
+        all.addAll(next.mappers);
+        return new MapAdapter(Collections.unmodifiableList(all));
+    }
+
+    @Override
+    public void apply(MutableSnapshot snapshot)
+    {
+        Map<XboxButton, Number> buttons = new EnumMap<>(snapshot.asMap());
+        mappers.forEach(mapper -> mapper.accept(buttons));
+
+        long packet = snapshot.packet();
+        long timestamp = snapshot.timestamp();
+        long sequence = snapshot.sequence();
+        snapshot
+                .copyFrom(buttons)
+                .packet(packet)
+                .timestamp(timestamp)
+                .sequence(sequence);
+    }
+}
@@ -0,0 +1,71 @@
+package purejavaxbox.api;
+
+import purejavaxbox.MutableSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The mappers of a {@link ControllerBuilder}, fused into a single pass over a snapshot. Primitive mappers are called
+ * directly, and consecutive map based mappers share one {@link MapAdapter}. Instances are immutable.
+ */
+final class MapperChain
+{
+    static final MapperChain EMPTY = new MapperChain(Collections.emptyList());
+
+    private final PrimitiveButtonMapper[] mappers;
+
+    private MapperChain(List<PrimitiveButtonMapper> mappers)
+    {
+        this.mappers = mappers.toArray(new PrimitiveButtonMapper[0]);
+    }
+
+    /**
+     * @param mappers - the mappers, in order, as returned by {@link PrimitiveButtonMapper#of(ButtonMapper)}.
+     * @return the fused chain.
+     */
+    static MapperChain of(List<PrimitiveButtonMapper> mappers)
+    {
+        List<PrimitiveButtonMapper> fused = new ArrayList<>();
+        for (PrimitiveButtonMapper mapper : mappers)
+        {
+            int last = fused.size() - 1;
+            if (mapper instanceof MapAdapter && last >= 0 && fused.get(last) instanceof MapAdapter)
+            {
+                fused.set(last, ((MapAdapter) fused.get(last)).andThen((MapAdapter) mapper));
+            }
+            else
+            {
+                fused.add(mapper);
+            }
+        }
+        return fused.isEmpty() ? EMPTY : new MapperChain(fused);
+    }
+
+    boolean isEmpty()
+    {
+        return mappers.length == 0;
+    }
+
+    /**
+     * @return the number of steps, after fusing map based mappers.
+     */
+    int size()
+    {
+        return mappers.length;
+    }
+
+    /**
+     * Applies every mapper in order.
+     *
+     * @param snapshot - a connected snapshot, modified in place.
+     */
+    void apply(MutableSnapshot snapshot)
+    {
+        for (PrimitiveButtonMapper mapper : mappers)
+        {
+            mapper.apply(snapshot);
+        }
+    }
+}
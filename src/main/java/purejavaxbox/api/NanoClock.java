@@ -0,0 +1,24 @@
+package purejavaxbox.api;
+
+/**
+ * The source of the timestamps stored in each poll, see {@link ControllerBuilder#clock(NanoClock)}. Timestamps only
+ * need to be monotonic, they are never compared to the wall clock.
+ * <p>
+ * A custom clock makes time based operators deterministic. For example, a clock that advances by a fixed step on every
+ * poll runs the controller in virtual time, regardless of delays on the polling thread.
+ */
+@FunctionalInterface
+public interface NanoClock
+{
+    /**
+     * The default clock, backed by {@link System#nanoTime()}.
+     */
+    NanoClock SYSTEM = System::nanoTime;
+
+    /**
+     * Reads the clock. Called once per poll, from the polling thread.
+     *
+     * @return the current time in nanoseconds.
+     */
+    long nanoTime();
+}
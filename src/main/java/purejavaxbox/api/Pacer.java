@@ -0,0 +1,92 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A running {@link Pacing} strategy. Subclasses decide how to wait for the next deadline, this class runs the ticks and
+ * keeps the deadlines.
+ * <p>
+ * Deadlines are corrected against the previous deadline rather than the end of the previous tick, so the time spent
+ * polling does not accumulate as drift. When a tick runs past the next deadline, the missed deadlines are skipped
+ * instead of being run back to back.
+ */
+abstract class Pacer
+{
+    private final LongUnaryOperator tick;
+    private final PacingRecorder recorder;
+
+    private long deadline;
+    private long previousStart;
+    private boolean started;
+
+    volatile boolean stopped;
+
+    /**
+     * @param tick     - polls once. Receives the time the tick started and returns the period before the next tick,
+     *                 in nanoseconds.
+     * @param recorder - receives the timing of each tick.
+     */
+    Pacer(LongUnaryOperator tick, PacingRecorder recorder)
+    {
+        this.tick = tick;
+        this.recorder = recorder;
+    }
+
+    /**
+     * @return the timing of the ticks run by this pacer alone.
+     */
+    PacingRecorder recorder()
+    {
+        return recorder;
+    }
+
+    /**
+     * Runs a tick, which should be due.
+     *
+     * @return the deadline of the next tick, in nanoseconds.
+     */
+    final long runTick()
+    {
+        long start = System.nanoTime();
+        if (started)
+        {
+            recorder.tick(start - deadline, start - previousStart);
+        }
+        else
+        {
+            started = true;
+            deadline = start;
+            recorder.tick(0L, -1L);
+        }
+        previousStart = start;
+
+        long period = tick.applyAsLong(start);
+        long now = System.nanoTime();
+        deadline += period;
+
+        if (deadline - now < 0L)
+        {
+            recorder.overrun();
+            deadline = now;
+        }
+        return deadline;
+    }
+
+    /**
+     * Starts ticking immediately.
+     */
+    abstract void start();
+
+    /**
+     * Stops ticking, and waits for the tick in progress to complete. Calling this method from a tick only prevents the
+     * next tick.
+     *
+     * @param timeout - the maximum time to wait.
+     * @param unit    - the unit of timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws TimeoutException     if the tick in progress did not complete in time.
+     */
+    abstract void stop(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException;
+}
@@ -0,0 +1,100 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Decides how the polling thread waits between two polls, see {@link ControllerBuilder#pacing(Pacing)}. All strategies
+ * keep deadlines relative to the previous deadline, so the time spent polling does not cause drift, and skip deadlines
+ * that were missed instead of polling back to back.
+ * <p>
+ * Each strategy records the period and lateness of the polls it drives, available through {@link #statistics()}. A
+ * strategy can be shared by several controllers, in which case their polls are recorded together.
+ */
+public final class Pacing
+{
+    private static final long DEFAULT_SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200L);
+
+    private final String name;
+    private final long spinNanos;
+    private final PacingRecorder recorder = new PacingRecorder();
+
+    private Pacing(String name, long spinNanos)
+    {
+        this.name = name;
+        this.spinNanos = spinNanos;
+    }
+
+    /**
+     * Polls from a shared {@link java.util.concurrent.ScheduledExecutorService}. This is the default. It uses the least
+     * resources, but at high rates the delays of the executor show up as jitter of a few hundred microseconds.
+     *
+     * @return a new strategy.
+     */
+    public static Pacing scheduledExecutor()
+    {
+        return new Pacing("scheduledExecutor", -1L);
+    }
+
+    /**
+     * Polls from a dedicated thread, which parks until the next deadline.
+     *
+     * @return a new strategy.
+     */
+    public static Pacing parkNanos()
+    {
+        return new Pacing("parkNanos", 0L);
+    }
+
+    /**
+     * Polls from a dedicated thread, which parks until shortly before the next deadline and then yields until the
+     * deadline is reached, with a window of 200 microseconds. This gives the lowest jitter, at the cost of keeping a
+     * core busy for part of each period.
+     *
+     * @return a new strategy.
+     */
+    public static Pacing hybrid()
+    {
+        return hybrid(DEFAULT_SPIN_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Same as {@link #hybrid()}, with a custom window.
+     *
+     * @param spin - how long before the deadline the thread stops parking and starts yielding.
+     * @param unit - unit of spin.
+     * @return a new strategy.
+     */
+    public static Pacing hybrid(long spin, TimeUnit unit)
+    {
+        return new Pacing("hybrid", Math.max(0L, unit.toNanos(spin)));
+    }
+
+    /**
+     * @return the timing achieved so far by the controllers using this strategy.
+     */
+    public PacingStatistics statistics()
+    {
+        return recorder.snapshot();
+    }
+
+    /**
+     * Creates a pacer running the tick, which must then be started. The pacer records its own timing, which is also
+     * added to the {@link #statistics()} of this strategy.
+     *
+     * @param tick - polls once. Receives the time the tick started and returns the period before the next tick, in
+     *             nanoseconds.
+     * @return the pacer.
+     */
+    Pacer newPacer(LongUnaryOperator tick)
+    {
+        PacingRecorder own = new PacingRecorder(recorder);
+        return spinNanos < 0L ? new ScheduledPacer(tick, own) : new ThreadPacer(tick, own, spinNanos);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
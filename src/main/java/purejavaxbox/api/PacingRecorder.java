@@ -0,0 +1,74 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the timing of the ticks driven by a {@link Pacing}. Recording is lock-free and does not allocate, so it is
+ * safe to call on every tick of the polling thread. Reading is done through {@link #snapshot()} from any thread.
+ * <p>
+ * A recorder may forward everything it records to a parent, which lets a strategy shared by several controllers keep
+ * totals while each controller keeps its own figures.
+ */
+final class PacingRecorder
+{
+    private final PacingRecorder parent;
+
+    private final LatencyHistogram lateness = new LatencyHistogram();
+    private final AtomicLong overruns = new AtomicLong();
+    private final AtomicLong periods = new AtomicLong();
+    private final AtomicLong periodSum = new AtomicLong();
+    private final AtomicLong minPeriod = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxPeriod = new AtomicLong();
+
+    PacingRecorder()
+    {
+        this(null);
+    }
+
+    PacingRecorder(PacingRecorder parent)
+    {
+        this.parent = parent;
+    }
+
+    /**
+     * @param lateness - how late the tick started compared to its deadline, in nanoseconds.
+     * @param period   - the time since the previous tick started, or a negative value for the first tick.
+     */
+    void tick(long lateness, long period)
+    {
+        this.lateness.record(lateness);
+
+        if (period >= 0L)
+        {
+            periods.incrementAndGet();
+            periodSum.addAndGet(period);
+            minPeriod.accumulateAndGet(period, Math::min);
+            maxPeriod.accumulateAndGet(period, Math::max);
+        }
+
+        if (parent != null)
+        {
+            parent.tick(lateness, period);
+        }
+    }
+
+    /**
+     * Records a tick that finished after the deadline of the following tick. The missed deadlines are skipped rather
+     * than run back to back.
+     */
+    void overrun()
+    {
+        overruns.incrementAndGet();
+
+        if (parent != null)
+        {
+            parent.overrun();
+        }
+    }
+
+    PacingStatistics snapshot()
+    {
+        long count = periods.get();
+        return new PacingStatistics(lateness.count(), overruns.get(), count == 0L ? 0L : minPeriod.get(), maxPeriod.get(), count == 0L ? 0.0 : (double) periodSum.get() / count, lateness.buckets());
+    }
+}
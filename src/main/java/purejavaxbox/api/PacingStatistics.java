@@ -0,0 +1,107 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time view of the timing achieved by a {@link Pacing}.
+ * <p>
+ * The period is the time between the start of two consecutive polls. The lateness of a poll is how long after its
+ * deadline it started, and its distribution is the jitter of the strategy. Lateness is kept in power of two buckets, so
+ * percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public final class PacingStatistics
+{
+    private final long ticks;
+    private final long overruns;
+    private final long minPeriod;
+    private final long maxPeriod;
+    private final double meanPeriod;
+    private final long[] lateness;
+
+    PacingStatistics(long ticks, long overruns, long minPeriod, long maxPeriod, double meanPeriod, long[] lateness)
+    {
+        this.ticks = ticks;
+        this.overruns = overruns;
+        this.minPeriod = minPeriod;
+        this.maxPeriod = maxPeriod;
+        this.meanPeriod = meanPeriod;
+        this.lateness = lateness;
+    }
+
+    /**
+     * @return the number of polls.
+     */
+    public long ticks()
+    {
+        return ticks;
+    }
+
+    /**
+     * @return the number of polls that took longer than the period, causing at least one deadline to be skipped.
+     */
+    public long overruns()
+    {
+        return overruns;
+    }
+
+    /**
+     * @return the shortest period between two polls, in nanoseconds.
+     */
+    public long minPeriodNanos()
+    {
+        return minPeriod;
+    }
+
+    /**
+     * @return the longest period between two polls, in nanoseconds.
+     */
+    public long maxPeriodNanos()
+    {
+        return maxPeriod;
+    }
+
+    /**
+     * @return the average period between two polls, in nanoseconds.
+     */
+    public double meanPeriodNanos()
+    {
+        return meanPeriod;
+    }
+
+    /**
+     * The lateness histogram. Index 0 counts the polls that started on time, index {@code k} counts the polls that
+     * started between {@code 2^(k-1)} and {@code 2^k} nanoseconds late.
+     *
+     * @return a copy of the histogram.
+     */
+    public long[] latenessHistogram()
+    {
+        return lateness.clone();
+    }
+
+    /**
+     * Estimates a percentile of the lateness.
+     *
+     * @param percentile - between 0.0 and 100.0.
+     * @return the upper bound of the bucket containing the percentile, in nanoseconds. 0 if no polls were recorded.
+     */
+    public long latenessPercentile(double percentile)
+    {
+        return LatencyHistogram.percentile(lateness, percentile);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PacingStatistics{ticks=%d, overruns=%d, period=%.1f us [%.1f, %.1f], " +
+                                     "lateness p50=%d us, p99=%d us, p99.9=%d us}",
+                             ticks,
+                             overruns,
+                             meanPeriod / 1_000.0,
+                             minPeriod / 1_000.0,
+                             maxPeriod / 1_000.0,
+                             TimeUnit.NANOSECONDS.toMicros(latenessPercentile(50.0)),
+                             TimeUnit.NANOSECONDS.toMicros(latenessPercentile(99.0)),
+                             TimeUnit.NANOSECONDS.toMicros(latenessPercentile(99.9)));
+    }
+}
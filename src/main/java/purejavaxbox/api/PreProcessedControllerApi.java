@@ -1,49 +1,67 @@
 package purejavaxbox.api;
 
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 
-import java.util.Collections;
-import java.util.EnumMap;
-import java.util.List;
 import java.util.Map;
 
 /**
- * This class is used with {@link ControllerBuilder} to provide support for manipulating controller input before it
- * reaches the target {@link ControllerApi}.
+ * This class is used with {@link ControllerBuilder} to replay the latest controller input to new subscribers of the
+ * target {@link ControllerApi}. Mappers are fused into the poll step of the player, so they have already been applied
+ * to everything this class publishes.
  */
 final class PreProcessedControllerApi implements ControllerApi
 {
     private ControllerApi parent;
-    private Flux<Map<XboxButton, Number>> mappedFlux;
+    private Flux<ControllerSnapshot> mappedFlux;
+    private Flux<Map<XboxButton, Number>> mapFlux;
 
-    public PreProcessedControllerApi(ControllerApi parent, List<ButtonMapper> mappers)
+    public PreProcessedControllerApi(ControllerApi parent)
     {
         this.parent = parent;
-        Flux<Map<XboxButton, Number>> baseFlux = parent.get();
+        this.mappedFlux = parent
+                .snapshots()
+                .cache(1);
+        this.mapFlux = mappedFlux.map(ControllerSnapshot::asMap);
+    }
 
-        if (!mappers.isEmpty())
-        {
-            mappedFlux = baseFlux
-                    .filter(m -> !m.isEmpty())
-                    .map(EnumMap::new);
-            mappers.forEach(mapper -> mappedFlux = mappedFlux.doOnNext(mapper));
-            mappedFlux = mappedFlux.map(Collections::unmodifiableMap);
+    @Override
+    public Flux<Map<XboxButton, Number>> get()
+    {
+        return mapFlux;
+    }
 
-            mappedFlux = mappedFlux.mergeWith(baseFlux.filter(Map::isEmpty));
-        }
-        else
-        {
-            this.mappedFlux = baseFlux;
-        }
+    @Override
+    public Flux<ControllerSnapshot> snapshots()
+    {
+        return mappedFlux;
+    }
 
-        this.mappedFlux = mappedFlux.cache(1);
+    @Override
+    public Flux<ButtonEvent> buttonEvents()
+    {
+        return parent.buttonEvents();
     }
 
     @Override
-    public Flux<Map<XboxButton, Number>> get()
+    public Disposable addListener(ControllerListener listener)
     {
-        return mappedFlux;
+        return parent.addListener(listener);
+    }
+
+    @Override
+    public boolean sample(MutableSnapshot into)
+    {
+        return parent.sample(into);
+    }
+
+    @Override
+    public ControllerMetrics metrics()
+    {
+        return parent.metrics();
     }
 
     @Override
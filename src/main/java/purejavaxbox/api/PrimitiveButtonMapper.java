@@ -0,0 +1,37 @@
+package purejavaxbox.api;
+
+import purejavaxbox.MutableSnapshot;
+
+/**
+ * A {@link ButtonMapper} that manipulates the primitive values of a snapshot in place, instead of a map of boxed values.
+ * All mappers added to a {@link ControllerBuilder} are fused into a single pass that runs on the polling thread, right
+ * after each poll. A chain of primitive mappers does not box or allocate.
+ * <p>
+ * The dead zones built by {@link StickDeadZones} and {@link TriggerDeadZones} are primitive mappers. Other {@link
+ * ButtonMapper button mappers} are adapted automatically, see {@link #of(ButtonMapper)}.
+ *
+ * @see ControllerBuilder#primitiveMapper(PrimitiveButtonMapper)
+ */
+@FunctionalInterface
+public interface PrimitiveButtonMapper
+{
+    /**
+     * Adapts a mapper. Mappers that are already primitive are returned as is. Others are applied to a map copied from
+     * the snapshot, and the result is copied back.
+     *
+     * @param mapper - the mapper.
+     * @return the primitive mapper.
+     */
+    static PrimitiveButtonMapper of(ButtonMapper mapper)
+    {
+        return mapper instanceof PrimitiveButtonMapper ? (PrimitiveButtonMapper) mapper : new MapAdapter(mapper);
+    }
+
+    /**
+     * Manipulates the snapshot in place. Only called for connected controllers. The timestamp and sequence number must
+     * be left untouched.
+     *
+     * @param snapshot - the poll of the controller. Previous mappers may have been applied.
+     */
+    void apply(MutableSnapshot snapshot);
+}
@@ -0,0 +1,398 @@
+package purejavaxbox.api;
+
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Builder-style class that creates {@link ButtonMapper mappers} applying a response curve, along with dead zones, to a
+ * trigger or a single stick axis.
+ * <p>
+ * Triggers report one of 256 raw values, and stick axes one of 65536. When built, the dead zones and the curve are
+ * evaluated once for every raw value, so the mapper only reads a table: 256 doubles for a trigger, 65536 floats for a
+ * stick axis. Values are rounded to the nearest raw value before the lookup, so curves should be added before other
+ * mappers. The mappers are also {@link PrimitiveButtonMapper primitive mappers}.
+ * <p>
+ * A curve maps the input, rescaled from the dead zones to the range 0.0 to 1.0, to an output in the same range. Stick
+ * axes keep their sign, so the curve applies to the distance from the center.
+ */
+public final class ResponseCurves
+{
+    private static final int TRIGGER_VALUES = 256;
+    private static final int STICK_VALUES = 65536;
+    private static final double TRIGGER_MAX = TRIGGER_VALUES - 1;
+    private static final double STICK_MAX = Short.MAX_VALUE;
+
+    private XboxButton key = XboxButton.LEFT_TRIGGER;
+    private int innerDZ = 0;
+    private int outerDZ = -1;
+    private DoubleUnaryOperator curve = x -> x;
+
+    /**
+     * Sets the target to the left trigger. This is the default target.
+     *
+     * @return this.
+     */
+    public ResponseCurves leftTrigger()
+    {
+        return axis(XboxButton.LEFT_TRIGGER);
+    }
+
+    /**
+     * Sets the target to the right trigger.
+     *
+     * @return this.
+     */
+    public ResponseCurves rightTrigger()
+    {
+        return axis(XboxButton.RIGHT_TRIGGER);
+    }
+
+    /**
+     * Sets the target to any trigger or stick axis.
+     *
+     * @param axis - an {@link XboxButton#isAnalog() analog} component.
+     * @return this.
+     * @throws IllegalArgumentException if the component is not analog.
+     */
+    public ResponseCurves axis(XboxButton axis)
+    {
+        if (!axis.isAnalog())
+        {
+            throw new IllegalArgumentException(axis + " is not analog.");
+        }
+        this.key = axis;
+        return this;
+    }
+
+    /**
+     * Sets the inner dead zone, in raw units: 0 to 255 for triggers, 0 to 32767 for sticks. Inputs below it produce
+     * 0.0.
+     *
+     * @param deadZone - the dead zone.
+     * @return this.
+     */
+    public ResponseCurves innerDeadZone(int deadZone)
+    {
+        this.innerDZ = Math.max(0, deadZone);
+        return this;
+    }
+
+    /**
+     * Sets the outer dead zone, in raw units: 0 to 255 for triggers, 0 to 32767 for sticks. Inputs above it produce
+     * 1.0. Defaults to the maximum raw value.
+     *
+     * @param deadZone - the dead zone.
+     * @return this.
+     */
+    public ResponseCurves outerDeadZone(int deadZone)
+    {
+        this.outerDZ = deadZone;
+        return this;
+    }
+
+    /**
+     * The output is equal to the input. This is the default curve.
+     *
+     * @return this.
+     */
+    public ResponseCurves linear()
+    {
+        return curve(x -> x);
+    }
+
+    /**
+     * An exponential curve, {@code (e^(kx) - 1) / (e^k - 1)}. Positive values of k give more precision near the center,
+     * negative values near the edge.
+     *
+     * @param k - the steepness. 0 is linear.
+     * @return this.
+     */
+    public ResponseCurves exponential(double k)
+    {
+        if (k == 0.0)
+        {
+            return linear();
+        }
+
+        double scale = Math.expm1(k);
+        return curve(x -> Math.expm1(k * x) / scale);
+    }
+
+    /**
+     * A logistic S-curve through (0, 0), (0.5, 0.5) and (1, 1). The output changes slowly near both ends and quickly in
+     * the middle.
+     *
+     * @param k - the steepness, greater than 0. Larger values give a sharper S.
+     * @return this.
+     */
+    public ResponseCurves sCurve(double k)
+    {
+        if (k <= 0.0)
+        {
+            throw new IllegalArgumentException("The steepness must be greater than 0: " + k);
+        }
+
+        double low = logistic(-k / 2.0);
+        double range = logistic(k / 2.0) - low;
+        return curve(x -> (logistic(k * (x - 0.5)) - low) / range);
+    }
+
+    /**
+     * A curve made of straight lines between control points.
+     *
+     * @param x - the inputs of the control points, in increasing order.
+     * @param y - the outputs of the control points.
+     * @return this.
+     * @throws IllegalArgumentException if there are fewer than 2 points, or the inputs are not increasing.
+     */
+    public ResponseCurves piecewise(double[] x, double[] y)
+    {
+        checkPoints(x, y);
+        double[] xs = x.clone();
+        double[] ys = y.clone();
+
+        return curve(in ->
+        {
+            int i = segment(xs, in);
+            double t = (in - xs[i]) / (xs[i + 1] - xs[i]);
+            return ys[i] + (ys[i + 1] - ys[i]) * t;
+        });
+    }
+
+    /**
+     * A smooth curve through control points. The spline is monotone cubic, so it never overshoots between points that
+     * are increasing.
+     *
+     * @param x - the inputs of the control points, in increasing order.
+     * @param y - the outputs of the control points.
+     * @return this.
+     * @throws IllegalArgumentException if there are fewer than 2 points, or the inputs are not increasing.
+     */
+    public ResponseCurves spline(double[] x, double[] y)
+    {
+        checkPoints(x, y);
+        double[] xs = x.clone();
+        double[] ys = y.clone();
+        double[] tangents = monotoneTangents(xs, ys);
+
+        return curve(in ->
+        {
+            int i = segment(xs, in);
+            double h = xs[i + 1] - xs[i];
+            double t = Math.max(0.0, Math.min(1.0, (in - xs[i]) / h));
+            double t2 = t * t;
+            double t3 = t2 * t;
+
+            return (2 * t3 - 3 * t2 + 1) * ys[i] + (t3 - 2 * t2 + t) * h * tangents[i] + (-2 * t3 + 3 * t2) * ys[i + 1] + (t3 - t2) * h * tangents[i + 1];
+        });
+    }
+
+    /**
+     * Any curve. It is evaluated once for every raw value when the mapper is built.
+     *
+     * @param curve - maps an input between 0.0 and 1.0 to an output.
+     * @return this.
+     */
+    public ResponseCurves curve(DoubleUnaryOperator curve)
+    {
+        this.curve = curve;
+        return this;
+    }
+
+    /**
+     * Evaluates the dead zones and the curve for every raw value of the target.
+     *
+     * @return the mapper. It is also a {@link PrimitiveButtonMapper}.
+     */
+    public ButtonMapper build()
+    {
+        boolean trigger = key == XboxButton.LEFT_TRIGGER || key == XboxButton.RIGHT_TRIGGER;
+        double max = trigger ? TRIGGER_MAX : STICK_MAX;
+        double inner = Math.min(innerDZ, max) / max;
+        double outer = outerDZ < 0 ? 1.0 : Math.min(outerDZ, max) / max;
+
+        if (trigger)
+        {
+            double[] table = new double[TRIGGER_VALUES];
+            for (int raw = 0; raw < TRIGGER_VALUES; raw++)
+            {
+                table[raw] = evaluate(raw / TRIGGER_MAX, inner, outer);
+            }
+            return new TriggerCurve(key, table);
+        }
+
+        float[] table = new float[STICK_VALUES];
+        for (int raw = Short.MIN_VALUE; raw <= Short.MAX_VALUE; raw++)
+        {
+            double value = raw / STICK_MAX;
+            table[raw - Short.MIN_VALUE] = (float) Math.copySign(evaluate(Math.min(1.0, Math.abs(value)), inner, outer), value);
+        }
+        return new StickCurve(key, table);
+    }
+
+    private double evaluate(double value, double inner, double outer)
+    {
+        if (value < inner || value == 0.0)
+        {
+            return 0.0;
+        }
+        if (value >= outer)
+        {
+            return clamp(curve.applyAsDouble(1.0));
+        }
+        return clamp(curve.applyAsDouble((value - inner) / (outer - inner)));
+    }
+
+    private static double clamp(double value)
+    {
+        return Double.isNaN(value) ? 0.0 : Math.max(0.0, Math.min(1.0, value));
+    }
+
+    private static double logistic(double x)
+    {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    private static void checkPoints(double[] x, double[] y)
+    {
+        if (x.length < 2 || x.length != y.length)
+        {
+            throw new IllegalArgumentException("Expected at least 2 points with an input and an output each.");
+        }
+        for (int i = 1; i < x.length; i++)
+        {
+            if (!(x[i] > x[i - 1]))
+            {
+                throw new IllegalArgumentException("Inputs must be increasing: " + x[i - 1] + ", " + x[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the index of the segment containing the input. Inputs outside of the points use the first or last segment.
+     */
+    private static int segment(double[] x, double in)
+    {
+        int i = 0;
+        while (i < x.length - 2 && in > x[i + 1])
+        {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Tangents of a monotone cubic Hermite spline, using the Fritsch-Carlson method.
+     */
+    private static double[] monotoneTangents(double[] x, double[] y)
+    {
+        int n = x.length;
+        double[] slopes = new double[n - 1];
+        for (int i = 0; i < n - 1; i++)
+        {
+            slopes[i] = (y[i + 1] - y[i]) / (x[i + 1] - x[i]);
+        }
+
+        double[] tangents = new double[n];
+        tangents[0] = slopes[0];
+        tangents[n - 1] = slopes[n - 2];
+        for (int i = 1; i < n - 1; i++)
+        {
+            tangents[i] = slopes[i - 1] * slopes[i] <= 0.0 ? 0.0 : (slopes[i - 1] + slopes[i]) / 2.0;
+        }
+
+        for (int i = 0; i < n - 1; i++)
+        {
+            if (slopes[i] == 0.0)
+            {
+                tangents[i] = 0.0;
+                tangents[i + 1] = 0.0;
+                continue;
+            }
+
+            double a = tangents[i] / slopes[i];
+            double b = tangents[i + 1] / slopes[i];
+            double norm = a * a + b * b;
+            if (norm > 9.0)
+            {
+                double tau = 3.0 / Math.sqrt(norm);
+                tangents[i] = tau * a * slopes[i];
+                tangents[i + 1] = tau * b * slopes[i];
+            }
+        }
+        return tangents;
+    }
+
+    /**
+     * Reads a trigger curve from a table indexed by the raw unsigned byte.
+     */
+    private static final class TriggerCurve implements ButtonMapper, PrimitiveButtonMapper
+    {
+        private final XboxButton key;
+        private final double[] table;
+
+        TriggerCurve(XboxButton key, double[] table)
+        {
+            this.key = key;
+            this.table = table;
+        }
+
+        double map(double value)
+        {
+            int raw = (int) (value * TRIGGER_MAX + 0.5);
+            return table[Math.max(0, Math.min(TRIGGER_VALUES - 1, raw))];
+        }
+
+        @Override
+        public void apply(MutableSnapshot snapshot)
+        {
+            snapshot.value(key, map(snapshot.value(key)));
+        }
+
+        @Override
+        public void modifyMapInPlace(Map<XboxButton, Number> buttons)
+        {
+            buttons.put(key, map(buttons
+                                         .get(key)
+                                         .doubleValue()));
+        }
+    }
+
+    /**
+     * Reads a stick axis curve from a table indexed by the raw signed short.
+     */
+    private static final class StickCurve implements ButtonMapper, PrimitiveButtonMapper
+    {
+        private final XboxButton key;
+        private final float[] table;
+
+        StickCurve(XboxButton key, float[] table)
+        {
+            this.key = key;
+            this.table = table;
+        }
+
+        double map(double value)
+        {
+            int raw = (int) Math.floor(value * STICK_MAX + 0.5) - Short.MIN_VALUE;
+            return table[Math.max(0, Math.min(STICK_VALUES - 1, raw))];
+        }
+
+        @Override
+        public void apply(MutableSnapshot snapshot)
+        {
+            snapshot.value(key, map(snapshot.value(key)));
+        }
+
+        @Override
+        public void modifyMapInPlace(Map<XboxButton, Number> buttons)
+        {
+            buttons.put(key, map(buttons
+                                         .get(key)
+                                         .doubleValue()));
+        }
+    }
+}
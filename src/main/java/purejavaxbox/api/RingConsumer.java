@@ -0,0 +1,114 @@
+package purejavaxbox.api;
+
+import purejavaxbox.MutableSnapshot;
+
+/**
+ * Reads the snapshots of a {@link ControllerRing} in order, with its own cursor. Objects of this type are not thread
+ * safe, and are meant to be owned by a single consuming thread, such as a game loop. Reading never allocates.
+ */
+public final class RingConsumer
+{
+    private final ControllerRing ring;
+    private final WaitStrategy strategy;
+    private long next;
+    private long lost;
+
+    RingConsumer(ControllerRing ring, WaitStrategy strategy, long next)
+    {
+        this.ring = ring;
+        this.strategy = strategy;
+        this.next = next;
+    }
+
+    /**
+     * Copies the next snapshot, if one was published. Never waits, except in a ring with a capacity of 1 that was
+     * overrun, where it spins until the publisher finishes writing the only slot.
+     *
+     * @param into - receives the snapshot.
+     * @return true if a snapshot was copied, false if this consumer is up to date.
+     */
+    public boolean poll(MutableSnapshot into)
+    {
+        long available = ring.cursor();
+        if (available < next)
+        {
+            return false;
+        }
+
+        skipTo(available - ring.capacity() + 1L);
+        while (!ring.read(next, into))
+        {
+            skipTo(ring.claimed() - ring.capacity() + 1L);
+        }
+        next++;
+        return true;
+    }
+
+    /**
+     * Copies the next snapshot, waiting with the {@link WaitStrategy} of this consumer until one is published.
+     *
+     * @param into - receives the snapshot.
+     * @return true if a snapshot was copied, false if the ring was disposed.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public boolean take(MutableSnapshot into) throws InterruptedException
+    {
+        int attempts = 0;
+        while (!poll(into))
+        {
+            if (ring.isDisposed())
+            {
+                return false;
+            }
+            if (Thread.interrupted())
+            {
+                throw new InterruptedException();
+            }
+            strategy.idle(attempts++);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the latest snapshot, skipping any older ones. Never waits.
+     *
+     * @param into - receives the snapshot.
+     * @return true if a snapshot was copied, false if this consumer is up to date.
+     */
+    public boolean latest(MutableSnapshot into)
+    {
+        long available = ring.cursor();
+        if (available < next)
+        {
+            return false;
+        }
+
+        next = available;
+        return poll(into);
+    }
+
+    /**
+     * @return the sequence of the next snapshot this consumer reads.
+     */
+    public long sequence()
+    {
+        return next;
+    }
+
+    /**
+     * @return the number of snapshots this consumer lost because they were overwritten before being read.
+     */
+    public long lost()
+    {
+        return lost;
+    }
+
+    private void skipTo(long oldest)
+    {
+        if (next < oldest)
+        {
+            lost += oldest - next;
+            next = oldest;
+        }
+    }
+}
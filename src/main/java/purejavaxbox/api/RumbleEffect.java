@@ -0,0 +1,161 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable description of a rumble, played by a {@link RumbleScheduler}. An effect starts from a {@link
+ * #constant(double, double) constant} or {@link #ramp(double, double, double, double, long, TimeUnit) ramping} pair of
+ * motor speeds, which can then be gated into a {@link #pulse(long, long, TimeUnit) pulse} pattern and faded by a {@link
+ * #decay(long, TimeUnit) decay} envelope. Each method returns a new effect.
+ * <p>
+ * Speeds are between 0.0 and 1.0, as in {@link purejavaxbox.raw.XboxController#rumble(double, double)}. Time is measured
+ * with the timestamps of the polls, starting at the first poll after the effect is played.
+ */
+public final class RumbleEffect
+{
+    private final double startLow;
+    private final double startHigh;
+    private final double endLow;
+    private final double endHigh;
+    private final long rampNanos;
+    private final long onNanos;
+    private final long offNanos;
+    private final long halfLifeNanos;
+    private final long durationNanos;
+    private final int priority;
+
+    private RumbleEffect(double startLow, double startHigh, double endLow, double endHigh, long rampNanos, long onNanos, long offNanos, long halfLifeNanos, long durationNanos, int priority)
+    {
+        this.startLow = clip(startLow);
+        this.startHigh = clip(startHigh);
+        this.endLow = clip(endLow);
+        this.endHigh = clip(endHigh);
+        this.rampNanos = rampNanos;
+        this.onNanos = onNanos;
+        this.offNanos = offNanos;
+        this.halfLifeNanos = halfLifeNanos;
+        this.durationNanos = durationNanos;
+        this.priority = priority;
+    }
+
+    /**
+     * Rumbles at the same speeds until stopped.
+     *
+     * @param lowFrequency  - the speed of the low frequency motor.
+     * @param highFrequency - the speed of the high frequency motor.
+     * @return the effect.
+     */
+    public static RumbleEffect constant(double lowFrequency, double highFrequency)
+    {
+        return new RumbleEffect(lowFrequency, highFrequency, lowFrequency, highFrequency, 0L, 0L, 0L, 0L, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Moves linearly from the start speeds to the end speeds, then keeps the end speeds until stopped.
+     *
+     * @param startLow  - the start speed of the low frequency motor.
+     * @param startHigh - the start speed of the high frequency motor.
+     * @param endLow    - the end speed of the low frequency motor.
+     * @param endHigh   - the end speed of the high frequency motor.
+     * @param time      - the length of the ramp.
+     * @param unit      - unit of time.
+     * @return the effect.
+     */
+    public static RumbleEffect ramp(double startLow, double startHigh, double endLow, double endHigh, long time, TimeUnit unit)
+    {
+        return new RumbleEffect(startLow, startHigh, endLow, endHigh, Math.max(0L, unit.toNanos(time)), 0L, 0L, 0L, Long.MAX_VALUE, 0);
+    }
+
+    /**
+     * Alternates between rumbling and resting, starting with rumbling.
+     *
+     * @param on   - how long the motors run in each pulse.
+     * @param off  - how long the motors rest after each pulse.
+     * @param unit - unit of time.
+     * @return a copy of this effect, pulsed.
+     */
+    public RumbleEffect pulse(long on, long off, TimeUnit unit)
+    {
+        return new RumbleEffect(startLow, startHigh, endLow, endHigh, rampNanos, Math.max(1L, unit.toNanos(on)), Math.max(0L, unit.toNanos(off)), halfLifeNanos, durationNanos, priority);
+    }
+
+    /**
+     * Fades the speeds exponentially, halving them every half-life.
+     *
+     * @param halfLife - the time it takes the speeds to halve.
+     * @param unit     - unit of time.
+     * @return a copy of this effect, decaying.
+     */
+    public RumbleEffect decay(long halfLife, TimeUnit unit)
+    {
+        return new RumbleEffect(startLow, startHigh, endLow, endHigh, rampNanos, onNanos, offNanos, Math.max(1L, unit.toNanos(halfLife)), durationNanos, priority);
+    }
+
+    /**
+     * Stops the effect after the given time. By default, effects play until they are stopped.
+     *
+     * @param time - how long the effect plays.
+     * @param unit - unit of time.
+     * @return a copy of this effect, with a duration.
+     */
+    public RumbleEffect duration(long time, TimeUnit unit)
+    {
+        return new RumbleEffect(startLow, startHigh, endLow, endHigh, rampNanos, onNanos, offNanos, halfLifeNanos, Math.max(0L, unit.toNanos(time)), priority);
+    }
+
+    /**
+     * While an effect plays, effects of a lower priority are silenced. Effects of the same priority are mixed. Defaults
+     * to 0.
+     *
+     * @param priority - the priority.
+     * @return a copy of this effect, with a priority.
+     */
+    public RumbleEffect priority(int priority)
+    {
+        return new RumbleEffect(startLow, startHigh, endLow, endHigh, rampNanos, onNanos, offNanos, halfLifeNanos, durationNanos, priority);
+    }
+
+    int priority()
+    {
+        return priority;
+    }
+
+    /**
+     * @param elapsed - the time since the effect started.
+     * @return true if the effect is over.
+     */
+    boolean isExpired(long elapsed)
+    {
+        return elapsed >= durationNanos;
+    }
+
+    double low(long elapsed)
+    {
+        return level(startLow, endLow, elapsed);
+    }
+
+    double high(long elapsed)
+    {
+        return level(startHigh, endHigh, elapsed);
+    }
+
+    private double level(double start, double end, long elapsed)
+    {
+        if (onNanos > 0L && elapsed % (onNanos + offNanos) >= onNanos)
+        {
+            return 0.0;
+        }
+
+        double value = elapsed >= rampNanos ? end : start + (end - start) * elapsed / rampNanos;
+        if (halfLifeNanos > 0L)
+        {
+            value *= Math.pow(0.5, (double) elapsed / halfLifeNanos);
+        }
+        return value;
+    }
+
+    private static double clip(double speed)
+    {
+        return Math.max(0.0, Math.min(1.0, speed));
+    }
+}
@@ -0,0 +1,203 @@
+package purejavaxbox.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Plays {@link RumbleEffect rumble effects} on the controller of a {@link ControllerBuilder#rumble(RumbleScheduler)
+ * player}, from the polling thread. Effects can be played and stopped from any thread.
+ * <p>
+ * On every poll, the scheduler computes the speed of each motor from the effects that are playing: only the effects of
+ * the highest priority are heard, and they are mixed by keeping the fastest speed of each motor. The speeds are rounded
+ * to the resolution, and the controller is only written to when a rounded speed changes, so effects that do not change
+ * do not cost a driver call. When the player is disposed, the motors are stopped.
+ */
+public final class RumbleScheduler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RumbleScheduler.class);
+
+    private final Queue<Playing> played = new ConcurrentLinkedQueue<>();
+    private final List<Playing> playing = new ArrayList<>();
+    private int resolution = 256;
+
+    private XboxController written;
+    private int lowLevel;
+    private int highLevel;
+
+    /**
+     * The number of steps between stopped and full speed. Changes smaller than a step are not written to the
+     * controller. Defaults to 256.
+     *
+     * @param steps - the resolution. Ignored if not positive.
+     * @return this.
+     */
+    public RumbleScheduler resolution(int steps)
+    {
+        if (steps > 0)
+        {
+            this.resolution = steps;
+        }
+        return this;
+    }
+
+    /**
+     * Starts an effect on the next poll.
+     *
+     * @param effect - the effect.
+     * @return the playing effect. Dispose it to stop the effect early.
+     */
+    public Disposable play(RumbleEffect effect)
+    {
+        Playing play = new Playing(effect);
+        played.add(play);
+        return play;
+    }
+
+    /**
+     * Stops every effect that was played before this call, on the next poll.
+     */
+    public void stopAll()
+    {
+        played.add(new Playing(null));
+    }
+
+    /**
+     * Computes the speeds for this poll, and writes them if they changed. Called from the polling thread.
+     *
+     * @param now        - the timestamp of the poll.
+     * @param controller - the connected controller, or null if none is connected.
+     */
+    void tick(long now, XboxController controller)
+    {
+        drain(now);
+
+        int priority = Integer.MIN_VALUE;
+        for (int i = playing.size() - 1; i >= 0; i--)
+        {
+            Playing play = playing.get(i);
+            if (play.isDisposed() || play.effect.isExpired(now - play.start))
+            {
+                playing.set(i, playing.get(playing.size() - 1));
+                playing.remove(playing.size() - 1);
+            }
+            else
+            {
+                priority = Math.max(priority, play.effect.priority());
+            }
+        }
+
+        double low = 0.0;
+        double high = 0.0;
+        for (int i = 0; i < playing.size(); i++)
+        {
+            Playing play = playing.get(i);
+            if (play.effect.priority() == priority)
+            {
+                long elapsed = now - play.start;
+                low = Math.max(low, play.effect.low(elapsed));
+                high = Math.max(high, play.effect.high(elapsed));
+            }
+        }
+
+        write(controller, (int) Math.round(low * resolution), (int) Math.round(high * resolution));
+    }
+
+    /**
+     * Stops the motors of the last controller written to. Called once the player stopped polling.
+     */
+    void release()
+    {
+        playing.clear();
+        played.clear();
+        if (written != null && (lowLevel != 0 || highLevel != 0))
+        {
+            send(written, 0, 0);
+        }
+        written = null;
+    }
+
+    private void drain(long now)
+    {
+        Playing play;
+        while ((play = played.poll()) != null)
+        {
+            if (play.effect == null)
+            {
+                playing.clear();
+            }
+            else
+            {
+                play.start = now;
+                playing.add(play);
+            }
+        }
+    }
+
+    /**
+     * Writes the levels if they changed. When another controller becomes active, the previous one is stopped and the
+     * new one is assumed to be stopped.
+     */
+    private void write(XboxController controller, int low, int high)
+    {
+        if (controller != written)
+        {
+            if (written != null && controller != null && (lowLevel != 0 || highLevel != 0))
+            {
+                send(written, 0, 0);
+            }
+            written = controller;
+            lowLevel = 0;
+            highLevel = 0;
+        }
+
+        if (controller != null && (low != lowLevel || high != highLevel))
+        {
+            send(controller, low, high);
+            lowLevel = low;
+            highLevel = high;
+        }
+    }
+
+    private void send(XboxController controller, int low, int high)
+    {
+        try
+        {
+            controller.rumble((double) low / resolution, (double) high / resolution);
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("Failed to rumble the controller.", e);
+        }
+    }
+
+    private static final class Playing implements Disposable
+    {
+        private final RumbleEffect effect;
+        private volatile boolean disposed;
+        private long start;
+
+        Playing(RumbleEffect effect)
+        {
+            this.effect = effect;
+        }
+
+        @Override
+        public void dispose()
+        {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed()
+        {
+            return disposed;
+        }
+    }
+}
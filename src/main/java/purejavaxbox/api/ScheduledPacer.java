@@ -0,0 +1,69 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.*;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Paces ticks with a {@link ScheduledExecutorService}. Each tick schedules the next one. Every pacer of this type
+ * shares a single daemon thread called controller-polling-thread.
+ */
+final class ScheduledPacer extends Pacer
+{
+    private static final ScheduledExecutorService SERVICE = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable);
+        thread.setName("controller-polling-thread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Runnable run = this::run;
+    private volatile ScheduledFuture<?> task;
+
+    ScheduledPacer(LongUnaryOperator tick, PacingRecorder recorder)
+    {
+        super(tick, recorder);
+    }
+
+    @Override
+    void start()
+    {
+        task = SERVICE.schedule(run, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    private void run()
+    {
+        long deadline = runTick();
+
+        if (!stopped)
+        {
+            ScheduledFuture<?> next = SERVICE.schedule(run, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            task = next;
+
+            if (stopped)
+            {
+                next.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    void stop(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
+    {
+        stopped = true;
+        task.cancel(false);
+
+        try
+        {
+            SERVICE
+                    .submit(() ->
+                    {
+                    })
+                    .get(timeout, unit);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
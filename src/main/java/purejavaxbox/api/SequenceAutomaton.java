@@ -0,0 +1,224 @@
+package purejavaxbox.api;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * The compiled form of a {@link SequenceRecognizer}. All patterns are merged into a single Aho-Corasick automaton whose
+ * transitions are expanded into a table, so advancing it costs one table read no matter how many patterns are
+ * registered. Time windows are checked with a ring of the timestamps of the most recent steps.
+ * <p>
+ * The automaton itself is immutable. The state of a single stream is kept in a {@link Matcher}.
+ */
+final class SequenceAutomaton
+{
+    private final int alphabet;
+    private final int[] symbols;
+    private final int width;
+    private final int[] transitions;
+
+    private final int[][] outputs;
+    private final int[] ids;
+    private final int[] lengths;
+    private final long[] windows;
+    private final int longest;
+
+    SequenceAutomaton(List<int[]> patterns, int[] ids, long[] windows)
+    {
+        this.ids = ids;
+        this.windows = windows;
+        this.lengths = new int[patterns.size()];
+
+        int alphabetMask = 0;
+        int longestPattern = 1;
+        SortedSet<Integer> distinct = new TreeSet<>();
+
+        for (int p = 0; p < patterns.size(); p++)
+        {
+            int[] steps = patterns.get(p);
+            lengths[p] = steps.length;
+            longestPattern = Math.max(longestPattern, steps.length);
+
+            for (int step : steps)
+            {
+                alphabetMask |= step;
+                distinct.add(step);
+            }
+        }
+
+        this.alphabet = alphabetMask;
+        this.longest = longestPattern;
+        this.symbols = distinct
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.width = symbols.length + 1;
+
+        // Build the trie.
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> matches = new ArrayList<>();
+        children.add(newNode());
+        matches.add(new ArrayList<>());
+
+        for (int p = 0; p < patterns.size(); p++)
+        {
+            int node = 0;
+            for (int step : patterns.get(p))
+            {
+                int symbol = symbolOf(step);
+                if (children.get(node)[symbol] < 0)
+                {
+                    children.get(node)[symbol] = children.size();
+                    children.add(newNode());
+                    matches.add(new ArrayList<>());
+                }
+                node = children.get(node)[symbol];
+            }
+            matches
+                    .get(node)
+                    .add(p);
+        }
+
+        // Compute failure links breadth first, and expand them into a full transition table.
+        int nodes = children.size();
+        int[] fail = new int[nodes];
+        int[] table = new int[nodes * width];
+        Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int symbol = 0; symbol < width; symbol++)
+        {
+            int child = children.get(0)[symbol];
+            table[symbol] = Math.max(child, 0);
+            if (child > 0)
+            {
+                queue.add(child);
+            }
+        }
+
+        while (!queue.isEmpty())
+        {
+            int node = queue.poll();
+            matches
+                    .get(node)
+                    .addAll(matches.get(fail[node]));
+
+            for (int symbol = 0; symbol < width; symbol++)
+            {
+                int child = children.get(node)[symbol];
+                if (child < 0)
+                {
+                    table[node * width + symbol] = table[fail[node] * width + symbol];
+                }
+                else
+                {
+                    fail[child] = table[fail[node] * width + symbol];
+                    table[node * width + symbol] = child;
+                    queue.add(child);
+                }
+            }
+        }
+
+        this.transitions = table;
+        this.outputs = new int[nodes][];
+        for (int node = 0; node < nodes; node++)
+        {
+            outputs[node] = matches
+                    .get(node)
+                    .stream()
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    private int[] newNode()
+    {
+        int[] node = new int[width];
+        Arrays.fill(node, -1);
+        return node;
+    }
+
+    /**
+     * Maps a button mask to its index in the transition table. Combinations that are not part of any pattern share the
+     * last index, which always leads back to the root.
+     */
+    private int symbolOf(int mask)
+    {
+        int index = Arrays.binarySearch(symbols, mask);
+        return index < 0 ? width - 1 : index;
+    }
+
+    /**
+     * @return the state of a new stream.
+     */
+    Matcher matcher()
+    {
+        return new Matcher();
+    }
+
+    /**
+     * The state of a single stream of polls. Not thread safe.
+     */
+    final class Matcher
+    {
+        private final long[] history = new long[longest];
+        private int head = -1;
+        private int state = 0;
+        private int previous = -1;
+
+        private final IntConsumer collector = this::collect;
+        private List<Integer> matched = Collections.emptyList();
+
+        /**
+         * Advances the automaton with the latest button state. Repeated polls with the same state are ignored.
+         *
+         * @param buttons   - the button mask of the poll.
+         * @param timestamp - the time of the poll, in nanoseconds.
+         * @param listener  - receives the id of each pattern that completed within its window.
+         */
+        void advance(int buttons, long timestamp, IntConsumer listener)
+        {
+            int step = buttons & alphabet;
+            if (step == previous)
+            {
+                return;
+            }
+            previous = step;
+
+            head = (head + 1) % history.length;
+            history[head] = timestamp;
+            state = transitions[state * width + symbolOf(step)];
+
+            for (int pattern : outputs[state])
+            {
+                int first = Math.floorMod(head - lengths[pattern] + 1, history.length);
+                if (timestamp - history[first] <= windows[pattern])
+                {
+                    listener.accept(ids[pattern]);
+                }
+            }
+        }
+
+        /**
+         * Same as {@link #advance(int, long, IntConsumer)}, but collects the ids.
+         *
+         * @param buttons   - the button mask of the poll.
+         * @param timestamp - the time of the poll, in nanoseconds.
+         * @return the matched ids, or an empty list if nothing matched.
+         */
+        List<Integer> advance(int buttons, long timestamp)
+        {
+            matched = Collections.emptyList();
+            advance(buttons, timestamp, collector);
+            return matched;
+        }
+
+        private void collect(int id)
+        {
+            if (matched.isEmpty())
+            {
+                matched = new ArrayList<>(2);
+            }
+            matched.add(id);
+        }
+    }
+}
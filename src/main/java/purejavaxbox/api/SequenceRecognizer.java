@@ -0,0 +1,106 @@
+package purejavaxbox.api;
+
+import purejavaxbox.XboxButton;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builder-style class that detects input sequences, such as "down, down-forward, forward + X within 250 ms" or "A
+ * pressed twice within 200 ms".
+ * <p>
+ * A pattern is a list of steps, and each step is the exact set of buttons that must be held. Only buttons used by at
+ * least one registered pattern are considered, so unrelated buttons never break a sequence. A step is taken every time
+ * that set changes, which means releases have to be written out: a double tap of A is {@code step(A), step(),
+ * step(A)}. A pattern matches when its steps are the most recent steps taken, and the first of them was taken within
+ * the window of the pattern.
+ * <p>
+ * All patterns are compiled into a single automaton that is advanced once per poll, so the cost of a poll does not
+ * depend on the number of registered patterns. Windows are measured with the {@link
+ * purejavaxbox.ControllerSnapshot#timestamp() timestamps} of the polls.
+ */
+public final class SequenceRecognizer
+{
+    private final List<int[]> patterns = new ArrayList<>();
+    private final List<Integer> ids = new ArrayList<>();
+    private final List<Long> windows = new ArrayList<>();
+
+    /**
+     * Creates a step from the buttons that must be held.
+     *
+     * @param buttons - the toggle buttons held during this step. No buttons means everything is released.
+     * @return the step, as a mask built from {@link XboxButton#mask()}.
+     */
+    public static int step(XboxButton... buttons)
+    {
+        int mask = 0;
+        for (XboxButton button : buttons)
+        {
+            if (button.isAnalog())
+            {
+                throw new IllegalArgumentException("Analog components cannot be part of a sequence: " + button);
+            }
+            mask |= button.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * Registers a pattern.
+     *
+     * @param id       - the value broadcast when the pattern matches. Ids do not need to be unique.
+     * @param duration - the maximum time between the first and the last step.
+     * @param unit     - unit of duration.
+     * @param steps    - the steps, created with {@link #step(XboxButton...)}.
+     * @return this.
+     */
+    public SequenceRecognizer pattern(int id, long duration, TimeUnit unit, int... steps)
+    {
+        if (steps.length == 0)
+        {
+            throw new IllegalArgumentException("A pattern requires at least one step.");
+        }
+
+        patterns.add(steps.clone());
+        ids.add(id);
+        windows.add(unit.toNanos(duration));
+        return this;
+    }
+
+    /**
+     * Compiles the registered patterns and listens to the controller. Patterns registered afterwards do not affect the
+     * returned flux.
+     *
+     * @param api - the controller to observe.
+     * @return a flux broadcasting the id of every pattern that matches. When several patterns match on the same poll,
+     * the longest is broadcast first.
+     */
+    public Flux<Integer> observe(ControllerApi api)
+    {
+        SequenceAutomaton automaton = compile();
+
+        return Flux.defer(() ->
+        {
+            SequenceAutomaton.Matcher matcher = automaton.matcher();
+            return api
+                    .snapshots()
+                    .flatMapIterable(snapshot -> matcher.advance(snapshot.buttons(), snapshot.timestamp()));
+        });
+    }
+
+    SequenceAutomaton compile()
+    {
+        int[] compiledIds = ids
+                .stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+        long[] compiledWindows = windows
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        return new SequenceAutomaton(new ArrayList<>(patterns), compiledIds, compiledWindows);
+    }
+}
@@ -2,69 +2,298 @@ package purejavaxbox.api;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
+import purejavaxbox.raw.SlotStatus;
+import purejavaxbox.raw.XboxController;
 import purejavaxbox.raw.XboxControllers;
+import reactor.core.Disposable;
 import reactor.core.publisher.EmitterProcessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
 import reactor.core.scheduler.Schedulers;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
- * An implementation of {@link ControllerApi} which supports exactly 1 controller. Objects of this type share a single
- * daemon thread called controller-polling-thread, which will be used to poll controllers. <p> This object will poll
- * each controller, starting with ID 0 through ID 3. If a map with values is produced, then that map is saved and
- * distributed through {@link #get()}. If an empty is produced, then the next controller with the next highest ID is
- * checked. This process repeats until all controllers have been checked. In the event of multiple controllers, lower
- * IDs will always take precedence. </p>
+ * An implementation of {@link ControllerApi} which supports exactly 1 controller. The controllers are polled from a
+ * thread owned by the {@link Pacing} strategy, which by default is a shared daemon thread called
+ * controller-polling-thread.
+ * <p>
+ * This object will poll each controller, starting with ID 0 through ID 3. If a controller is connected, then its
+ * snapshot is saved and distributed through {@link #snapshots()} and {@link #get()}. If it is not connected, then the
+ * next controller with the next highest ID is checked. This process repeats until all controllers have been checked. In
+ * the event of multiple controllers, lower IDs will always take precedence.
+ * <p>
+ * When change detection is enabled, a poll is only distributed if the state differs from the last distributed poll.
+ * <p>
+ * Every poll reads the clock once, and the snapshot it produces carries that timestamp along with the number of the
+ * poll.
+ * <p>
+ * Backend calls and emissions are reported to Java Flight Recorder, see {@link FlightEvents}.
  */
 final class SinglePlayer implements ControllerApi
 {
     private static final Logger LOG = LoggerFactory.getLogger(SinglePlayer.class);
 
-    private static final ScheduledExecutorService SERVICE = Executors.newSingleThreadScheduledExecutor(runnable ->
+    private EmitterProcessor<ControllerSnapshot> flux = EmitterProcessor.create(false);
+    private FluxSink<ControllerSnapshot> sink = flux.sink(FluxSink.OverflowStrategy.DROP);
+    private Flux<Map<XboxButton, Number>> mapFlux = flux.map(ControllerSnapshot::asMap);
+
+    private EmitterProcessor<ButtonEvent> events = EmitterProcessor.create(false);
+    private FluxSink<ButtonEvent> eventSink = events.sink(FluxSink.OverflowStrategy.DROP);
+    private Consumer<ButtonEvent> eventListener = this::emitEvent;
+
+    private final XboxControllers controllers;
+    private final boolean changeDetection;
+    private final NanoClock clock;
+    private final PollStep step;
+    private final ButtonEdges edges = new ButtonEdges();
+    private final ListenerDispatcher dispatcher = new ListenerDispatcher();
+    private final LatestSnapshot latest = new LatestSnapshot();
+
+    private final long nanos;
+    private final AdaptiveSchedule schedule;
+    private final Pacer pacer;
+    private final ControllerMetrics metrics;
+    private final FlightEvents flight;
+    private ControllerRing ring;
+    private RumbleScheduler rumble;
+    private MapperChain mappers = MapperChain.EMPTY;
+    private final MutableSnapshot mapped = new MutableSnapshot();
+    private long sequence;
+    private boolean disposed;
+
+    /**
+     * Polls at a fixed rate.
+     */
+    SinglePlayer(long nanos, XboxControllers controllers, boolean changeDetection, Pacing pacing, NanoClock clock)
+    {
+        this(nanos, null, controllers, changeDetection, pacing, clock);
+    }
+
+    /**
+     * Polls at a rate that adapts to the use of the controller.
+     */
+    SinglePlayer(AdaptiveSchedule schedule, XboxControllers controllers, boolean changeDetection, Pacing pacing, NanoClock clock)
+    {
+        this(schedule.initialPeriod(), schedule, controllers, changeDetection, pacing, clock);
+    }
+
+    private SinglePlayer(long nanos, AdaptiveSchedule schedule, XboxControllers controllers, boolean changeDetection, Pacing pacing, NanoClock clock)
+    {
+        this.controllers = controllers;
+        this.changeDetection = changeDetection;
+        this.clock = clock;
+        this.nanos = nanos;
+        this.schedule = schedule;
+
+        // Loading the flight recorder events takes a while, so it must not happen during the first poll.
+        flight = FlightEvents.INSTANCE;
+
+        pacer = pacing.newPacer(start -> tick());
+        metrics = new ControllerMetrics(pacer.recorder(), this::subscriberCount, this::connectedSlots);
+        step = new PollStep(metrics, flight);
+    }
+
+    /**
+     * Starts polling. Called once, after the player is fully configured.
+     *
+     * @return this.
+     */
+    SinglePlayer start()
+    {
+        pacer.start();
+        return this;
+    }
+
+    /**
+     * Applies mappers to every distributed poll, in a single pass on the polling thread. Called before {@link
+     * #start()}.
+     *
+     * @return this.
+     */
+    SinglePlayer mappers(MapperChain mappers)
+    {
+        this.mappers = mappers;
+        return this;
+    }
+
+    /**
+     * Publishes every distributed poll into a ring instead of the fluxes. Called before {@link #start()}.
+     *
+     * @return this.
+     */
+    SinglePlayer publishTo(ControllerRing ring)
+    {
+        this.ring = ring;
+        return this;
+    }
+
+    /**
+     * Plays rumble effects on the connected controller after each poll. Called before {@link #start()}.
+     *
+     * @return this.
+     */
+    SinglePlayer rumble(RumbleScheduler rumble)
+    {
+        this.rumble = rumble;
+        return this;
+    }
+
+    /**
+     * @return the time of the poll, read from the clock.
+     */
+    private long poll()
     {
-        Thread thread = new Thread(runnable);
-        thread.setName("controller-polling-thread");
-        thread.setDaemon(true);
-        return thread;
-    });
+        long timestamp = clock.nanoTime();
+        long number = sequence++;
+
+        metrics.recordPoll();
+        step.reset();
+        controllers.forEach(step);
+
+        if (rumble != null)
+        {
+            rumble.tick(timestamp, step.controller());
+        }
 
-    private EmitterProcessor<Map<XboxButton, Number>> flux = EmitterProcessor.create(false);
-    private FluxSink<Map<XboxButton, Number>> sink = flux.sink(FluxSink.OverflowStrategy.DROP);
+        long start = System.nanoTime();
+        if (changeDetection && step.isUnchanged())
+        {
+            metrics.recordEmit(System.nanoTime() - start);
+            return timestamp;
+        }
+
+        MutableSnapshot raw = step.emit(timestamp, number);
+        metrics.recordEmit(System.nanoTime() - start);
+
+        MutableSnapshot current = map(raw);
+        latest.publish(current);
+        dispatcher.dispatch(current);
+
+        if (ring != null)
+        {
+            ring.publish(current);
+            return timestamp;
+        }
 
-    private ScheduledFuture<?> task;
+        ControllerSnapshot snapshot = current.immutableCopy();
+        Object event = flight.beginEmit();
+        boolean dropped = flux.hasDownstreams() && sink.requestedFromDownstream() == 0L;
+        if (dropped)
+        {
+            metrics.recordDropped();
+        }
+        sink.next(snapshot);
+        flight.endEmit(event, subscriberCount(), dropped);
+        edges.diff(snapshot, events.hasDownstreams() ? eventListener : null);
+        return timestamp;
+    }
 
-    SinglePlayer(long nanos, XboxControllers controllers)
+    /**
+     * Maps a copy of the poll, so the snapshot of the controller keeps its raw values for change detection and packet
+     * skipping.
+     */
+    private MutableSnapshot map(MutableSnapshot raw)
     {
-        task = SERVICE.scheduleAtFixedRate(() ->
+        if (mappers.isEmpty() || !raw.isConnected())
         {
-            AtomicReference<Map<XboxButton, Number>> buttonReference = new AtomicReference<>(Collections.emptyMap());
-            controllers.forEach(controller ->
-            {
-                if (buttonReference
-                        .get()
-                        .isEmpty())
-                {
-                    buttonReference.set(controller.buttons());
-                }
-            });
+            return raw;
+        }
 
-            Map<XboxButton, Number> buttonValues = buttonReference.getAndSet(Collections.emptyMap());
-            sink.next(buttonValues);
-        }, 0, nanos, TimeUnit.NANOSECONDS);
+        Object event = flight.beginMapperChain();
+        long start = System.nanoTime();
+        mappers.apply(mapped.copyFrom(raw));
+        metrics.recordMapperChain(System.nanoTime() - start);
+        flight.endMapperChain(event, mappers.size());
+        return mapped;
+    }
+
+    private void emitEvent(ButtonEvent event)
+    {
+        if (eventSink.requestedFromDownstream() == 0L)
+        {
+            metrics.recordDropped();
+        }
+        eventSink.next(event);
+    }
+
+    private int subscriberCount()
+    {
+        return (int) (flux.downstreamCount() + events.downstreamCount());
+    }
+
+    private int connectedSlots()
+    {
+        return (int) controllers
+                .slotStatus()
+                .stream()
+                .filter(SlotStatus::isConnected)
+                .count();
+    }
+
+    /**
+     * @return the period before the next poll.
+     */
+    private long tick()
+    {
+        long timestamp = poll();
+        return schedule == null ? nanos : schedule.nextPeriod(step.current(), timestamp);
     }
 
     @Override
     public Flux<Map<XboxButton, Number>> get()
+    {
+        return mapFlux;
+    }
+
+    @Override
+    public Flux<ControllerSnapshot> snapshots()
     {
         return flux;
     }
 
+    @Override
+    public ControllerMetrics metrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * {@inheritDoc} The state is published with a seqlock after each distributed poll. When change detection is enabled,
+     * the timestamp is the one of the last poll that changed.
+     */
+    @Override
+    public boolean sample(MutableSnapshot into)
+    {
+        return latest.read(into);
+    }
+
+    /**
+     * {@inheritDoc} Listeners are called from the polling thread, right after each poll.
+     */
+    @Override
+    public Disposable addListener(ControllerListener listener)
+    {
+        dispatcher.add(listener);
+        return () -> dispatcher.remove(listener);
+    }
+
+    /**
+     * {@inheritDoc} Events are computed once per poll on the polling thread, and only while there are subscribers.
+     */
+    @Override
+    public Flux<ButtonEvent> buttonEvents()
+    {
+        return events;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -73,15 +302,16 @@ final class SinglePlayer implements ControllerApi
      */
     public synchronized void dispose()
     {
-        if (task.cancel(false))
+        if (!disposed)
         {
+            disposed = true;
+
             try
             {
-                SERVICE
-                        .submit(() -> LOG.info("Disposing single player controller."))
-                        .get(1, TimeUnit.SECONDS);
+                LOG.info("Disposing single player controller.");
+                metrics.unregister();
+                pacer.stop(1, TimeUnit.SECONDS);
                 LOG.info("Task was successfully cancelled.");
-                flux.cancelOn(Schedulers.immediate());
             }
             catch (InterruptedException e)
             {
@@ -89,17 +319,134 @@ final class SinglePlayer implements ControllerApi
                 Thread
                         .currentThread()
                         .interrupt();
-                flux.cancelOn(Schedulers.immediate());
-            }
-            catch (ExecutionException e)
-            {
-                LOG.error("Waiting for cancel threw an unexpected error. Listeners will still be canceled.", e);
-                flux.cancelOn(Schedulers.immediate());
             }
             catch (TimeoutException e)
             {
                 throw new IllegalStateException(e);
             }
+
+            if (rumble != null)
+            {
+                rumble.release();
+            }
+            controllers.close();
+            flux.cancelOn(Schedulers.immediate());
+        }
+    }
+
+    /**
+     * Polls each controller in order until one is connected. A single instance is reused for every tick so the poll
+     * does not allocate. Each controller is polled into its own snapshot, which lets controllers skip decoding when
+     * their state has not changed.
+     */
+    private static final class PollStep implements Consumer<XboxController>
+    {
+        private MutableSnapshot[] snapshots = new MutableSnapshot[0];
+        private final MutableSnapshot disconnected = new MutableSnapshot();
+        private final ControllerMetrics metrics;
+        private final FlightEvents flight;
+        private int index;
+        private int slot;
+        private XboxController controller;
+
+        private int emittedSlot = -1;
+        private boolean hasEmitted;
+        private final MutableSnapshot emitted = new MutableSnapshot();
+
+        PollStep(ControllerMetrics metrics, FlightEvents flight)
+        {
+            this.metrics = metrics;
+            this.flight = flight;
+        }
+
+        void reset()
+        {
+            index = 0;
+            slot = -1;
+            controller = null;
+        }
+
+        @Override
+        public void accept(XboxController controller)
+        {
+            if (slot < 0)
+            {
+                if (index == snapshots.length)
+                {
+                    snapshots = Arrays.copyOf(snapshots, index + 1);
+                    snapshots[index] = new MutableSnapshot();
+                }
+
+                Object event = flight.beginPoll();
+                long start = System.nanoTime();
+                boolean connected = controller.poll(snapshots[index]);
+                metrics.recordNativeCall(System.nanoTime() - start);
+                flight.endPoll(event, index, connected);
+
+                if (connected)
+                {
+                    slot = index;
+                    this.controller = controller;
+                }
+            }
+            index++;
+        }
+
+        /**
+         * Compares the current poll with the last emitted value. Packet numbers are used when the backend provides
+         * them, otherwise the values are compared.
+         *
+         * @return true if the same controller produced the same state as the last emitted value.
+         */
+        boolean isUnchanged()
+        {
+            if (!hasEmitted || slot != emittedSlot)
+            {
+                return false;
+            }
+
+            if (slot < 0)
+            {
+                return true;
+            }
+
+            ControllerSnapshot current = snapshots[slot];
+            long packet = current.packet();
+            boolean packetsMatch = packet != ControllerSnapshot.UNKNOWN_PACKET && packet == emitted.packet();
+            return packetsMatch || current.sameValues(emitted);
+        }
+
+        /**
+         * @return the connected controller, or null if none is connected.
+         */
+        XboxController controller()
+        {
+            return controller;
+        }
+
+        ControllerSnapshot current()
+        {
+            return slot < 0 ? ControllerSnapshot.DISCONNECTED : snapshots[slot];
+        }
+
+        /**
+         * Stamps the current poll, and remembers its values as the last emitted value.
+         *
+         * @param timestamp - the time of the poll.
+         * @param sequence  - the number of the poll.
+         * @return the current poll. It is overwritten by the next poll.
+         */
+        MutableSnapshot emit(long timestamp, long sequence)
+        {
+            MutableSnapshot current = slot < 0 ? disconnected : snapshots[slot];
+            current
+                    .timestamp(timestamp)
+                    .sequence(sequence);
+
+            emittedSlot = slot;
+            hasEmitted = true;
+            emitted.copyFrom(current);
+            return current;
         }
     }
 }
@@ -0,0 +1,62 @@
+package purejavaxbox.api;
+
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stores snapshots as primitives in an {@link AtomicLongArray}, one slot of {@link #STRIDE} longs per snapshot. Every
+ * access is atomic, so a reader never sees a torn long, and can detect a concurrent write using its own sequence
+ * numbers. Writes are ordered stores, reads are volatile.
+ */
+final class SnapshotSlots
+{
+    static final int STRIDE = 16;
+
+    private static final XboxButton[] ANALOGS = Arrays
+            .stream(XboxButton.values())
+            .filter(XboxButton::isAnalog)
+            .toArray(XboxButton[]::new);
+
+    private static final int BUTTONS = 0;
+    private static final int CONNECTED = 1;
+    private static final int PACKET = 2;
+    private static final int TIMESTAMP = 3;
+    private static final int SEQUENCE = 4;
+    private static final int FIRST_ANALOG = 5;
+
+    private SnapshotSlots()
+    {
+
+    }
+
+    static void write(AtomicLongArray slots, int base, ControllerSnapshot snapshot)
+    {
+        slots.lazySet(base + BUTTONS, snapshot.buttons());
+        slots.lazySet(base + CONNECTED, snapshot.isConnected() ? 1L : 0L);
+        slots.lazySet(base + PACKET, snapshot.packet());
+        slots.lazySet(base + TIMESTAMP, snapshot.timestamp());
+        slots.lazySet(base + SEQUENCE, snapshot.sequence());
+        for (int i = 0; i < ANALOGS.length; i++)
+        {
+            slots.lazySet(base + FIRST_ANALOG + i, Double.doubleToRawLongBits(snapshot.value(ANALOGS[i])));
+        }
+    }
+
+    static void read(AtomicLongArray slots, int base, MutableSnapshot into)
+    {
+        into
+                .buttons((int) slots.get(base + BUTTONS))
+                .connected(slots.get(base + CONNECTED) != 0L)
+                .packet(slots.get(base + PACKET))
+                .timestamp(slots.get(base + TIMESTAMP))
+                .sequence(slots.get(base + SEQUENCE));
+        for (int i = 0; i < ANALOGS.length; i++)
+        {
+            into.value(ANALOGS[i], Double.longBitsToDouble(slots.get(base + FIRST_ANALOG + i)));
+        }
+    }
+}
@@ -1,19 +1,23 @@
 package purejavaxbox.api;
 
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Builder-style class that can create {@link ButtonMapper mappers} for supporting dead zones for analog components.
- * Currently supports sticks.
+ * Currently supports sticks. The mappers are also {@link PrimitiveButtonMapper primitive mappers}, so they do not box
+ * values when added to a {@link ControllerBuilder}.
  */
 public final class StickDeadZones
 {
     private static final double SHORT_ELEMENTS = Short.MAX_VALUE;
     private double innerDZ = 0.0;
     private double outerDZ = 1.0;
+    private boolean lookupTable = false;
     private XboxButton vk = XboxButton.LEFT_STICK_VERTICAL;
     private XboxButton hk = XboxButton.LEFT_STICK_HORIZONTAL;
 
@@ -41,6 +45,23 @@ public final class StickDeadZones
         return this;
     }
 
+    /**
+     * Precompiles the dead zones into lookup tables, see {@link #buildAxialDeadZone()}, {@link #buildRadialDeadZone()}
+     * and {@link #buildScaledRadialDeadZone()}. The mappers then replace the square root and divisions with a table read
+     * indexed by the squared magnitude. Results differ from the direct computation by less than 1e-4. The scaled radial
+     * strategy is singular near the center of the stick, so it only uses a table for inner dead zones of at least 0.15,
+     * or 4916, which includes the recommended XInput dead zones. Smaller ones are computed directly. Disabled by
+     * default.
+     *
+     * @param enabled - true to use lookup tables.
+     * @return this
+     */
+    public StickDeadZones lookupTable(boolean enabled)
+    {
+        this.lookupTable = enabled;
+        return this;
+    }
+
     /**
      * Changes the target analog to the left analog.
      *
@@ -76,35 +97,43 @@ public final class StickDeadZones
      * Creates dead zone handling that snaps horizontal and vertical values to 0.0, 1.0, or -1.0 when outside of the
      * specified dead zone. Ensures that the magnitude never exceeds 1.0.
      *
-     * @return the button mapper executing this strategy.
+     * @return the button mapper executing this strategy. It is also a {@link PrimitiveButtonMapper}.
      */
     public ButtonMapper buildAxialDeadZone()
     {
-        XboxButton verticalKey = this.vk;
-        XboxButton horizontalKey = this.hk;
         double innerDeadZone = this.innerDZ;
         double outerDeadZone = this.outerDZ;
 
-        return buttons ->
+        if (lookupTable)
         {
-            double sHorizontal = buttons
-                    .get(horizontalKey)
-                    .doubleValue();
-            double sVertical = buttons
-                    .get(verticalKey)
-                    .doubleValue();
+            StickLookupTable table = StickLookupTable.radial(innerDeadZone, outerDeadZone);
+            return new StickMapper(hk, vk)
+            {
+                @Override
+                void map(double sHorizontal, double sVertical, MutableSnapshot out)
+                {
+                    double scale = table.scale(sHorizontal * sHorizontal + sVertical * sVertical);
+                    set(out, clipAxis(sHorizontal * scale, innerDeadZone, outerDeadZone), clipAxis(sVertical * scale, innerDeadZone, outerDeadZone));
+                }
+            };
+        }
 
-            double magnitude = Math.sqrt(sHorizontal * sHorizontal + sVertical * sVertical);
+        return new StickMapper(hk, vk)
+        {
+            @Override
+            void map(double sHorizontal, double sVertical, MutableSnapshot out)
+            {
+                double magnitude = Math.sqrt(sHorizontal * sHorizontal + sVertical * sVertical);
 
-            double dirHorizontal = sHorizontal / magnitude;
-            double dirVertical = sVertical / magnitude;
+                double dirHorizontal = sHorizontal / magnitude;
+                double dirVertical = sVertical / magnitude;
 
-            magnitude = clip(magnitude, innerDeadZone, outerDeadZone);
+                magnitude = clip(magnitude, innerDeadZone, outerDeadZone);
 
-            if (!(Double.isNaN(dirHorizontal) || Double.isNaN(dirVertical)))
-            {
-                buttons.put(horizontalKey, clip(dirHorizontal * magnitude, innerDeadZone, outerDeadZone));
-                buttons.put(verticalKey, clip(dirVertical * magnitude, innerDeadZone, outerDeadZone));
+                if (!(Double.isNaN(dirHorizontal) || Double.isNaN(dirVertical)))
+                {
+                    set(out, clip(dirHorizontal * magnitude, innerDeadZone, outerDeadZone), clip(dirVertical * magnitude, innerDeadZone, outerDeadZone));
+                }
             }
         };
     }
@@ -113,34 +142,34 @@ public final class StickDeadZones
      * This dead zone strategy clips the magnitude of the analog values between 0.0 and 1.0 based on the inner and outer
      * dead zones. Values are not rescaled, so fidelity outside of the dead zone is lost.
      *
-     * @return the button mapper executing this strategy.
+     * @return the button mapper executing this strategy. It is also a {@link PrimitiveButtonMapper}.
      */
     public ButtonMapper buildRadialDeadZone()
     {
-        XboxButton verticalKey = this.vk;
-        XboxButton horizontalKey = this.hk;
         double innerDeadZone = this.innerDZ;
         double outerDeadZone = this.outerDZ;
 
-        return buttons ->
+        if (lookupTable)
         {
-            double sHorizontal = buttons
-                    .get(horizontalKey)
-                    .doubleValue();
-            double sVertical = buttons
-                    .get(verticalKey)
-                    .doubleValue();
-            double magnitude = Math.sqrt(sHorizontal * sHorizontal + sVertical * sVertical);
+            return new TableMapper(hk, vk, StickLookupTable.radial(innerDeadZone, outerDeadZone));
+        }
 
-            double dirHorizontal = sHorizontal / magnitude;
-            double dirVertical = sVertical / magnitude;
+        return new StickMapper(hk, vk)
+        {
+            @Override
+            void map(double sHorizontal, double sVertical, MutableSnapshot out)
+            {
+                double magnitude = Math.sqrt(sHorizontal * sHorizontal + sVertical * sVertical);
 
-            magnitude = clip(magnitude, innerDeadZone, outerDeadZone);
+                double dirHorizontal = sHorizontal / magnitude;
+                double dirVertical = sVertical / magnitude;
 
-            if (!(Double.isNaN(dirHorizontal) || Double.isNaN(dirVertical)))
-            {
-                buttons.put(horizontalKey, dirHorizontal * magnitude);
-                buttons.put(verticalKey, dirVertical * magnitude);
+                magnitude = clip(magnitude, innerDeadZone, outerDeadZone);
+
+                if (!(Double.isNaN(dirHorizontal) || Double.isNaN(dirVertical)))
+                {
+                    set(out, dirHorizontal * magnitude, dirVertical * magnitude);
+                }
             }
         };
     }
@@ -148,48 +177,47 @@ public final class StickDeadZones
     /**
      * Similar to {@link #buildRadialDeadZone()}, but rescales the input values between the upper and lower.
      *
-     * @return the button mapper executing this strategy.
+     * @return the button mapper executing this strategy. It is also a {@link PrimitiveButtonMapper}.
      */
     public ButtonMapper buildScaledRadialDeadZone()
     {
-        XboxButton verticalKey = this.vk;
-        XboxButton horizontalKey = this.hk;
         double innerDeadZone = this.innerDZ;
         double outerDeadZone = this.outerDZ;
 
-        return buttons ->
+        if (lookupTable && innerDeadZone >= StickLookupTable.MIN_SCALED_INNER)
         {
-            double sHorizontal = buttons
-                    .get(horizontalKey)
-                    .doubleValue();
-            double sVertical = buttons
-                    .get(verticalKey)
-                    .doubleValue();
-            double magnitude = Math.sqrt(sHorizontal * sHorizontal + sVertical * sVertical);
+            return new TableMapper(hk, vk, StickLookupTable.scaledRadial(innerDeadZone, outerDeadZone));
+        }
 
-            double dirHorizontal = sHorizontal / magnitude;
-            double dirVertical = sVertical / magnitude;
+        return new StickMapper(hk, vk)
+        {
+            @Override
+            void map(double sHorizontal, double sVertical, MutableSnapshot out)
+            {
+                double magnitude = Math.sqrt(sHorizontal * sHorizontal + sVertical * sVertical);
 
-            magnitude = clip(magnitude, innerDeadZone, outerDeadZone);
+                double dirHorizontal = sHorizontal / magnitude;
+                double dirVertical = sVertical / magnitude;
 
-            if (!(Double.isNaN(dirHorizontal) || Double.isNaN(dirVertical)) && magnitude > innerDeadZone)
-            {
-                double legalRange = outerDeadZone - innerDeadZone;
-                double normalizedMag = Math.min(1.0f, (magnitude - innerDeadZone) / legalRange);
-                double scalar = normalizedMag / magnitude;
+                magnitude = clip(magnitude, innerDeadZone, outerDeadZone);
 
-                buttons.put(horizontalKey, dirHorizontal * scalar);
-                buttons.put(verticalKey, dirVertical * scalar);
-            }
-            else
-            {
-                buttons.put(horizontalKey, 0.0);
-                buttons.put(verticalKey, 0.0);
+                if (!(Double.isNaN(dirHorizontal) || Double.isNaN(dirVertical)) && magnitude > innerDeadZone)
+                {
+                    double legalRange = outerDeadZone - innerDeadZone;
+                    double normalizedMag = Math.min(1.0f, (magnitude - innerDeadZone) / legalRange);
+                    double scalar = normalizedMag / magnitude;
+
+                    set(out, dirHorizontal * scalar, dirVertical * scalar);
+                }
+                else
+                {
+                    set(out, 0.0, 0.0);
+                }
             }
         };
     }
 
-    private double clip(double value, double inner, double outer)
+    private static double clip(double value, double inner, double outer)
     {
         double sign = Math.signum(value);
         double v = Math.abs(value);
@@ -206,4 +234,99 @@ public final class StickDeadZones
 
         return value;
     }
+
+    /**
+     * Same as {@link #clip(double, double, double)}, with comparisons only.
+     */
+    private static double clipAxis(double value, double inner, double outer)
+    {
+        if (value > outer)
+        {
+            return 1.0;
+        }
+        if (value < -outer)
+        {
+            return -1.0;
+        }
+        return value < inner && value > -inner ? 0.0 : value;
+    }
+
+    /**
+     * Applies a dead zone strategy to a single stick, either to a map or in place to a snapshot. The strategy only
+     * reads the two axes, and writes them through {@link #set(MutableSnapshot, double, double)}. Axes it does not write
+     * keep their value. The map path runs the strategy on a scratch snapshot owned by the mapper, so it allocates no
+     * more than the boxed values it puts in the map.
+     */
+    private abstract static class StickMapper implements ButtonMapper, PrimitiveButtonMapper
+    {
+        private final XboxButton horizontalKey;
+        private final XboxButton verticalKey;
+        private final MutableSnapshot scratch = new MutableSnapshot();
+
+        StickMapper(XboxButton horizontalKey, XboxButton verticalKey)
+        {
+            this.horizontalKey = horizontalKey;
+            this.verticalKey = verticalKey;
+        }
+
+        abstract void map(double sHorizontal, double sVertical, MutableSnapshot out);
+
+        final void set(MutableSnapshot out, double horizontal, double vertical)
+        {
+            out
+                    .value(horizontalKey, horizontal)
+                    .value(verticalKey, vertical);
+        }
+
+        @Override
+        public void apply(MutableSnapshot snapshot)
+        {
+            map(snapshot.value(horizontalKey), snapshot.value(verticalKey), snapshot);
+        }
+
+        @Override
+        public void modifyMapInPlace(Map<XboxButton, Number> buttons)
+        {
+            double sHorizontal = buttons
+                    .get(horizontalKey)
+                    .doubleValue();
+            double sVertical = buttons
+                    .get(verticalKey)
+                    .doubleValue();
+
+            double horizontal;
+            double vertical;
+            synchronized (scratch)
+            {
+                set(scratch, sHorizontal, sVertical);
+                map(sHorizontal, sVertical, scratch);
+                horizontal = scratch.value(horizontalKey);
+                vertical = scratch.value(verticalKey);
+            }
+
+            buttons.put(horizontalKey, horizontal);
+            buttons.put(verticalKey, vertical);
+        }
+    }
+
+    /**
+     * Multiplies both axes by the scale found in a {@link StickLookupTable}.
+     */
+    private static final class TableMapper extends StickMapper
+    {
+        private final StickLookupTable table;
+
+        TableMapper(XboxButton horizontalKey, XboxButton verticalKey, StickLookupTable table)
+        {
+            super(horizontalKey, verticalKey);
+            this.table = table;
+        }
+
+        @Override
+        void map(double sHorizontal, double sVertical, MutableSnapshot out)
+        {
+            double scale = table.scale(sHorizontal * sHorizontal + sVertical * sVertical);
+            set(out, sHorizontal * scale, sVertical * scale);
+        }
+    }
 }
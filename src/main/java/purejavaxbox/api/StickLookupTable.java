@@ -0,0 +1,118 @@
+package purejavaxbox.api;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Precompiles the radial part of a stick dead zone. Every strategy of {@link StickDeadZones} multiplies both axes by a
+ * scale that only depends on the magnitude of the stick, so the scale is tabulated against the squared magnitude, which
+ * needs no square root. A lookup is two comparisons, a table read and a linear interpolation.
+ * <p>
+ * The squared magnitude of a stick lies between 0 and 2. The scale is exactly 0 below the inner dead zone, and jumps or
+ * bends at the inner and outer dead zones, so each smooth region has its own table and the boundaries are compared
+ * exactly. With {@link #CELLS} cells per region, the output differs from the direct computation by less than {@link
+ * #ERROR_BOUND}. The scaled radial scale grows like the inverse of the magnitude as the inner dead zone shrinks, and
+ * is singular without one, so its table keeps that bound only for inner dead zones of at least {@link
+ * #MIN_SCALED_INNER}.
+ */
+final class StickLookupTable
+{
+    static final int CELLS = 2048;
+    static final double ERROR_BOUND = 1e-4;
+    static final double MIN_SCALED_INNER = 0.15;
+
+    private static final double MAX_SQUARED = 2.0;
+
+    private final double innerSquared;
+    private final double outerSquared;
+
+    private final double[] middle;
+    private final double middleCells;
+    private final double[] outside;
+    private final double outsideCells;
+
+    private StickLookupTable(double inner, double outer, boolean scaled)
+    {
+        this.innerSquared = inner * inner;
+        this.outerSquared = Math.max(outer * outer, innerSquared);
+
+        double range = outer - inner;
+        this.middle = scaled ? tabulate(innerSquared, outerSquared, q -> (Math.sqrt(q) - inner) / (range * q)) : null;
+        this.middleCells = cellsPerUnit(innerSquared, outerSquared);
+        this.outside = tabulate(outerSquared, MAX_SQUARED, q -> 1.0 / Math.sqrt(q));
+        this.outsideCells = cellsPerUnit(outerSquared, MAX_SQUARED);
+    }
+
+    /**
+     * The magnitude is kept between the dead zones, and clipped to 1.0 outside of them.
+     */
+    static StickLookupTable radial(double inner, double outer)
+    {
+        return new StickLookupTable(inner, outer, false);
+    }
+
+    /**
+     * The magnitude is rescaled from the dead zones to the range 0.0 to 1.0.
+     *
+     * @throws IllegalArgumentException if the inner dead zone is below {@link #MIN_SCALED_INNER}.
+     */
+    static StickLookupTable scaledRadial(double inner, double outer)
+    {
+        if (inner < MIN_SCALED_INNER)
+        {
+            throw new IllegalArgumentException("The scaled radial table needs an inner dead zone of at least " + MIN_SCALED_INNER + ": " + inner);
+        }
+        return new StickLookupTable(inner, outer, true);
+    }
+
+    private static double cellsPerUnit(double from, double to)
+    {
+        return to > from ? CELLS / (to - from) : 0.0;
+    }
+
+    private static double[] tabulate(double from, double to, DoubleUnaryOperator function)
+    {
+        double[] table = new double[CELLS + 2];
+        double step = (to - from) / CELLS;
+        for (int i = 0; i < table.length; i++)
+        {
+            double q = from + i * step;
+            table[i] = q > 0.0 ? function.applyAsDouble(q) : 0.0;
+        }
+        return table;
+    }
+
+    private static double interpolate(double[] table, double position)
+    {
+        int index = (int) position;
+        if (index >= CELLS)
+        {
+            return table[CELLS];
+        }
+
+        double low = table[index];
+        return low + (table[index + 1] - low) * (position - index);
+    }
+
+    /**
+     * @param squared - the squared magnitude of the stick.
+     * @return the factor to apply to both axes.
+     */
+    double scale(double squared)
+    {
+        if (squared < innerSquared || squared == 0.0)
+        {
+            return 0.0;
+        }
+
+        if (squared > outerSquared)
+        {
+            return interpolate(outside, (squared - outerSquared) * outsideCells);
+        }
+
+        if (middle == null)
+        {
+            return 1.0;
+        }
+        return interpolate(middle, (squared - innerSquared) * middleCells);
+    }
+}
@@ -0,0 +1,79 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builder-style class that configures {@link ControllerBuilder#isolateSubscribers(SubscriberIsolation)}.
+ * <p>
+ * Without isolation, every subscriber runs on the polling thread, so a slow subscriber delays the polls of everyone.
+ * With isolation, the polling thread only hands each value off to the subscriber, and the subscriber runs on its own
+ * delivery thread. Each subscriber keeps at most the latest value it has not consumed yet: older values are replaced,
+ * so a slow subscriber skips values instead of falling behind.
+ * <p>
+ * Button events can be queued instead, so no press is skipped, up to a bounded capacity. A subscriber whose values wait
+ * longer than the slow threshold before being delivered, or whose event queue overflows, is flagged as slow: a warning
+ * is logged and {@link ControllerMetrics#getSlowSubscribers()} counts it.
+ */
+public final class SubscriberIsolation
+{
+    private boolean queueEvents = false;
+    private int eventCapacity = 256;
+    private long slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(100L);
+
+    /**
+     * Queues button events instead of only keeping the latest one. Disabled by default.
+     *
+     * @param enabled - true to queue events.
+     * @return this.
+     */
+    public SubscriberIsolation queueEvents(boolean enabled)
+    {
+        this.queueEvents = enabled;
+        return this;
+    }
+
+    /**
+     * The number of button events queued for a single subscriber. When the queue is full, the oldest event is dropped.
+     * Defaults to 256.
+     *
+     * @param capacity - the capacity. Ignored if not positive.
+     * @return this.
+     */
+    public SubscriberIsolation eventCapacity(int capacity)
+    {
+        if (capacity > 0)
+        {
+            this.eventCapacity = capacity;
+        }
+        return this;
+    }
+
+    /**
+     * How long a value may wait for a subscriber before the subscriber is flagged as slow. Defaults to 100
+     * milliseconds.
+     *
+     * @param duration - measure of time.
+     * @param unit     - unit of duration.
+     * @return this.
+     */
+    public SubscriberIsolation slowThreshold(long duration, TimeUnit unit)
+    {
+        this.slowThresholdNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    boolean isQueueingEvents()
+    {
+        return queueEvents;
+    }
+
+    int eventCapacity()
+    {
+        return eventCapacity;
+    }
+
+    long slowThresholdNanos()
+    {
+        return slowThresholdNanos;
+    }
+}
@@ -0,0 +1,122 @@
+package purejavaxbox.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches a single isolated subscriber, see {@link SubscriberIsolation}. The polling thread reports values handed off,
+ * the delivery thread reports values delivered. When a value waited longer than the threshold, or the event queue
+ * overflowed, the subscriber is flagged as slow. Neither side locks or allocates until the subscriber is flagged.
+ */
+final class SubscriberMonitor
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriberMonitor.class);
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    private static final long IDLE = Long.MIN_VALUE;
+
+    private final int id = COUNT.incrementAndGet();
+    private final String stream;
+    private final long threshold;
+    private final ControllerMetrics metrics;
+
+    private final AtomicLong waitingSince = new AtomicLong(IDLE);
+    private volatile boolean slow;
+    private boolean released;
+
+    /**
+     * @param stream    - the name of the stream, used when logging.
+     * @param threshold - the longest a value may wait, in nanoseconds.
+     * @param metrics   - receives the number of slow subscribers. May be null.
+     */
+    SubscriberMonitor(String stream, long threshold, ControllerMetrics metrics)
+    {
+        this.stream = stream;
+        this.threshold = threshold;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Called by the polling thread when a value is handed off. Starts the clock if the subscriber was idle, otherwise
+     * checks how long the subscriber has kept the previous value waiting.
+     */
+    void offered()
+    {
+        long since = waitingSince.get();
+        if (since == IDLE)
+        {
+            waitingSince.compareAndSet(IDLE, System.nanoTime());
+        }
+        else if (!slow)
+        {
+            check(since);
+        }
+    }
+
+    /**
+     * Called by the delivery thread before a value reaches the subscriber.
+     */
+    void delivered()
+    {
+        long since = waitingSince.getAndSet(IDLE);
+        if (since != IDLE && !slow)
+        {
+            check(since);
+        }
+    }
+
+    /**
+     * Called by the polling thread when the event queue of the subscriber is full.
+     */
+    void overflowed()
+    {
+        if (metrics != null)
+        {
+            metrics.recordEventOverflow();
+        }
+        flag("its event queue overflowed");
+    }
+
+    /**
+     * Called when the subscription ends.
+     */
+    synchronized void release()
+    {
+        released = true;
+        if (slow && metrics != null)
+        {
+            metrics.recordSlowSubscriber(-1);
+        }
+    }
+
+    boolean isSlow()
+    {
+        return slow;
+    }
+
+    private void check(long since)
+    {
+        long waited = System.nanoTime() - since;
+        if (waited > threshold)
+        {
+            flag("a value waited " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms");
+        }
+    }
+
+    private synchronized void flag(String reason)
+    {
+        if (!slow && !released)
+        {
+            slow = true;
+            LOG.warn("Subscriber {} of {} is too slow: {}.", id, stream, reason);
+
+            if (metrics != null)
+            {
+                metrics.recordSlowSubscriber(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Paces ticks from a dedicated daemon thread. The thread parks until the deadline is near, then yields in a loop for the
+ * last stretch. Parking alone can wake up late by the timer slack of the operating system, while yielding keeps the
+ * thread runnable and wakes up within a few microseconds, at the cost of CPU time.
+ * <p>
+ * A spin window of 0 only parks.
+ */
+final class ThreadPacer extends Pacer
+{
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    private final long spinNanos;
+    private final Thread thread;
+
+    ThreadPacer(LongUnaryOperator tick, PacingRecorder recorder, long spinNanos)
+    {
+        super(tick, recorder);
+        this.spinNanos = spinNanos;
+        this.thread = new Thread(this::loop, "controller-polling-thread-" + COUNT.incrementAndGet());
+        this.thread.setDaemon(true);
+    }
+
+    @Override
+    void start()
+    {
+        thread.start();
+    }
+
+    private void loop()
+    {
+        while (!stopped)
+        {
+            long deadline = runTick();
+            awaitDeadline(deadline);
+        }
+    }
+
+    private void awaitDeadline(long deadline)
+    {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > spinNanos && !stopped)
+        {
+            LockSupport.parkNanos(remaining - spinNanos);
+            remaining = deadline - System.nanoTime();
+        }
+
+        while (remaining > 0L && !stopped)
+        {
+            Thread.yield();
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    @Override
+    void stop(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
+    {
+        stopped = true;
+        if (Thread.currentThread() == thread)
+        {
+            return;
+        }
+
+        LockSupport.unpark(thread);
+        thread.join(Math.max(1L, unit.toMillis(timeout)));
+
+        if (thread.isAlive())
+        {
+            throw new TimeoutException("The polling thread did not stop within " + timeout + " " + unit);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package purejavaxbox.api;
 
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
 
+import java.util.Map;
+
 /**
- * This class provides builders for creating trigger dead zones.
+ * This class provides builders for creating trigger dead zones. The mappers are also {@link PrimitiveButtonMapper
+ * primitive mappers}, so they do not box values when added to a {@link ControllerBuilder}.
  */
 public final class TriggerDeadZones
 {
@@ -64,7 +68,7 @@ public final class TriggerDeadZones
     /**
      * Scales the trigger value linearly between 0.0 and 1.0, based on the previously defined dead zones.
      *
-     * @return the mapper supporting the above dead zone strategy.
+     * @return the mapper supporting the above dead zone strategy. It is also a {@link PrimitiveButtonMapper}.
      */
     public ButtonMapper buildLinearScalar()
     {
@@ -73,21 +77,47 @@ public final class TriggerDeadZones
         double innerDeadZone = innerDZ;
         double outerDeadZone = outerDZ;
 
-        return buttons -> {
-            double value = buttons.get(triggerKey)
-                                  .doubleValue();
-
-            if (value > innerDeadZone)
+        return new TriggerMapper(triggerKey)
+        {
+            @Override
+            double map(double value)
             {
-                double legalRange = outerDeadZone - innerDeadZone;
-                double normalizedValue = Math.min(1.0f, (value - innerDeadZone) / legalRange);
-
-                buttons.put(triggerKey, normalizedValue);
-            }
-            else
-            {
-                buttons.put(triggerKey, 0.0);
+                if (value > innerDeadZone)
+                {
+                    double legalRange = outerDeadZone - innerDeadZone;
+                    return Math.min(1.0f, (value - innerDeadZone) / legalRange);
+                }
+                return 0.0;
             }
         };
     }
+
+    /**
+     * Applies a dead zone strategy to a single trigger, either to a map or in place to a snapshot.
+     */
+    private abstract static class TriggerMapper implements ButtonMapper, PrimitiveButtonMapper
+    {
+        private final XboxButton triggerKey;
+
+        TriggerMapper(XboxButton triggerKey)
+        {
+            this.triggerKey = triggerKey;
+        }
+
+        abstract double map(double value);
+
+        @Override
+        public void apply(MutableSnapshot snapshot)
+        {
+            snapshot.value(triggerKey, map(snapshot.value(triggerKey)));
+        }
+
+        @Override
+        public void modifyMapInPlace(Map<XboxButton, Number> buttons)
+        {
+            buttons.put(triggerKey, map(buttons
+                                                .get(triggerKey)
+                                                .doubleValue()));
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package purejavaxbox.api;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how a {@link RingConsumer} waits for the next snapshot in {@link RingConsumer#take(purejavaxbox.MutableSnapshot)}.
+ * The strategies trade latency for CPU usage: a busy spin reacts immediately but occupies a core, parking frees the
+ * core but wakes up late.
+ */
+@FunctionalInterface
+public interface WaitStrategy
+{
+    /**
+     * Checks again immediately. Lowest latency, uses a full core while waiting.
+     */
+    WaitStrategy BUSY_SPIN = attempts ->
+    {
+    };
+
+    /**
+     * Yields to other threads between checks.
+     */
+    WaitStrategy YIELD = attempts -> Thread.yield();
+
+    /**
+     * Parks for 50 microseconds between checks.
+     */
+    WaitStrategy PARK = parking(50L, TimeUnit.MICROSECONDS);
+
+    /**
+     * Parks between checks.
+     *
+     * @param duration - measure of time.
+     * @param unit     - unit of duration.
+     * @return the strategy.
+     */
+    static WaitStrategy parking(long duration, TimeUnit unit)
+    {
+        long nanos = unit.toNanos(duration);
+        return attempts -> LockSupport.parkNanos(nanos);
+    }
+
+    /**
+     * Called each time no snapshot was available.
+     *
+     * @param attempts - the number of times the consumer already waited for this snapshot.
+     */
+    void idle(int attempts);
+}
@@ -0,0 +1,178 @@
+package purejavaxbox.raw;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.MutableSnapshot;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polls the controllers of a single backend on its own daemon thread, for {@link XboxControllers#composite()}. Each
+ * tick requests a pass over every controller of the backend, and the results are kept until the next pass completes.
+ * A backend that is still busy with an earlier pass is not asked again, so a slow backend only delays itself.
+ * <p>
+ * The poller thread parks between passes, and a pass does not allocate. It runs until the poller is closed.
+ */
+final class BackendPoller
+{
+    private static final Logger LOG = LoggerFactory.getLogger(BackendPoller.class);
+    private static final long CLOSE_TIMEOUT = TimeUnit.SECONDS.toMillis(1L);
+
+    private final String backend;
+    private final List<TrackedController> controllers;
+    private final MutableSnapshot[] pending;
+    private final MutableSnapshot[] completed;
+    private final Thread thread;
+
+    private volatile long requested;
+    private volatile long done;
+    private volatile Thread waiter;
+    private volatile boolean closed;
+    private long missed;
+
+    BackendPoller(String backend, List<TrackedController> controllers)
+    {
+        this.backend = backend;
+        this.controllers = controllers;
+        this.pending = new MutableSnapshot[controllers.size()];
+        this.completed = new MutableSnapshot[controllers.size()];
+        for (int i = 0; i < pending.length; i++)
+        {
+            pending[i] = new MutableSnapshot();
+            completed[i] = new MutableSnapshot();
+        }
+
+        this.thread = new Thread(this::run, "controller-backend-" + backend);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    String backend()
+    {
+        return backend;
+    }
+
+    /**
+     * Asks for a pass, unless the previous one is still running.
+     *
+     * @param tick   - the number of the tick, increasing.
+     * @param waiter - the thread to unpark when the pass completes.
+     * @return false if the backend is still busy with an earlier pass.
+     */
+    boolean request(long tick, Thread waiter)
+    {
+        if (done < requested)
+        {
+            missed++;
+            if (Long.bitCount(missed) == 1)
+            {
+                LOG.debug("Backend {} missed the polling deadline {} times.", backend, missed);
+            }
+            return false;
+        }
+
+        this.waiter = waiter;
+        requested = tick;
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    /**
+     * @param tick - the number of the tick.
+     * @return true once the pass of the tick, or a later one, has completed.
+     */
+    boolean isDone(long tick)
+    {
+        return done >= tick;
+    }
+
+    /**
+     * Copies the result of the last completed pass. The copy is skipped if the snapshot already holds the same packet.
+     *
+     * @param index    - the index of the controller within the backend.
+     * @param snapshot - receives the result.
+     * @return true if the controller was connected.
+     */
+    synchronized boolean read(int index, MutableSnapshot snapshot)
+    {
+        MutableSnapshot result = completed[index];
+        if (!result.isConnected())
+        {
+            snapshot.clear();
+            return false;
+        }
+
+        if (!snapshot.isConnected() || snapshot.packet() != result.packet() || result.packet() == MutableSnapshot.UNKNOWN_PACKET)
+        {
+            snapshot.copyFrom(result);
+        }
+        return true;
+    }
+
+    /**
+     * Stops the poller thread, and waits up to a second for it to finish its pass.
+     */
+    void close()
+    {
+        closed = true;
+        LockSupport.unpark(thread);
+        try
+        {
+            thread.join(CLOSE_TIMEOUT);
+        }
+        catch (InterruptedException e)
+        {
+            Thread
+                    .currentThread()
+                    .interrupt();
+        }
+
+        if (thread.isAlive())
+        {
+            LOG.warn("Backend {} did not finish its poll within {} ms.", backend, CLOSE_TIMEOUT);
+        }
+    }
+
+    private void run()
+    {
+        long passes = 0L;
+        while (!closed)
+        {
+            long target = requested;
+            if (target == passes)
+            {
+                LockSupport.park(this);
+                continue;
+            }
+
+            for (int i = 0; i < pending.length; i++)
+            {
+                try
+                {
+                    controllers
+                            .get(i)
+                            .poll(pending[i]);
+                }
+                catch (RuntimeException e)
+                {
+                    LOG.warn("Backend {} failed to poll a controller.", backend, e);
+                    pending[i].clear();
+                }
+            }
+
+            synchronized (this)
+            {
+                for (int i = 0; i < pending.length; i++)
+                {
+                    completed[i].copyFrom(pending[i]);
+                }
+            }
+
+            passes = target;
+            done = target;
+            LockSupport.unpark(waiter);
+        }
+    }
+}
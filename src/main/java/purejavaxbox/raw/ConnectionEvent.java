@@ -0,0 +1,52 @@
+package purejavaxbox.raw;
+
+/**
+ * Describes a controller being connected or disconnected.
+ *
+ * @see XboxControllers#connectionEvents()
+ */
+public final class ConnectionEvent
+{
+    private final int slot;
+    private final boolean connected;
+    private final long timestamp;
+
+    ConnectionEvent(int slot, boolean connected, long timestamp)
+    {
+        this.slot = slot;
+        this.connected = connected;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the id of the controller, as used by {@link XboxControllers#getController(int)}.
+     */
+    public int slot()
+    {
+        return slot;
+    }
+
+    /**
+     * @return true if the controller was connected, false if it was disconnected.
+     */
+    public boolean isConnected()
+    {
+        return connected;
+    }
+
+    /**
+     * The time the change was detected, measured in nanoseconds using the same source as {@link System#nanoTime()}.
+     *
+     * @return the timestamp in nanoseconds.
+     */
+    public long timestamp()
+    {
+        return timestamp;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Controller " + slot + (connected ? " connected" : " disconnected") + " at " + timestamp;
+    }
+}
@@ -0,0 +1,160 @@
+package purejavaxbox.raw;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link XboxControllerFactory#isSupported()} probes of factories in parallel, and loads the controllers of the
+ * supported ones. Probe results are cached per factory instance for as long as the factory is in use, and the time
+ * taken by each probe and each factory is logged. The factories found on the classpath are created once and reused, so
+ * their probes only run once per process.
+ * <p>
+ * Neither probes nor factories may crash the caller: a probe that fails counts as unsupported, and a factory that fails
+ * finds no controllers.
+ */
+final class FactoryProbes
+{
+    private static final Logger LOG = LoggerFactory.getLogger(FactoryProbes.class);
+
+    private static final Map<XboxControllerFactory, Boolean> SUPPORTED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static List<XboxControllerFactory> discovered;
+
+    private FactoryProbes()
+    {
+    }
+
+    /**
+     * @return the factories found on the classpath by {@link ServiceLoader}, created on the first call.
+     */
+    static synchronized List<XboxControllerFactory> discovered()
+    {
+        if (discovered == null)
+        {
+            discovered = Collections.unmodifiableList(instantiate(ServiceLoader.load(XboxControllerFactory.class)));
+        }
+        return discovered;
+    }
+
+    /**
+     * @param factories - the factories to probe.
+     * @return the supported factories, in the given order.
+     */
+    static List<XboxControllerFactory> supported(Iterable<XboxControllerFactory> factories)
+    {
+        List<XboxControllerFactory> all = instantiate(factories);
+        List<CompletableFuture<Boolean>> probes = new ArrayList<>(all.size());
+        for (XboxControllerFactory factory : all)
+        {
+            probes.add(CompletableFuture.supplyAsync(() -> isSupported(factory)));
+        }
+
+        List<XboxControllerFactory> supported = new ArrayList<>(all.size());
+        for (int i = 0; i < all.size(); i++)
+        {
+            if (probes
+                    .get(i)
+                    .join())
+            {
+                supported.add(all.get(i));
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * A {@link ServiceLoader} reports a broken provider when it is looked up as well as when it is created, so both
+     * steps skip the providers that fail.
+     */
+    private static List<XboxControllerFactory> instantiate(Iterable<XboxControllerFactory> factories)
+    {
+        List<XboxControllerFactory> all = new ArrayList<>();
+        Iterator<XboxControllerFactory> iterator = factories.iterator();
+        while (true)
+        {
+            try
+            {
+                if (!iterator.hasNext())
+                {
+                    return all;
+                }
+                all.add(iterator.next());
+            }
+            catch (ServiceConfigurationError e)
+            {
+                LOG.warn("Unable to create a factory. Skipping it.", e);
+            }
+        }
+    }
+
+    /**
+     * The probe runs outside of the lock, so factories are probed in parallel.
+     *
+     * @return the cached result of the probe of the factory, probing it on the first call.
+     */
+    static boolean isSupported(XboxControllerFactory factory)
+    {
+        Boolean supported = SUPPORTED.get(factory);
+        if (supported == null)
+        {
+            supported = probe(factory);
+            SUPPORTED.put(factory, supported);
+        }
+        return supported;
+    }
+
+    private static boolean probe(XboxControllerFactory factory)
+    {
+        long start = System.nanoTime();
+        boolean supported;
+        try
+        {
+            supported = factory.isSupported();
+        }
+        catch (RuntimeException | LinkageError e)
+        {
+            LOG.warn("The probe of factory with id = {} failed. Skipping it.", factory.getId(), e);
+            supported = false;
+        }
+
+        LOG.info("Factory with id = {} is {}, probed in {} us.", factory.getId(), supported ? "supported" : "not supported", micros(start));
+        return supported;
+    }
+
+    /**
+     * Gets the controllers of a factory.
+     *
+     * @return the controllers, or an empty list if the factory failed.
+     */
+    static List<XboxController> load(XboxControllerFactory factory)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            List<XboxController> controllers = factory.get();
+            LOG.info("Found {} controllers from factory with id = {} in {} us.", controllers.size(), factory.getId(), micros(start));
+            return controllers;
+        }
+        catch (RuntimeException | LinkageError e)
+        {
+            LOG.warn("Factory with id = {} failed after {} us. Skipping it.", factory.getId(), micros(start), e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static long micros(long start)
+    {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+}
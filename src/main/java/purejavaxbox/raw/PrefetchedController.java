@@ -0,0 +1,68 @@
+package purejavaxbox.raw;
+
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A controller of {@link XboxControllers#composite()}, which reads the results of its {@link BackendPoller} instead of
+ * calling its backend. The backend is polled when the controllers are iterated, see {@link
+ * XboxControllers#getController(int)}.
+ */
+final class PrefetchedController implements XboxController
+{
+    private final TrackedController tracked;
+    private final BackendPoller poller;
+    private final int index;
+    private final MutableSnapshot buttonsBuffer = new MutableSnapshot();
+
+    PrefetchedController(TrackedController tracked, BackendPoller poller, int index)
+    {
+        this.tracked = tracked;
+        this.poller = poller;
+        this.index = index;
+    }
+
+    @Override
+    public synchronized Map<XboxButton, Number> buttons()
+    {
+        return poll(buttonsBuffer) ? buttonsBuffer
+                .immutableCopy()
+                .asMap() : Collections.emptyMap();
+    }
+
+    @Override
+    public boolean poll(MutableSnapshot snapshot)
+    {
+        return poller.read(index, snapshot);
+    }
+
+    /**
+     * {@inheritDoc} Called directly on the backend, from the calling thread.
+     */
+    @Override
+    public void rumble(double lowFrequency, double highFrequency)
+    {
+        tracked.rumble(lowFrequency, highFrequency);
+    }
+
+    @Override
+    public void close()
+    {
+        tracked.close();
+    }
+
+    @Override
+    public String backend()
+    {
+        return tracked.backend();
+    }
+
+    @Override
+    public String physicalId()
+    {
+        return tracked.physicalId();
+    }
+}
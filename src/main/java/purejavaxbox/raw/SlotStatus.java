@@ -0,0 +1,80 @@
+package purejavaxbox.raw;
+
+/**
+ * A point in time view of the connection tracking for a single controller, intended for diagnostics.
+ *
+ * @see XboxControllers#slotStatus()
+ */
+public final class SlotStatus
+{
+    private final int slot;
+    private final String backend;
+    private final boolean connected;
+    private final int failedProbes;
+    private final long backoffNanos;
+    private final long nanosUntilProbe;
+
+    SlotStatus(int slot, String backend, boolean connected, int failedProbes, long backoffNanos, long nanosUntilProbe)
+    {
+        this.slot = slot;
+        this.backend = backend;
+        this.connected = connected;
+        this.failedProbes = failedProbes;
+        this.backoffNanos = backoffNanos;
+        this.nanosUntilProbe = nanosUntilProbe;
+    }
+
+    /**
+     * @return the id of the controller.
+     */
+    public int slot()
+    {
+        return slot;
+    }
+
+    /**
+     * @return the id of the backend the controller came from.
+     */
+    public String backend()
+    {
+        return backend;
+    }
+
+    /**
+     * @return true if the last poll found the controller.
+     */
+    public boolean isConnected()
+    {
+        return connected;
+    }
+
+    /**
+     * @return the number of consecutive probes that did not find a controller. 0 while connected.
+     */
+    public int failedProbes()
+    {
+        return failedProbes;
+    }
+
+    /**
+     * @return the current delay between probes, in nanoseconds. 0 while connected.
+     */
+    public long backoffNanos()
+    {
+        return backoffNanos;
+    }
+
+    /**
+     * @return the time left before the controller is probed again, in nanoseconds. 0 if the next poll will probe it.
+     */
+    public long nanosUntilProbe()
+    {
+        return nanosUntilProbe;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SlotStatus{slot=" + slot + ", backend=" + backend + ", connected=" + connected + ", failedProbes=" + failedProbes + ", backoffNanos=" + backoffNanos + ", nanosUntilProbe=" + nanosUntilProbe + "}";
+    }
+}
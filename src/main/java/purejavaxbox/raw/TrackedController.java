@@ -0,0 +1,144 @@
+package purejavaxbox.raw;
+
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Wraps the controllers handed out by {@link XboxControllers} to track whether they are connected. Connected
+ * controllers are polled on every call. Once a controller is found to be disconnected, it is only probed again after a
+ * delay that doubles with every failed probe, and the calls in between report it as disconnected without reaching the
+ * backend.
+ * <p>
+ * Polling is expected to happen on a single thread, as with any raw controller. The tracking state can be read from
+ * any thread through {@link #status(long)}.
+ */
+final class TrackedController implements XboxController
+{
+    private final int slot;
+    private final String backend;
+    private final XboxController delegate;
+    private final XboxControllers owner;
+
+    private volatile boolean known;
+    private volatile boolean connected;
+    private volatile int failedProbes;
+    private volatile long backoff;
+    private volatile long nextProbe;
+
+    TrackedController(int slot, String backend, XboxController delegate, XboxControllers owner)
+    {
+        this.slot = slot;
+        this.backend = backend;
+        this.delegate = delegate;
+        this.owner = owner;
+    }
+
+    XboxController delegate()
+    {
+        return delegate;
+    }
+
+    @Override
+    public Map<XboxButton, Number> buttons()
+    {
+        long now = System.nanoTime();
+        if (isBackingOff(now))
+        {
+            return Collections.emptyMap();
+        }
+
+        Map<XboxButton, Number> buttons = delegate.buttons();
+        update(!buttons.isEmpty(), now);
+        return buttons;
+    }
+
+    @Override
+    public boolean poll(MutableSnapshot snapshot)
+    {
+        long now = System.nanoTime();
+        if (isBackingOff(now))
+        {
+            snapshot.clear();
+            return false;
+        }
+
+        boolean isConnected = delegate.poll(snapshot);
+        update(isConnected, now);
+        return isConnected;
+    }
+
+    @Override
+    public void rumble(double lowFrequency, double highFrequency)
+    {
+        delegate.rumble(lowFrequency, highFrequency);
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public String backend()
+    {
+        return backend;
+    }
+
+    @Override
+    public String physicalId()
+    {
+        return delegate.physicalId();
+    }
+
+    private boolean isBackingOff(long now)
+    {
+        return known && !connected && now - nextProbe < 0;
+    }
+
+    private void update(boolean isConnected, long now)
+    {
+        if (isConnected)
+        {
+            if (!known || !connected)
+            {
+                known = true;
+                connected = true;
+                failedProbes = 0;
+                backoff = 0L;
+                owner.publish(new ConnectionEvent(slot, true, now));
+            }
+            return;
+        }
+
+        boolean wasConnected = known && connected;
+        known = true;
+        connected = false;
+        failedProbes++;
+        backoff = backoff == 0L ? owner.minBackoff() : Math.min(backoff * 2, owner.maxBackoff());
+        nextProbe = now + backoff;
+
+        if (wasConnected)
+        {
+            owner.publish(new ConnectionEvent(slot, false, now));
+        }
+    }
+
+    /**
+     * Forces the next poll to reach the backend.
+     */
+    void probeNow()
+    {
+        nextProbe = System.nanoTime();
+    }
+
+    SlotStatus status(long now)
+    {
+        boolean isConnected = connected;
+        long untilProbe = !known || isConnected ? 0L : Math.max(0L, nextProbe - now);
+        return new SlotStatus(slot, backend, isConnected, failedProbes, backoff, untilProbe);
+    }
+}
@@ -1,5 +1,6 @@
 package purejavaxbox.raw;
 
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
 
 import java.util.Map;
@@ -37,6 +38,24 @@ public interface XboxController
      */
     Map<XboxButton, Number> buttons();
 
+    /**
+     * Fills the provided snapshot with the latest state of the controller. This is the allocation free alternative to
+     * {@link #buttons()}, and the snapshot can be reused between polls. The same thread-safety rules as {@link
+     * #buttons()} apply.
+     * <p>
+     * The default implementation copies the result of {@link #buttons()}. Implementations should override this method
+     * to decode directly into the snapshot.
+     *
+     * @param snapshot - the snapshot to fill. If the controller is not available, the snapshot is cleared.
+     * @return true if the controller is connected.
+     */
+    default boolean poll(MutableSnapshot snapshot)
+    {
+        return snapshot
+                .copyFrom(buttons())
+                .isConnected();
+    }
+
     /**
      * Enables the rumble pack. Will continue to rumble until stopped.
      *
@@ -44,4 +63,38 @@ public interface XboxController
      * @param highFrequency - the percentage of rumble, where 0.0 is off and 1.0 is max rumble.
      */
     void rumble(double lowFrequency, double highFrequency);
+
+    /**
+     * Releases the resources of the controller, such as reader threads and open devices. The controller is
+     * disconnected afterwards. Closing a closed controller does nothing. By default, there is nothing to release.
+     */
+    default void close()
+    {
+    }
+
+    /**
+     * Identifies the backend this controller came from. Controllers handed out by {@link XboxControllers} report the
+     * {@link XboxControllerFactory#getId() id} of their factory. By default, it is the package name of the
+     * implementation class.
+     *
+     * @return the backend id.
+     */
+    default String backend()
+    {
+        return getClass()
+                .getPackage()
+                .getName();
+    }
+
+    /**
+     * Identifies the physical pad behind this controller, such as its serial number or its place on the bus. A pad
+     * reached through several backends reports the same id in each of them, which lets {@link
+     * XboxControllers#composite()} list it once. By default, the pad cannot be identified.
+     *
+     * @return the physical id, or null if it is unknown.
+     */
+    default String physicalId()
+    {
+        return null;
+    }
 }
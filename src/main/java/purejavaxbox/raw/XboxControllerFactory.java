@@ -22,6 +22,21 @@ public interface XboxControllerFactory extends Supplier<List<XboxController>>
     @Override
     List<XboxController> get();
 
+    /**
+     * A cheap check of whether this backend can work on the current platform, such as the operating system or the
+     * presence of a device directory. It is called before {@link #get()}, which is skipped when this returns false.
+     * <p>
+     * Implementations must not load native libraries or touch classes that do, and must not block. The result is
+     * cached per factory instance, and the factories found on the classpath are only created once, so they are probed
+     * once per process. By default, every platform is supported.
+     *
+     * @return false if {@link #get()} cannot find any controller on this platform.
+     */
+    default boolean isSupported()
+    {
+        return true;
+    }
+
     /**
      * This method is used to identify the supplier in the event of a failure. By default, it is the package name of the
      * implementation class.
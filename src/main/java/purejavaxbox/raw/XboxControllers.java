@@ -2,11 +2,14 @@ package purejavaxbox.raw;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
-import java.util.ServiceLoader;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 /**
  * This class is the entry point into the RAW API.
@@ -14,35 +17,107 @@ import java.util.ServiceLoader;
  * Creating a new list is simple. If your platform is already supported, get the default list using {@link
  * #useDefaults()}. If you have a custom implementation of {@link XboxController}, it can be registered through the
  * {@link ServiceLoader} used in this class. Your libraries will be accessed first before the defaults are consumed.
+ * <p>
+ * Controllers handed out by this class track their connection state. Disconnected controllers are probed with an
+ * exponential backoff, see {@link #probeBackoff(long, long, TimeUnit)}, and changes are reported through {@link
+ * #connectionEvents()}.
+ * <p>
+ * {@link #composite()} merges the controllers of every factory instead, and polls each backend on its own thread so a
+ * slow backend cannot delay the others.
+ * <p>
+ * Backends may keep threads and devices open, so the controllers should be {@link #close() closed} once they are no
+ * longer used. The api closes its controllers when it is disposed.
  */
-public class XboxControllers implements Iterable<XboxController>
+public class XboxControllers implements Iterable<XboxController>, AutoCloseable
 {
     private static final Logger LOG = LoggerFactory.getLogger(XboxControllers.class);
-    private List<XboxController> controllers;
+    private final List<TrackedController> tracked;
+    private final List<XboxController> controllers;
+    private final BackendPoller[] pollers;
+    private final boolean[] requested;
+    private long ticks;
+    private volatile boolean closed;
+
+    private EmitterProcessor<ConnectionEvent> events = EmitterProcessor.create(false);
+    private FluxSink<ConnectionEvent> eventSink = events.sink(FluxSink.OverflowStrategy.DROP);
+
+    private volatile long minBackoff = TimeUnit.MILLISECONDS.toNanos(50L);
+    private volatile long maxBackoff = TimeUnit.SECONDS.toNanos(2L);
+    private volatile long pollingDeadline = TimeUnit.MILLISECONDS.toNanos(5L);
 
-    private XboxControllers(List<XboxController> controllers)
+    XboxControllers(List<XboxController> controllers)
     {
-        this.controllers = controllers;
+        this(controllers, null, false);
+    }
+
+    /**
+     * @param controllers - the controllers, in slot order.
+     * @param backends    - the backend of each controller, or null to ask the controllers.
+     * @param composite   - true to poll each backend on its own thread.
+     */
+    XboxControllers(List<XboxController> controllers, List<String> backends, boolean composite)
+    {
+        List<TrackedController> tracked = new ArrayList<>(controllers.size());
+        for (int i = 0; i < controllers.size(); i++)
+        {
+            XboxController controller = controllers.get(i);
+            tracked.add(new TrackedController(i, backends == null ? controller.backend() : backends.get(i), controller, this));
+        }
+        this.tracked = Collections.unmodifiableList(tracked);
+
+        if (!composite)
+        {
+            this.controllers = Collections.unmodifiableList(tracked);
+            this.pollers = new BackendPoller[0];
+            this.requested = new boolean[0];
+            return;
+        }
+
+        Map<String, List<TrackedController>> groups = new LinkedHashMap<>();
+        for (TrackedController controller : tracked)
+        {
+            groups
+                    .computeIfAbsent(controller.backend(), id -> new ArrayList<>())
+                    .add(controller);
+        }
+
+        XboxController[] prefetched = new XboxController[tracked.size()];
+        List<BackendPoller> pollers = new ArrayList<>(groups.size());
+        for (Map.Entry<String, List<TrackedController>> group : groups.entrySet())
+        {
+            List<TrackedController> members = group.getValue();
+            BackendPoller poller = new BackendPoller(group.getKey(), members);
+            pollers.add(poller);
+
+            for (int i = 0; i < members.size(); i++)
+            {
+                prefetched[tracked.indexOf(members.get(i))] = new PrefetchedController(members.get(i), poller, i);
+            }
+        }
+        this.controllers = Collections.unmodifiableList(Arrays.asList(prefetched));
+        this.pollers = pollers.toArray(new BackendPoller[0]);
+        this.requested = new boolean[this.pollers.length];
     }
 
     /**
      * Creates a new set of controllers from the factories found on the classpath. This method discovers factories using
-     * {@link ServiceLoader}.
+     * {@link ServiceLoader}, and uses the first supported one that finds controllers. Factories are {@link
+     * XboxControllerFactory#isSupported() probed} in parallel first, so unsupported backends never load their native
+     * libraries.
      *
      * @return a new set of controllers.
      */
     public static final XboxControllers useDefaults()
     {
-        ServiceLoader<XboxControllerFactory> factoriesOnClasspath = ServiceLoader.load(XboxControllerFactory.class);
-        for (XboxControllerFactory factory : factoriesOnClasspath)
+        for (XboxControllerFactory factory : FactoryProbes.supported(FactoryProbes.discovered()))
         {
             LOG.info("Loading controllers from factory with id = {}.", factory.getId());
 
-            List<XboxController> controllers = factory.get();
+            List<XboxController> controllers = FactoryProbes.load(factory);
 
             if (!controllers.isEmpty())
             {
-                return new XboxControllers(controllers);
+                return new XboxControllers(controllers, Collections.nCopies(controllers.size(), factory.getId()), false);
             }
         }
 
@@ -50,9 +125,69 @@ public class XboxControllers implements Iterable<XboxController>
         return new XboxControllers(Collections.emptyList());
     }
 
+    /**
+     * Creates a new set of controllers merging the controllers of every factory found on the classpath, in the order
+     * they are discovered by {@link ServiceLoader}.
+     *
+     * @return a new set of controllers.
+     * @see #composite(Iterable)
+     */
+    public static XboxControllers composite()
+    {
+        return composite(FactoryProbes.discovered());
+    }
+
+    /**
+     * Creates a new set of controllers merging the controllers of the given factories. The ids are stable: the
+     * controllers of the first factory come first, in the order of its list, then those of the second factory, and so
+     * on. Each controller reports the {@link XboxControllerFactory#getId() id} of its factory as its {@link
+     * XboxController#backend() backend}. A pad that a later factory finds again, with the same {@link
+     * XboxController#physicalId() physical id}, keeps the id given by the first factory, and the later controller is
+     * closed.
+     * <p>
+     * Each backend is polled on its own daemon thread, until the controllers are {@link #close() closed}. When the
+     * controllers are iterated, with {@link #forEach(Consumer)} as the api does on every poll or with {@link
+     * #iterator()}, every backend is asked to poll its controllers at once, and the iteration waits for them up to the
+     * {@link #pollingDeadline(long, TimeUnit) deadline}. A backend that misses it reports the results of its last
+     * completed poll, and is not asked again until it completes. Polling a controller directly only reads these
+     * results.
+     *
+     * @param factories - the factories. Unsupported factories and factories that fail are skipped.
+     * @return a new set of controllers.
+     */
+    public static XboxControllers composite(Iterable<XboxControllerFactory> factories)
+    {
+        List<XboxController> controllers = new ArrayList<>();
+        List<String> backends = new ArrayList<>();
+        Map<String, String> pads = new HashMap<>();
+
+        for (XboxControllerFactory factory : FactoryProbes.supported(factories))
+        {
+            String backend = factory.getId();
+            for (XboxController controller : FactoryProbes.load(factory))
+            {
+                String pad = controller.physicalId();
+                String listed = pad == null ? null : pads.putIfAbsent(pad, backend);
+                if (listed != null && !listed.equals(backend))
+                {
+                    LOG.info("Skipping {} from {}, which is already listed by {}.", pad, backend, listed);
+                    controller.close();
+                    continue;
+                }
+                controllers.add(controller);
+                backends.add(backend);
+            }
+        }
+        return new XboxControllers(controllers, backends, true);
+    }
+
     /**
      * Provides access to one of the controllers in the system.
      *
+     * The controllers of a {@link #composite()} set are polled by their backends whenever the set is iterated, and
+     * polling one of them only reads the results of the last iteration. A controller polled before the first iteration
+     * reports being disconnected.
+     *
      * @param id 0 to {@link XboxControllers#size() size - 1}.
      * @return a reference to the controller. Note that the controller does not have to be connected for this method to
      * work.
@@ -72,11 +207,181 @@ public class XboxControllers implements Iterable<XboxController>
         return controllers.size();
     }
 
+    /**
+     * Configures how often disconnected controllers are probed. After the first failed probe, the controller is skipped
+     * for the minimum delay. The delay doubles with every failed probe, up to the maximum. Defaults to 50 milliseconds
+     * and 2 seconds.
+     *
+     * @param min  - the delay after the first failed probe.
+     * @param max  - the largest delay between probes.
+     * @param unit - the unit of both delays.
+     * @return this.
+     */
+    public XboxControllers probeBackoff(long min, long max, TimeUnit unit)
+    {
+        this.minBackoff = unit.toNanos(min);
+        this.maxBackoff = Math.max(minBackoff, unit.toNanos(max));
+        return this;
+    }
+
+    /**
+     * Sets how long an iteration waits for the backends of {@link #composite()} controllers. Defaults to 5
+     * milliseconds. Has no effect on other sets of controllers.
+     *
+     * @param deadline - the longest wait for the backends.
+     * @param unit     - the unit of the deadline.
+     * @return this.
+     */
+    public XboxControllers pollingDeadline(long deadline, TimeUnit unit)
+    {
+        this.pollingDeadline = unit.toNanos(deadline);
+        return this;
+    }
+
+    /**
+     * Resets the backoff of every disconnected controller, so the next poll probes all of them.
+     */
+    public void probeAll()
+    {
+        for (TrackedController controller : tracked)
+        {
+            controller.probeNow();
+        }
+    }
+
+    /**
+     * Listens for controllers being connected or disconnected. Events are produced by the thread polling the
+     * controllers, when a poll finds the connection state has changed.
+     *
+     * @return the stream of connection changes.
+     */
+    public Flux<ConnectionEvent> connectionEvents()
+    {
+        return events;
+    }
+
+    /**
+     * Reports the connection tracking of every controller. Safe to call from any thread.
+     *
+     * @return the status of each controller, ordered by id.
+     */
+    public List<SlotStatus> slotStatus()
+    {
+        long now = System.nanoTime();
+        List<SlotStatus> status = new ArrayList<>(controllers.size());
+        for (TrackedController controller : tracked)
+        {
+            status.add(controller.status(now));
+        }
+        return status;
+    }
+
+    long minBackoff()
+    {
+        return minBackoff;
+    }
+
+    long maxBackoff()
+    {
+        return maxBackoff;
+    }
+
+    void publish(ConnectionEvent event)
+    {
+        LOG.debug("{}", event);
+        eventSink.next(event);
+    }
+
+    /**
+     * {@inheritDoc} For {@link #composite()} controllers, the backends are polled first, as with {@link
+     * #forEach(Consumer)}.
+     */
     @Override
     public Iterator<XboxController> iterator()
     {
-        return Collections
-                .unmodifiableList(controllers)
-                .iterator();
+        if (pollers.length > 0 && !closed)
+        {
+            prefetch();
+        }
+        return controllers.iterator();
+    }
+
+    /**
+     * {@inheritDoc} Iterates by index, so polling loops do not allocate an iterator. For {@link #composite()}
+     * controllers, the backends are polled first.
+     */
+    @Override
+    public void forEach(Consumer<? super XboxController> action)
+    {
+        if (pollers.length > 0 && !closed)
+        {
+            prefetch();
+        }
+
+        for (int i = 0; i < controllers.size(); i++)
+        {
+            action.accept(controllers.get(i));
+        }
+    }
+
+    /**
+     * Stops the backend threads of {@link #composite()} controllers, then closes every controller, which releases the
+     * threads and devices of their backends. Closed controllers report being disconnected. Closing twice does nothing.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+
+        for (BackendPoller poller : pollers)
+        {
+            poller.close();
+        }
+
+        for (int i = 0; i < tracked.size(); i++)
+        {
+            try
+            {
+                tracked
+                        .get(i)
+                        .close();
+            }
+            catch (RuntimeException e)
+            {
+                LOG.warn("Unable to close controller {}.", i, e);
+            }
+        }
+    }
+
+    /**
+     * Asks every backend that is not busy to poll, and waits for them until the deadline. Does not allocate.
+     */
+    private void prefetch()
+    {
+        long tick = ++ticks;
+        Thread current = Thread.currentThread();
+        for (int i = 0; i < pollers.length; i++)
+        {
+            requested[i] = pollers[i].request(tick, current);
+        }
+
+        long deadline = System.nanoTime() + pollingDeadline;
+        for (int i = 0; i < pollers.length; i++)
+        {
+            if (!requested[i])
+            {
+                continue;
+            }
+
+            long remaining;
+            while (!pollers[i].isDone(tick) && (remaining = deadline - System.nanoTime()) > 0L)
+            {
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
     }
 }
@@ -0,0 +1,234 @@
+package purejavaxbox.raw.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link XboxController} reading a Linux event device, such as /dev/input/event3. A daemon thread per device blocks
+ * on the device and decodes its events as they arrive, so polling only copies the latest complete report and never
+ * makes a system call. Polls are thread safe.
+ * <p>
+ * The packet number is the number of reports received, so polls skip copying when no report arrived since the last
+ * poll. When the device cannot be read, the controller is disconnected and the device is reopened every second. A
+ * stream that ends, such as a recorded file, leaves the last state in place. Closing the controller stops the reader
+ * thread and closes the device.
+ * <p>
+ * Rumble needs the force feedback ioctls, which cannot be called through a channel, so it is not supported.
+ */
+final class EvdevController implements XboxController
+{
+    private static final Logger LOG = LoggerFactory.getLogger(EvdevController.class);
+
+    private static final int EVENTS_PER_READ = 64;
+    private static final long REOPEN_DELAY = TimeUnit.SECONDS.toMillis(1L);
+
+    private final Path device;
+    private final EvdevDecoder decoder;
+    private final String physicalId;
+    private final Thread reader;
+
+    private final MutableSnapshot published = new MutableSnapshot();
+    private long reports;
+
+    private final MutableSnapshot buttonsBuffer = new MutableSnapshot();
+    private Map<XboxButton, Number> lastButtons = Collections.emptyMap();
+
+    private volatile boolean stopped;
+
+    EvdevController(Path device, EvdevDecoder decoder)
+    {
+        this(device, decoder, null);
+    }
+
+    /**
+     * @param physicalId - the unique id or the physical path of the input device, or null if it has neither.
+     */
+    EvdevController(Path device, EvdevDecoder decoder, String physicalId)
+    {
+        this.device = device;
+        this.decoder = decoder;
+        this.physicalId = physicalId;
+        this.reader = new Thread(this::read, "evdev-reader-" + device.getFileName());
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Starts the reader thread.
+     *
+     * @return this.
+     */
+    EvdevController start()
+    {
+        reader.start();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc} Stops the reader thread and waits for it to finish.
+     */
+    @Override
+    public void close()
+    {
+        stopped = true;
+        reader.interrupt();
+        try
+        {
+            reader.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread
+                    .currentThread()
+                    .interrupt();
+        }
+        disconnect();
+    }
+
+    /**
+     * Waits for the reader thread to reach the end of the stream. Used with recorded files.
+     */
+    void awaitEnd(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        reader.join(unit.toMillis(timeout));
+    }
+
+    Path device()
+    {
+        return device;
+    }
+
+    private void read()
+    {
+        ByteBuffer buffer = ByteBuffer
+                .allocateDirect(decoder.eventSize() * EVENTS_PER_READ)
+                .order(ByteOrder.nativeOrder());
+
+        while (!stopped)
+        {
+            try (FileChannel channel = FileChannel.open(device, StandardOpenOption.READ))
+            {
+                LOG.info("Reading controller events from {}.", device);
+                decoder.reset();
+                publish(decoder.pending());
+                buffer.clear();
+
+                while (!stopped)
+                {
+                    if (channel.read(buffer) < 0)
+                    {
+                        LOG.info("The events of {} ended.", device);
+                        return;
+                    }
+
+                    buffer.flip();
+                    decoder.decode(buffer, this);
+                    buffer.compact();
+                }
+            }
+            catch (ClosedByInterruptException e)
+            {
+                LOG.debug("Stopped reading {}.", device);
+            }
+            catch (IOException e)
+            {
+                disconnect();
+                LOG.debug("Unable to read {}. Retrying in {} ms.", device, REOPEN_DELAY, e);
+                sleep();
+            }
+        }
+        disconnect();
+    }
+
+    private void sleep()
+    {
+        try
+        {
+            Thread.sleep(REOPEN_DELAY);
+        }
+        catch (InterruptedException e)
+        {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Replaces the latest state with a complete report. Called from the reader thread.
+     */
+    synchronized void publish(ControllerSnapshot report)
+    {
+        published
+                .copyFrom(report)
+                .packet(++reports);
+    }
+
+    private synchronized void disconnect()
+    {
+        published.clear();
+    }
+
+    /**
+     * {@inheritDoc} The map is only rebuilt when a report arrived since the last call.
+     */
+    @Override
+    public synchronized Map<XboxButton, Number> buttons()
+    {
+        long previous = buttonsBuffer.packet();
+        if (!poll(buttonsBuffer))
+        {
+            lastButtons = Collections.emptyMap();
+        }
+        else if (lastButtons.isEmpty() || buttonsBuffer.packet() != previous)
+        {
+            lastButtons = buttonsBuffer
+                    .immutableCopy()
+                    .asMap();
+        }
+        return lastButtons;
+    }
+
+    /**
+     * {@inheritDoc} If the snapshot already holds the latest report, it is left untouched.
+     */
+    @Override
+    public synchronized boolean poll(MutableSnapshot snapshot)
+    {
+        if (!published.isConnected())
+        {
+            snapshot.clear();
+            return false;
+        }
+
+        if (!snapshot.isConnected() || snapshot.packet() != published.packet())
+        {
+            snapshot.copyFrom(published);
+        }
+        return true;
+    }
+
+    @Override
+    public void rumble(double lowFrequency, double highFrequency)
+    {
+        LOG.trace("Rumble is not supported by evdev controllers.");
+    }
+
+    @Override
+    public String physicalId()
+    {
+        return physicalId;
+    }
+}
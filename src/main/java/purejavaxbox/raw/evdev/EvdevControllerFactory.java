@@ -0,0 +1,182 @@
+package purejavaxbox.raw.evdev;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.raw.XboxController;
+import purejavaxbox.raw.XboxControllerFactory;
+import purejavaxbox.raw.util.BitUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Factory for creating controllers backed by the Linux event devices of the xpad driver. Every /dev/input/event* device
+ * that declares the gamepad buttons in sysfs becomes a controller, in the order of the device numbers. Devices are only
+ * discovered when the factory is called. Each controller reports the unique id of its input device as its physical id,
+ * or its physical path when it has none.
+ * <p>
+ * The devices must be readable by the user, which usually means being in the input group.
+ */
+public class EvdevControllerFactory implements XboxControllerFactory
+{
+    private static final Logger LOG = LoggerFactory.getLogger(EvdevControllerFactory.class);
+
+    private static final Pattern EVENT_DEVICE = Pattern.compile("event\\d+");
+    private static final int BTN_GAMEPAD = 0x130;
+
+    /**
+     * Product ids of the Xbox 360 controllers, which report triggers from 0 to 255. Later controllers report them from 0
+     * to 1023.
+     */
+    private static final List<Integer> XBOX_360_PRODUCTS = Arrays.asList(0x028e, 0x028f, 0x0291, 0x0719);
+
+    private static final List<String> PHYSICAL_IDS = Arrays.asList("uniq", "phys");
+
+    private final Path devices;
+    private final Path sysfs;
+    private final int eventSize;
+
+    public EvdevControllerFactory()
+    {
+        this(Paths.get("/dev/input"), Paths.get("/sys/class/input"), "32".equals(System.getProperty("sun.arch.data.model")) ? EvdevDecoder.EVENT_SIZE_32 : EvdevDecoder.EVENT_SIZE_64);
+    }
+
+    EvdevControllerFactory(Path devices, Path sysfs, int eventSize)
+    {
+        this.devices = devices;
+        this.sysfs = sysfs;
+        this.eventSize = eventSize;
+    }
+
+    /**
+     * {@inheritDoc} Checks that the event devices are listed in sysfs.
+     */
+    @Override
+    public boolean isSupported()
+    {
+        return Files.isDirectory(sysfs);
+    }
+
+    @Override
+    public List<XboxController> get()
+    {
+        if (!Files.isDirectory(devices))
+        {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> files = Files.list(devices))
+        {
+            List<Path> gamepads = files
+                    .filter(path -> EVENT_DEVICE
+                            .matcher(path
+                                             .getFileName()
+                                             .toString())
+                            .matches())
+                    .filter(this::isGamepad)
+                    .sorted(Comparator.comparingInt(EvdevControllerFactory::deviceNumber))
+                    .collect(Collectors.toList());
+
+            List<XboxController> controllers = new ArrayList<>(gamepads.size());
+            for (Path device : gamepads)
+            {
+                EvdevDecoder decoder = new EvdevDecoder(eventSize, triggerMax(device));
+                controllers.add(new EvdevController(device, decoder, physicalId(device)).start());
+            }
+            return controllers;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOG.warn("Unable to list the event devices in {}.", devices, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static int deviceNumber(Path device)
+    {
+        return Integer.parseInt(device
+                                        .getFileName()
+                                        .toString()
+                                        .substring("event".length()));
+    }
+
+    private Path deviceInfo(Path device, String file)
+    {
+        return sysfs
+                .resolve(device
+                                 .getFileName()
+                                 .toString())
+                .resolve("device")
+                .resolve(file);
+    }
+
+    /**
+     * The key capabilities are a bitmap, read with {@link BitUtil#isBitSet(String, int)}.
+     */
+    boolean isGamepad(Path device)
+    {
+        try
+        {
+            return BitUtil.isBitSet(readInfo(device, "capabilities/key"), BTN_GAMEPAD);
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            LOG.debug("Unable to read the capabilities of {}.", device, e);
+            return false;
+        }
+    }
+
+    int triggerMax(Path device)
+    {
+        try
+        {
+            return XBOX_360_PRODUCTS.contains(Integer.parseInt(readInfo(device, "id/product"), 16)) ? 255 : 1023;
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            return 1023;
+        }
+    }
+
+    /**
+     * The input device lists its unique id, such as the address of a Bluetooth pad, and its physical path, such as
+     * usb-0000:00:14.0-2/input0. Either may be empty.
+     *
+     * @return the unique id, else the physical path, or null if the device has neither.
+     */
+    String physicalId(Path device)
+    {
+        for (String file : PHYSICAL_IDS)
+        {
+            try
+            {
+                String id = readInfo(device, file);
+                if (!id.isEmpty())
+                {
+                    return id;
+                }
+            }
+            catch (IOException e)
+            {
+                LOG.debug("Unable to read the {} of {}.", file, device, e);
+            }
+        }
+        return null;
+    }
+
+    private String readInfo(Path device, String file) throws IOException
+    {
+        return new String(Files.readAllBytes(deviceInfo(device, file)), StandardCharsets.US_ASCII).trim();
+    }
+}
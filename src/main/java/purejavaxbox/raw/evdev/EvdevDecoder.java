@@ -0,0 +1,296 @@
+package purejavaxbox.raw.evdev;
+
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.nio.ByteBuffer;
+
+import static purejavaxbox.XboxButton.*;
+
+/**
+ * Decodes the {@code struct input_event} records produced by the xpad driver into a {@link MutableSnapshot}. Records
+ * are read in place from the buffer, and events accumulate in a pending snapshot until the driver closes the report
+ * with {@code SYN_REPORT}.
+ * <p>
+ * A record is a {@code struct timeval} followed by a 16-bit type, a 16-bit code and a 32-bit value, in native byte
+ * order. The time is 16 bytes with 64-bit longs, and 8 bytes with 32-bit longs. The time is not used, polls are
+ * stamped by the poller.
+ */
+final class EvdevDecoder
+{
+    /**
+     * The size of a record when longs are 64-bit.
+     */
+    static final int EVENT_SIZE_64 = 24;
+    /**
+     * The size of a record when longs are 32-bit.
+     */
+    static final int EVENT_SIZE_32 = 16;
+
+    static final int EV_SYN = 0x00;
+    static final int EV_KEY = 0x01;
+    static final int EV_ABS = 0x03;
+
+    static final int SYN_REPORT = 0;
+    static final int SYN_DROPPED = 3;
+
+    static final int BTN_A = 0x130;
+    static final int BTN_B = 0x131;
+    static final int BTN_X = 0x133;
+    static final int BTN_Y = 0x134;
+    static final int BTN_TL = 0x136;
+    static final int BTN_TR = 0x137;
+    static final int BTN_SELECT = 0x13a;
+    static final int BTN_START = 0x13b;
+    static final int BTN_MODE = 0x13c;
+    static final int BTN_THUMBL = 0x13d;
+    static final int BTN_THUMBR = 0x13e;
+    /**
+     * xpad reports the directional pad as BTN_TRIGGER_HAPPY1 to 4 (left, right, up, down) when dpad_to_buttons is set.
+     */
+    static final int BTN_DPAD_FIRST = 0x2c0;
+
+    static final int ABS_X = 0x00;
+    static final int ABS_Y = 0x01;
+    static final int ABS_Z = 0x02;
+    static final int ABS_RX = 0x03;
+    static final int ABS_RY = 0x04;
+    static final int ABS_RZ = 0x05;
+    static final int ABS_HAT0X = 0x10;
+    static final int ABS_HAT0Y = 0x11;
+
+    private static final XboxButton[] DPAD_KEYS = {DPAD_LEFT, DPAD_RIGHT, DPAD_UP, DPAD_DOWN};
+    private static final int DPAD_MASK = DPAD_UP.mask() | DPAD_DOWN.mask() | DPAD_LEFT.mask() | DPAD_RIGHT.mask();
+
+    private final int eventSize;
+    private final double triggerMax;
+    private final MutableSnapshot pending = new MutableSnapshot();
+
+    private int hatMask;
+    private int keyDpadMask;
+    private boolean dropped;
+
+    /**
+     * @param eventSize  - the size of a record, {@link #EVENT_SIZE_64} or {@link #EVENT_SIZE_32}.
+     * @param triggerMax - the value of a fully pressed trigger. 255 for Xbox 360 controllers, 1023 for Xbox One.
+     */
+    EvdevDecoder(int eventSize, int triggerMax)
+    {
+        this.eventSize = eventSize;
+        this.triggerMax = triggerMax;
+        reset();
+    }
+
+    int eventSize()
+    {
+        return eventSize;
+    }
+
+    /**
+     * Forgets the pending state. Called when the device is opened.
+     */
+    void reset()
+    {
+        pending
+                .clear()
+                .connected(true);
+        hatMask = 0;
+        keyDpadMask = 0;
+        dropped = false;
+    }
+
+    /**
+     * @return the state accumulated so far. Complete once a report ends.
+     */
+    MutableSnapshot pending()
+    {
+        return pending;
+    }
+
+    /**
+     * Decodes every complete record between the position and the limit of the buffer. The position is left at the
+     * first incomplete record.
+     *
+     * @param buffer     - the records, in native byte order.
+     * @param controller - receives the state at the end of every report.
+     * @return the number of reports that ended.
+     */
+    int decode(ByteBuffer buffer, EvdevController controller)
+    {
+        int reports = 0;
+        int position = buffer.position();
+        int end = buffer.limit() - eventSize;
+
+        for (; position <= end; position += eventSize)
+        {
+            int type = Short.toUnsignedInt(buffer.getShort(position + eventSize - 8));
+            int code = Short.toUnsignedInt(buffer.getShort(position + eventSize - 6));
+            int value = buffer.getInt(position + eventSize - 4);
+
+            if (event(type, code, value))
+            {
+                controller.publish(pending);
+                reports++;
+            }
+        }
+
+        buffer.position(position);
+        return reports;
+    }
+
+    /**
+     * Applies a single event.
+     *
+     * @return true if the event ends a report.
+     */
+    boolean event(int type, int code, int value)
+    {
+        if (type == EV_SYN)
+        {
+            return syn(code);
+        }
+
+        if (dropped)
+        {
+            return false;
+        }
+
+        if (type == EV_KEY)
+        {
+            key(code, value != 0);
+        }
+        else if (type == EV_ABS)
+        {
+            abs(code, value);
+        }
+        return false;
+    }
+
+    /**
+     * After SYN_DROPPED, the kernel asks readers to ignore events up to and including the next SYN_REPORT, and to query
+     * the device for the state it lost. Channels cannot query the device, so every button is released instead, and the
+     * report ending the drop publishes that. A button held through the drop then reads as released until it changes
+     * again, rather than staying pressed forever when it was released during the drop. The axes keep their last value
+     * until they move.
+     */
+    private boolean syn(int code)
+    {
+        if (code == SYN_DROPPED)
+        {
+            dropped = true;
+            pending.buttons(0);
+            hatMask = 0;
+            keyDpadMask = 0;
+            return false;
+        }
+
+        if (code == SYN_REPORT)
+        {
+            dropped = false;
+            return true;
+        }
+        return false;
+    }
+
+    private void key(int code, boolean pressed)
+    {
+        switch (code)
+        {
+            case BTN_A:
+                pending.pressed(A, pressed);
+                break;
+            case BTN_B:
+                pending.pressed(B, pressed);
+                break;
+            case BTN_X:
+                pending.pressed(X, pressed);
+                break;
+            case BTN_Y:
+                pending.pressed(Y, pressed);
+                break;
+            case BTN_TL:
+                pending.pressed(LEFT_BUMPER, pressed);
+                break;
+            case BTN_TR:
+                pending.pressed(RIGHT_BUMPER, pressed);
+                break;
+            case BTN_SELECT:
+                pending.pressed(BACK, pressed);
+                break;
+            case BTN_START:
+                pending.pressed(START, pressed);
+                break;
+            case BTN_MODE:
+                pending.pressed(GUIDE, pressed);
+                break;
+            case BTN_THUMBL:
+                pending.pressed(LEFT_STICK_BUTTON, pressed);
+                break;
+            case BTN_THUMBR:
+                pending.pressed(RIGHT_STICK_BUTTON, pressed);
+                break;
+            default:
+                int dpad = code - BTN_DPAD_FIRST;
+                if (0 <= dpad && dpad < DPAD_KEYS.length)
+                {
+                    int mask = DPAD_KEYS[dpad].mask();
+                    keyDpadMask = pressed ? keyDpadMask | mask : keyDpadMask & ~mask;
+                    updateDpad();
+                }
+        }
+    }
+
+    /**
+     * Linux reports up as negative on the vertical axes, so they are inverted. xpad inverts them with a bitwise not, so
+     * the same is used to recover the exact value.
+     */
+    private void abs(int code, int value)
+    {
+        switch (code)
+        {
+            case ABS_X:
+                pending.value(LEFT_STICK_HORIZONTAL, normalizeStick(value));
+                break;
+            case ABS_Y:
+                pending.value(LEFT_STICK_VERTICAL, normalizeStick(~value));
+                break;
+            case ABS_RX:
+                pending.value(RIGHT_STICK_HORIZONTAL, normalizeStick(value));
+                break;
+            case ABS_RY:
+                pending.value(RIGHT_STICK_VERTICAL, normalizeStick(~value));
+                break;
+            case ABS_Z:
+                pending.value(LEFT_TRIGGER, normalizeTrigger(value));
+                break;
+            case ABS_RZ:
+                pending.value(RIGHT_TRIGGER, normalizeTrigger(value));
+                break;
+            case ABS_HAT0X:
+                hatMask = (hatMask & ~(DPAD_LEFT.mask() | DPAD_RIGHT.mask())) | (value < 0 ? DPAD_LEFT.mask() : value > 0 ? DPAD_RIGHT.mask() : 0);
+                updateDpad();
+                break;
+            case ABS_HAT0Y:
+                hatMask = (hatMask & ~(DPAD_UP.mask() | DPAD_DOWN.mask())) | (value < 0 ? DPAD_UP.mask() : value > 0 ? DPAD_DOWN.mask() : 0);
+                updateDpad();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void updateDpad()
+    {
+        pending.buttons((pending.buttons() & ~DPAD_MASK) | hatMask | keyDpadMask);
+    }
+
+    private double normalizeTrigger(int value)
+    {
+        return Math.max(0.0, Math.min(1.0, value / triggerMax));
+    }
+
+    static double normalizeStick(int value)
+    {
+        return (short) value / (double) Short.MAX_VALUE;
+    }
+}
@@ -0,0 +1,307 @@
+package purejavaxbox.raw.hidraw;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link XboxController} reading the raw HID reports of a controller, such as /dev/hidraw2. A daemon thread per
+ * device blocks on the device, and each read returns a single report, which is decoded in place from a direct buffer
+ * with the offsets of its {@link ReportLayout}. Polling only copies the latest decoded report, and never makes a system
+ * call. Polls are thread safe.
+ * <p>
+ * The packet number is the number of reports decoded, so polls skip copying when no report arrived since the last poll.
+ * Reports with another id, such as battery reports, are ignored. When the device cannot be read, the controller is
+ * disconnected and the device is reopened every second. A stream that ends, such as a captured report, leaves the last
+ * state in place. Closing the controller stops the reader thread and closes the device.
+ */
+final class HidrawController implements XboxController
+{
+    private static final Logger LOG = LoggerFactory.getLogger(HidrawController.class);
+
+    private static final int MAX_REPORT_SIZE = 4096;
+    private static final long REOPEN_DELAY = TimeUnit.SECONDS.toMillis(1L);
+
+    private final Path device;
+    private final ReportLayout layout;
+    private final String physicalId;
+    private final Thread reader;
+
+    private final MutableSnapshot decoded = new MutableSnapshot();
+    private final MutableSnapshot published = new MutableSnapshot();
+    private long reports;
+
+    private final MutableSnapshot buttonsBuffer = new MutableSnapshot();
+    private Map<XboxButton, Number> lastButtons = Collections.emptyMap();
+
+    private final Object writeLock = new Object();
+    private final ByteBuffer output;
+    private FileChannel writer;
+
+    private volatile boolean stopped;
+
+    HidrawController(Path device, ReportLayout layout)
+    {
+        this(device, layout, null);
+    }
+
+    /**
+     * @param physicalId - the unique id or the physical path of the HID device, or null if it has neither.
+     */
+    HidrawController(Path device, ReportLayout layout, String physicalId)
+    {
+        this.device = device;
+        this.layout = layout;
+        this.physicalId = physicalId;
+        this.output = ByteBuffer.allocateDirect(Math.max(1, layout.rumbleLength()));
+        this.reader = new Thread(this::read, "hidraw-reader-" + device.getFileName());
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * Starts the reader thread.
+     *
+     * @return this.
+     */
+    HidrawController start()
+    {
+        reader.start();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc} Stops the reader thread, waits for it to finish and closes the rumble channel.
+     */
+    @Override
+    public void close()
+    {
+        stopped = true;
+        reader.interrupt();
+        try
+        {
+            reader.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread
+                    .currentThread()
+                    .interrupt();
+        }
+        synchronized (writeLock)
+        {
+            closeWriter();
+        }
+        disconnect();
+    }
+
+    /**
+     * Waits for the reader thread to reach the end of the stream. Used with captured reports.
+     */
+    void awaitEnd(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        reader.join(unit.toMillis(timeout));
+    }
+
+    Path device()
+    {
+        return device;
+    }
+
+    ReportLayout layout()
+    {
+        return layout;
+    }
+
+    private void read()
+    {
+        ByteBuffer buffer = ByteBuffer
+                .allocateDirect(MAX_REPORT_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        while (!stopped)
+        {
+            try (FileChannel channel = FileChannel.open(device, StandardOpenOption.READ))
+            {
+                LOG.info("Reading {} reports from {}.", layout, device);
+                connect();
+
+                while (!stopped)
+                {
+                    buffer.clear();
+                    if (channel.read(buffer) < 0)
+                    {
+                        LOG.info("The reports of {} ended.", device);
+                        return;
+                    }
+
+                    buffer.flip();
+                    accept(buffer);
+                }
+            }
+            catch (ClosedByInterruptException e)
+            {
+                LOG.debug("Stopped reading {}.", device);
+            }
+            catch (IOException e)
+            {
+                disconnect();
+                LOG.debug("Unable to read {}. Retrying in {} ms.", device, REOPEN_DELAY, e);
+                sleep();
+            }
+        }
+        disconnect();
+    }
+
+    private void sleep()
+    {
+        try
+        {
+            Thread.sleep(REOPEN_DELAY);
+        }
+        catch (InterruptedException e)
+        {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Decodes a report, and publishes it if it matches the layout. Called from the reader thread.
+     *
+     * @param report - a single report, from index 0 to the limit.
+     * @return true if the report was published.
+     */
+    boolean accept(ByteBuffer report)
+    {
+        if (!layout.matches(report))
+        {
+            return false;
+        }
+
+        layout.decode(report, decoded);
+        synchronized (this)
+        {
+            published
+                    .copyFrom(decoded)
+                    .packet(++reports);
+        }
+        return true;
+    }
+
+    private synchronized void connect()
+    {
+        published
+                .clear()
+                .connected(true)
+                .packet(++reports);
+    }
+
+    private synchronized void disconnect()
+    {
+        published.clear();
+    }
+
+    /**
+     * {@inheritDoc} The map is only rebuilt when a report arrived since the last call.
+     */
+    @Override
+    public synchronized Map<XboxButton, Number> buttons()
+    {
+        long previous = buttonsBuffer.packet();
+        if (!poll(buttonsBuffer))
+        {
+            lastButtons = Collections.emptyMap();
+        }
+        else if (lastButtons.isEmpty() || buttonsBuffer.packet() != previous)
+        {
+            lastButtons = buttonsBuffer
+                    .immutableCopy()
+                    .asMap();
+        }
+        return lastButtons;
+    }
+
+    /**
+     * {@inheritDoc} If the snapshot already holds the latest report, it is left untouched.
+     */
+    @Override
+    public synchronized boolean poll(MutableSnapshot snapshot)
+    {
+        if (!published.isConnected())
+        {
+            snapshot.clear();
+            return false;
+        }
+
+        if (!snapshot.isConnected() || snapshot.packet() != published.packet())
+        {
+            snapshot.copyFrom(published);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} Writes the output report of the layout through its own channel and under its own lock, so a
+     * blocking write neither waits for nor stalls the reader thread and polls. Layouts without a rumble report ignore
+     * this call.
+     */
+    @Override
+    public void rumble(double lowFrequency, double highFrequency)
+    {
+        synchronized (writeLock)
+        {
+            if (stopped || !layout.rumble(output, lowFrequency, highFrequency))
+            {
+                return;
+            }
+
+            try
+            {
+                if (writer == null)
+                {
+                    writer = FileChannel.open(device, StandardOpenOption.WRITE);
+                }
+                writer.write(output);
+            }
+            catch (IOException e)
+            {
+                LOG.debug("Unable to rumble {}.", device, e);
+                closeWriter();
+            }
+        }
+    }
+
+    @Override
+    public String physicalId()
+    {
+        return physicalId;
+    }
+
+    private void closeWriter()
+    {
+        try
+        {
+            if (writer != null)
+            {
+                writer.close();
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.trace("", e);
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,212 @@
+package purejavaxbox.raw.hidraw;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import purejavaxbox.raw.XboxController;
+import purejavaxbox.raw.XboxControllerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Factory for creating controllers backed by Linux raw HID devices. Every /dev/hidraw* device whose vendor and product
+ * have a {@link ReportLayout report layout} becomes a controller, in the order of the device numbers. Devices are only
+ * discovered when the factory is called. Each controller reports the unique id of its HID device as its physical id, or
+ * its physical path when it has none, so composite controllers list pads that the evdev backend also finds only once.
+ * <p>
+ * The layouts shipped with the library are in layouts.properties next to this class. More layouts can be added, or
+ * shipped ones replaced, with a properties file named by the {@value #LAYOUTS_PROPERTY} system property. The devices must
+ * be readable by the user, and writable for rumble, which usually needs a udev rule.
+ */
+public class HidrawControllerFactory implements XboxControllerFactory
+{
+    /**
+     * The system property naming a file of additional report layouts.
+     */
+    public static final String LAYOUTS_PROPERTY = "purejavaxbox.hidraw.layouts";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HidrawControllerFactory.class);
+
+    private static final Pattern HIDRAW_DEVICE = Pattern.compile("hidraw\\d+");
+    private static final Pattern HID_ID = Pattern.compile("HID_ID=([0-9A-Fa-f]+):([0-9A-Fa-f]+):([0-9A-Fa-f]+)");
+    private static final Pattern HID_UNIQ = Pattern.compile("(?m)^HID_UNIQ=(.+)$");
+    private static final Pattern HID_PHYS = Pattern.compile("(?m)^HID_PHYS=(.+)$");
+
+    private final Path devices;
+    private final Path sysfs;
+    private final Properties layouts;
+
+    public HidrawControllerFactory()
+    {
+        this(Paths.get("/dev"), Paths.get("/sys/class/hidraw"), null);
+    }
+
+    /**
+     * @param layouts - the layouts to use, or null for the shipped layouts and the ones named by the system property.
+     */
+    HidrawControllerFactory(Path devices, Path sysfs, Properties layouts)
+    {
+        this.devices = devices;
+        this.sysfs = sysfs;
+        this.layouts = layouts;
+    }
+
+    /**
+     * {@inheritDoc} Checks that the raw HID devices are listed in sysfs.
+     */
+    @Override
+    public boolean isSupported()
+    {
+        return Files.isDirectory(sysfs);
+    }
+
+    @Override
+    public List<XboxController> get()
+    {
+        if (!Files.isDirectory(sysfs))
+        {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> files = Files.list(sysfs))
+        {
+            Map<String, ReportLayout> known = ReportLayout.load(layouts == null ? defaultLayouts() : layouts);
+
+            List<String> names = files
+                    .map(path -> path
+                            .getFileName()
+                            .toString())
+                    .filter(name -> HIDRAW_DEVICE
+                            .matcher(name)
+                            .matches())
+                    .sorted(Comparator.comparingInt(HidrawControllerFactory::deviceNumber))
+                    .collect(Collectors.toList());
+
+            List<XboxController> controllers = new ArrayList<>();
+            for (String name : names)
+            {
+                String id = productOf(name);
+                ReportLayout layout = id == null ? null : known.get(id);
+                if (layout != null)
+                {
+                    LOG.info("Found {} at {}.", layout, name);
+                    controllers.add(new HidrawController(devices.resolve(name), layout, physicalIdOf(name)).start());
+                }
+            }
+            return controllers;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOG.warn("Unable to list the raw HID devices in {}.", sysfs, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static int deviceNumber(String name)
+    {
+        return Integer.parseInt(name.substring("hidraw".length()));
+    }
+
+    /**
+     * The uevent of the HID device holds a line such as HID_ID=0005:0000045E:000002FD, with the bus, the vendor and
+     * the product.
+     *
+     * @return the layout key of the device, or null if it cannot be read.
+     */
+    String productOf(String name)
+    {
+        try
+        {
+            Matcher matcher = HID_ID.matcher(uevent(name));
+            if (matcher.find())
+            {
+                return ReportLayout.key(Integer.parseInt(matcher.group(2), 16), Integer.parseInt(matcher.group(3), 16));
+            }
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            LOG.debug("Unable to identify {}.", name, e);
+        }
+        return null;
+    }
+
+    /**
+     * The uevent of the HID device also holds its unique id, such as HID_UNIQ=7c:ed:8d:12:34:56 for a Bluetooth pad, and
+     * its physical path, such as HID_PHYS=usb-0000:00:14.0-2/input0. The input devices the HID drivers create copy both.
+     *
+     * @return the unique id of the device, else its physical path, or null if it has neither.
+     */
+    String physicalIdOf(String name)
+    {
+        try
+        {
+            String uevent = uevent(name);
+            Matcher uniq = HID_UNIQ.matcher(uevent);
+            if (uniq.find())
+            {
+                return uniq
+                        .group(1)
+                        .trim();
+            }
+
+            Matcher phys = HID_PHYS.matcher(uevent);
+            if (phys.find())
+            {
+                return phys
+                        .group(1)
+                        .trim();
+            }
+        }
+        catch (IOException e)
+        {
+            LOG.debug("Unable to read the physical id of {}.", name, e);
+        }
+        return null;
+    }
+
+    private String uevent(String name) throws IOException
+    {
+        return new String(Files.readAllBytes(sysfs
+                                                     .resolve(name)
+                                                     .resolve("device")
+                                                     .resolve("uevent")), StandardCharsets.US_ASCII);
+    }
+
+    static Properties defaultLayouts()
+    {
+        Properties properties = new Properties();
+        try (InputStream shipped = HidrawControllerFactory.class.getResourceAsStream("layouts.properties"))
+        {
+            properties.load(shipped);
+
+            String extra = System.getProperty(LAYOUTS_PROPERTY);
+            if (extra != null)
+            {
+                try (InputStream file = Files.newInputStream(Paths.get(extra)))
+                {
+                    properties.load(file);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,381 @@
+package purejavaxbox.raw.hidraw;
+
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static purejavaxbox.XboxButton.*;
+
+/**
+ * Describes where each button, stick and trigger is found in the input report of a controller revision, and decodes
+ * reports in place with these fixed offsets. Layouts are read from properties, so revisions can be added without code
+ * changes, see {@link HidrawControllerFactory}. Each layout is a group of keys sharing a prefix:
+ * <pre>
+ * xbox-one-s.ids=045e:02fd,045e:0b13       vendor:product pairs using this layout.
+ * xbox-one-s.reportId=1                    the first byte of the reports to decode, other reports are ignored.
+ * xbox-one-s.length=17                     the minimum length of a report, including the id.
+ * xbox-one-s.LEFT_STICK_VERTICAL=u16@3,inverted
+ * xbox-one-s.LEFT_TRIGGER=u16@9,max=1023   analogs: u8, u16 or s16 (little endian) at an offset.
+ * xbox-one-s.A=14.0                        buttons: byte offset and bit.
+ * xbox-one-s.hat=13,up=1                   a directional pad reported as a hat, clockwise from up, with 0 as neutral.
+ * xbox-one-s.rumble=03 0f 00 00 L H ff 00 ff  an output report, where L and H are the motor speeds.
+ * xbox-one-s.rumbleMax=100                 the value of a motor at full speed.
+ * </pre>
+ * Sticks are centered in the middle of their type, and triggers start at 0. The maximum of an analog defaults to the
+ * largest value of its type.
+ */
+final class ReportLayout
+{
+    private static final int U8 = 0;
+    private static final int U16 = 1;
+    private static final int S16 = 2;
+
+    private static final int FIRST_ANALOG = LEFT_STICK_VERTICAL.ordinal();
+    private static final int ANALOG_COUNT = RIGHT_TRIGGER.ordinal() - FIRST_ANALOG + 1;
+    private static final int BUTTON_COUNT = FIRST_ANALOG;
+    private static final XboxButton[] ANALOGS = Arrays.copyOfRange(XboxButton.values(), FIRST_ANALOG, FIRST_ANALOG + ANALOG_COUNT);
+
+    /**
+     * The directions of the hat, clockwise from up.
+     */
+    private static final int[] HAT_MASKS = {DPAD_UP.mask(), DPAD_UP.mask() | DPAD_RIGHT.mask(), DPAD_RIGHT.mask(), DPAD_DOWN.mask() | DPAD_RIGHT.mask(), DPAD_DOWN.mask(), DPAD_DOWN.mask() | DPAD_LEFT.mask(), DPAD_LEFT.mask(), DPAD_UP.mask() | DPAD_LEFT.mask()};
+
+    private final String name;
+    private final int reportId;
+    private final int length;
+
+    private final int[] analogOffset = new int[ANALOG_COUNT];
+    private final int[] analogType = new int[ANALOG_COUNT];
+    private final double[] analogCenter = new double[ANALOG_COUNT];
+    private final double[] analogScale = new double[ANALOG_COUNT];
+    private final double[] analogMin = new double[ANALOG_COUNT];
+
+    private final int[] buttonOffset = new int[BUTTON_COUNT];
+    private final int[] buttonBit = new int[BUTTON_COUNT];
+
+    private int hatOffset = -1;
+    private int hatUp = 1;
+
+    private byte[] rumble;
+    private int rumbleLow = -1;
+    private int rumbleHigh = -1;
+    private int rumbleMax = 255;
+
+    private ReportLayout(String name, Properties properties)
+    {
+        this.name = name;
+        this.reportId = Integer.parseInt(properties.getProperty(name + ".reportId", "-1"));
+        this.length = Integer.parseInt(required(properties, name + ".length"));
+
+        Arrays.fill(analogOffset, -1);
+        Arrays.fill(buttonOffset, -1);
+
+        for (XboxButton button : XboxButton.values())
+        {
+            String spec = properties.getProperty(name + "." + button.name());
+            if (spec == null)
+            {
+                continue;
+            }
+
+            if (button.isAnalog())
+            {
+                parseAnalog(button, spec);
+            }
+            else if (button.ordinal() < BUTTON_COUNT)
+            {
+                String[] parts = spec
+                        .trim()
+                        .split("\\.");
+                buttonOffset[button.ordinal()] = checkOffset(Integer.parseInt(parts[0]), 1, spec);
+                buttonBit[button.ordinal()] = Integer.parseInt(parts[1]);
+            }
+        }
+
+        String hat = properties.getProperty(name + ".hat");
+        if (hat != null)
+        {
+            String[] parts = hat.split(",");
+            hatOffset = checkOffset(Integer.parseInt(parts[0].trim()), 1, hat);
+            for (int i = 1; i < parts.length; i++)
+            {
+                String[] option = parts[i]
+                        .trim()
+                        .split("=");
+                if ("up".equals(option[0]))
+                {
+                    hatUp = Integer.parseInt(option[1]);
+                }
+            }
+        }
+
+        String report = properties.getProperty(name + ".rumble");
+        if (report != null)
+        {
+            parseRumble(report.trim());
+            rumbleMax = Integer.parseInt(properties.getProperty(name + ".rumbleMax", "255"));
+        }
+    }
+
+    /**
+     * Reads every layout defined in the properties.
+     *
+     * @param properties - the layouts.
+     * @return the layouts, keyed by "vendor:product" in lower case hexadecimal, without leading zeros.
+     * @throws IllegalArgumentException if a layout is malformed.
+     */
+    static Map<String, ReportLayout> load(Properties properties)
+    {
+        Map<String, ReportLayout> layouts = new HashMap<>();
+        for (String key : properties.stringPropertyNames())
+        {
+            if (!key.endsWith(".ids"))
+            {
+                continue;
+            }
+
+            String name = key.substring(0, key.length() - ".ids".length());
+            ReportLayout layout;
+            try
+            {
+                layout = new ReportLayout(name, properties);
+            }
+            catch (RuntimeException e)
+            {
+                throw new IllegalArgumentException("Malformed report layout " + name + ": " + e.getMessage(), e);
+            }
+
+            for (String id : properties
+                    .getProperty(key)
+                    .split(","))
+            {
+                String[] parts = id
+                        .trim()
+                        .split(":");
+                layouts.put(key(Integer.parseInt(parts[0], 16), Integer.parseInt(parts[1], 16)), layout);
+            }
+        }
+        return layouts;
+    }
+
+    static String key(int vendor, int product)
+    {
+        return Integer.toHexString(vendor) + ":" + Integer.toHexString(product);
+    }
+
+    private static String required(Properties properties, String key)
+    {
+        String value = properties.getProperty(key);
+        if (value == null)
+        {
+            throw new IllegalArgumentException(key + " is missing.");
+        }
+        return value.trim();
+    }
+
+    private int checkOffset(int offset, int size, String spec)
+    {
+        if (offset < 0 || offset + size > length)
+        {
+            throw new IllegalArgumentException(spec + " is outside of the report.");
+        }
+        return offset;
+    }
+
+    private void parseAnalog(XboxButton button, String spec)
+    {
+        int i = button.ordinal() - FIRST_ANALOG;
+        String[] parts = spec.split(",");
+        String[] field = parts[0]
+                .trim()
+                .toLowerCase(Locale.ROOT)
+                .split("@");
+
+        int type;
+        int max;
+        switch (field[0])
+        {
+            case "u8":
+                type = U8;
+                max = 0xFF;
+                break;
+            case "u16":
+                type = U16;
+                max = 0xFFFF;
+                break;
+            case "s16":
+                type = S16;
+                max = Short.MAX_VALUE;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown type " + field[0] + " in " + spec);
+        }
+
+        boolean inverted = false;
+        for (int p = 1; p < parts.length; p++)
+        {
+            String option = parts[p].trim();
+            if ("inverted".equals(option))
+            {
+                inverted = true;
+            }
+            else if (option.startsWith("max="))
+            {
+                max = Integer.parseInt(option.substring("max=".length()));
+            }
+        }
+
+        boolean trigger = button == LEFT_TRIGGER || button == RIGHT_TRIGGER;
+        double center = trigger || type == S16 ? 0.0 : (max + 1) / 2;
+        analogOffset[i] = checkOffset(Integer.parseInt(field[1]), type == U8 ? 1 : 2, spec);
+        analogType[i] = type;
+        analogCenter[i] = center;
+        analogScale[i] = (inverted ? -1.0 : 1.0) / (max - center);
+        analogMin[i] = trigger ? 0.0 : -1.0;
+    }
+
+    private void parseRumble(String report)
+    {
+        String[] bytes = report.split("\\s+");
+        rumble = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            if ("L".equals(bytes[i]))
+            {
+                rumbleLow = i;
+            }
+            else if ("H".equals(bytes[i]))
+            {
+                rumbleHigh = i;
+            }
+            else
+            {
+                rumble[i] = (byte) Integer.parseInt(bytes[i], 16);
+            }
+        }
+    }
+
+    String name()
+    {
+        return name;
+    }
+
+    int length()
+    {
+        return length;
+    }
+
+    /**
+     * @param report - a report, from position 0 to the limit.
+     * @return true if the report has the id and the length of this layout.
+     */
+    boolean matches(ByteBuffer report)
+    {
+        return report.limit() >= length && (reportId < 0 || Byte.toUnsignedInt(report.get(0)) == reportId);
+    }
+
+    /**
+     * Decodes a report with absolute reads, without allocating.
+     *
+     * @param report   - the report, in little endian order, starting at index 0.
+     * @param snapshot - the snapshot to fill. Its packet is left untouched.
+     */
+    void decode(ByteBuffer report, MutableSnapshot snapshot)
+    {
+        int mask = 0;
+        for (int b = 0; b < BUTTON_COUNT; b++)
+        {
+            int offset = buttonOffset[b];
+            if (offset >= 0 && (report.get(offset) >>> buttonBit[b] & 1) == 1)
+            {
+                mask |= 1 << b;
+            }
+        }
+
+        if (hatOffset >= 0)
+        {
+            int direction = Byte.toUnsignedInt(report.get(hatOffset)) - hatUp;
+            if (0 <= direction && direction < HAT_MASKS.length)
+            {
+                mask |= HAT_MASKS[direction];
+            }
+        }
+        snapshot
+                .connected(true)
+                .buttons(mask);
+
+        for (int i = 0; i < ANALOG_COUNT; i++)
+        {
+            int offset = analogOffset[i];
+            double value = 0.0;
+            if (offset >= 0)
+            {
+                value = (raw(report, offset, analogType[i]) - analogCenter[i]) * analogScale[i];
+                value = Math.max(analogMin[i], Math.min(1.0, value));
+            }
+            snapshot.value(ANALOGS[i], value);
+        }
+    }
+
+    private static int raw(ByteBuffer report, int offset, int type)
+    {
+        switch (type)
+        {
+            case U8:
+                return Byte.toUnsignedInt(report.get(offset));
+            case U16:
+                return Short.toUnsignedInt(report.getShort(offset));
+            default:
+                return report.getShort(offset);
+        }
+    }
+
+    /**
+     * Fills the rumble output report.
+     *
+     * @param report - receives the report.
+     * @return false if this layout does not support rumble.
+     */
+    boolean rumble(ByteBuffer report, double lowFrequency, double highFrequency)
+    {
+        if (rumble == null)
+        {
+            return false;
+        }
+
+        report.clear();
+        report.put(rumble);
+        if (rumbleLow >= 0)
+        {
+            report.put(rumbleLow, speed(lowFrequency));
+        }
+        if (rumbleHigh >= 0)
+        {
+            report.put(rumbleHigh, speed(highFrequency));
+        }
+        report.flip();
+        return true;
+    }
+
+    int rumbleLength()
+    {
+        return rumble == null ? 0 : rumble.length;
+    }
+
+    private byte speed(double value)
+    {
+        return (byte) Math.round(Math.max(0.0, Math.min(1.0, value)) * rumbleMax);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
@@ -31,4 +31,33 @@ public final class BitUtil
         int xor = 1 << index;
         return (target & xor) > 0 ? 1 : 0;
     }
+
+    /**
+     * Tests a bit of a bitmap printed by the Linux kernel, such as the key capabilities of an input device in sysfs.
+     * The bitmap is printed as hexadecimal words, most significant first, and each word is a long of the kernel: 64
+     * bits on 64-bit kernels and 32 bits on 32-bit ones. Words are printed without leading zeros, so the bitmap is read
+     * as 64-bit words when any word is wider than 8 digits, and as 32-bit words otherwise.
+     *
+     * @param bitmap - the printed bitmap, such as "7fff000000000000 0 0 0 0".
+     * @param index  - the index of the bit, counted from the least significant bit of the last word.
+     * @return true if the bit is set. Bits beyond the printed words are not set.
+     * @throws NumberFormatException if a word is not hexadecimal.
+     */
+    public static boolean isBitSet(String bitmap, int index)
+    {
+        String[] words = bitmap
+                .trim()
+                .split("\\s+");
+        int bits = Integer.SIZE;
+        for (String word : words)
+        {
+            if (word.length() > Integer.SIZE / 4)
+            {
+                bits = Long.SIZE;
+            }
+        }
+
+        int word = words.length - 1 - index / bits;
+        return word >= 0 && (Long.parseUnsignedLong(words[word], 16) >>> (index % bits) & 1L) == 1L;
+    }
 }
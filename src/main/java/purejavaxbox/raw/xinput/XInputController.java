@@ -1,38 +1,35 @@
 package purejavaxbox.raw.xinput;
 
 import com.sun.jna.Function;
+import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Pointer;
 import com.sun.jna.platform.win32.Kernel32;
 import com.sun.jna.platform.win32.WinDef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
 import purejavaxbox.raw.XboxController;
-import purejavaxbox.raw.util.BitUtil;
 
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.Map;
 
-import static purejavaxbox.XboxButton.*;
-
 /**
  * The implementation of XboxController for the Windows operating system. Supports Windows 7+.
  * <p>
  * On Windows 7, you must install XBox Accessories, which will install the xinput1_3.dll. Windows 8 and 10 come with
  * XInput1_4.dll by default.
+ * <p>
+ * The state is written by the driver into preallocated native memory, passed as a plain pointer, and decoded in place,
+ * so polling skips JNA's reflective structure copies. The call itself still goes through {@link Function#invokeInt},
+ * which copies the argument array and boxes the result on every call, so each poll allocates a few dozen bytes. Direct
+ * mapping would avoid both, but it binds functions by name, and XInputGetStateEx is only exported by ordinal.
  */
 final class XInputController implements XboxController
 {
     private static final Logger LOG = LoggerFactory.getLogger(XInputController.class);
 
-    /**
-     * unsigned short up : 1, down : 1, left : 1, right : 1, start : 1, back : 1, l3 : 1, r3 : 1, lButton : 1, rButton :
-     * 1, guideButton : 1, unknown : 1, aButton : 1, bButton : 1, xButton : 1, yButton : 1; // button state bitfield
-     */
-    private static final XboxButton[] INDEX_ORDER = {DPAD_UP, DPAD_DOWN, DPAD_LEFT, DPAD_RIGHT, START, BACK, LEFT_STICK_BUTTON, RIGHT_STICK_BUTTON, LEFT_BUMPER, RIGHT_BUMPER, GUIDE, UNKNOWN, A, B, X, Y};
-
     private static final String[] DLLS = {"Xinput1_4.dll", "xinput1_3.dll"};
 
     private static final XInput DLL;
@@ -64,25 +61,16 @@ final class XInputController implements XboxController
     }
 
     private int xinputId;
-    private XInputControllerState controllerState = new XInputControllerState();
+    private final Memory state = new Memory(XInputDecoder.STATE_SIZE);
     private XInputVibration vibrationBuffer = new XInputVibration();
+    private Object[] stateArgs;
+    private MutableSnapshot buttonsBuffer = new MutableSnapshot();
+    private Map<XboxButton, Number> lastButtons = Collections.emptyMap();
 
     XInputController(int xinputId)
     {
         this.xinputId = xinputId;
-    }
-
-    private static double normalizeTrigger(byte value)
-    {
-        double valueDz = (double) Byte.toUnsignedInt(value);
-        double sizeDz = (double) Byte.MAX_VALUE - Byte.MIN_VALUE;
-
-        return valueDz / sizeDz;
-    }
-
-    private static double normalizeStick(short value)
-    {
-        return value / (double) Short.MAX_VALUE;
+        this.stateArgs = new Object[]{xinputId, state};
     }
 
     private static short scaleToUShort(double normalizedValue)
@@ -90,37 +78,49 @@ final class XInputController implements XboxController
         return (short) (normalizedValue * (Short.MAX_VALUE - Short.MIN_VALUE));
     }
 
-    XInputControllerState getControllerState()
+    /**
+     * {@inheritDoc} If the packet number reported by the driver has not changed since the last call, the previously
+     * returned map is returned again.
+     */
+    @Override
+    public Map<XboxButton, Number> buttons()
     {
-        return controllerState;
+        if (!readState())
+        {
+            lastButtons = Collections.emptyMap();
+        }
+        else if (XInputDecoder.update(state, buttonsBuffer) || lastButtons.isEmpty())
+        {
+            lastButtons = buttonsBuffer
+                    .immutableCopy()
+                    .asMap();
+        }
+        return lastButtons;
     }
 
+    /**
+     * {@inheritDoc} If the snapshot already holds the packet reported by the driver, it is left untouched and no
+     * decoding takes place.
+     */
     @Override
-    public Map<XboxButton, Number> buttons()
+    public boolean poll(MutableSnapshot snapshot)
     {
-        int controllerStatus = GET_GAMEPAD_STATE_FUNC.invokeInt(new Object[]{xinputId, controllerState});
-
-        Map<XboxButton, Number> poll = new EnumMap<>(XboxButton.class);
-
-        short btns = controllerState.buttons;
-
-        for (int i = 0; i < INDEX_ORDER.length; i++)
+        if (!readState())
         {
-            XboxButton button = INDEX_ORDER[i];
-            poll.put(button, BitUtil.getBitFrom(btns, i));
+            snapshot.clear();
+            return false;
         }
 
-        poll.put(LEFT_TRIGGER, normalizeTrigger(controllerState.lTrigger));
-        poll.put(RIGHT_TRIGGER, normalizeTrigger(controllerState.rTrigger));
-
-        poll.put(LEFT_STICK_HORIZONTAL, normalizeStick(controllerState.leftStickY));
-        poll.put(LEFT_STICK_VERTICAL, normalizeStick(controllerState.leftStickX));
+        XInputDecoder.update(state, snapshot);
+        return true;
+    }
 
-        poll.put(RIGHT_STICK_HORIZONTAL, normalizeStick(controllerState.rightStickY));
-        poll.put(RIGHT_STICK_VERTICAL, normalizeStick(controllerState.rightStickX));
+    private boolean readState()
+    {
+        int controllerStatus = GET_GAMEPAD_STATE_FUNC.invokeInt(stateArgs);
 
         boolean anErrorOccurred = controllerStatus != 0;
-        return anErrorOccurred ? Collections.emptyMap() : Collections.unmodifiableMap(poll);
+        return !anErrorOccurred;
     }
 
     @Override
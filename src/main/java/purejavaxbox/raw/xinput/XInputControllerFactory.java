@@ -3,18 +3,36 @@ package purejavaxbox.raw.xinput;
 import purejavaxbox.raw.XboxController;
 import purejavaxbox.raw.XboxControllerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
- * Factory for creating controllers backed using XInput.
+ * Factory for creating controllers backed using XInput. Only Windows is supported, and the XInput library is loaded when
+ * the first controller is created.
  */
 public class XInputControllerFactory implements XboxControllerFactory
 {
+    /**
+     * {@inheritDoc} Checks the name of the operating system, without loading any library.
+     */
+    @Override
+    public boolean isSupported()
+    {
+        return System
+                .getProperty("os.name", "")
+                .startsWith("Windows");
+    }
+
     @Override
     public List<XboxController> get()
     {
+        if (!isSupported())
+        {
+            return Collections.emptyList();
+        }
+
         return IntStream
                 .range(0, 4)
                 .mapToObj(i -> new XInputController(i))
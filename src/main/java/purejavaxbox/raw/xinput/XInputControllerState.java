@@ -1,5 +1,6 @@
 package purejavaxbox.raw.xinput;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 
 import java.util.Arrays;
@@ -7,6 +8,9 @@ import java.util.List;
 
 /**
  * Represents the "hidden" input for the controller state. This is a read-only structure from Java's perspective.
+ * <p>
+ * {@link XInputController} reads the same layout straight from native memory, see {@link XInputDecoder#STATE_SIZE}.
+ * This structure remains as the reference mapping of the fields.
  *
  * @see <a href="https://github.com/DieKatzchen/GuideButtonPoller">GuideButtonPoller on GitHub.</a>
  * @see <a href="https://github.com/bwRavencl/ControllerBuddy">ControllerBuddy on GitHub</a>
@@ -42,6 +46,15 @@ public final class XInputControllerState extends Structure
         // Only the API should be creating these.
     }
 
+    /**
+     * Maps the structure onto existing memory, such as a state read by {@link XInputDecoder}.
+     */
+    XInputControllerState(Pointer memory)
+    {
+        super(memory);
+        read();
+    }
+
     @Override
     protected List getFieldOrder()
     {
@@ -0,0 +1,170 @@
+package purejavaxbox.raw.xinput;
+
+import com.sun.jna.Pointer;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.util.BitUtil;
+
+import static purejavaxbox.XboxButton.*;
+
+/**
+ * Translates the XInput gamepad state into a {@link MutableSnapshot}. Kept separate from {@link XInputController} so
+ * decoding does not require the native libraries to be loaded.
+ * <p>
+ * The state can be read from raw native memory, with the fixed offsets of the XINPUT_STATE structure, or from an {@link
+ * XInputControllerState}. Reading memory directly skips the reflective copy JNA does for every {@link
+ * com.sun.jna.Structure}, and is what {@link XInputController} uses.
+ */
+final class XInputDecoder
+{
+    /**
+     * The size of the XINPUT_STATE structure: a DWORD packet number followed by the 12 bytes of XINPUT_GAMEPAD.
+     */
+    static final int STATE_SIZE = 16;
+
+    static final int PACKET_OFFSET = 0;
+    static final int BUTTONS_OFFSET = 4;
+    static final int LEFT_TRIGGER_OFFSET = 6;
+    static final int RIGHT_TRIGGER_OFFSET = 7;
+    static final int LEFT_STICK_X_OFFSET = 8;
+    static final int LEFT_STICK_Y_OFFSET = 10;
+    static final int RIGHT_STICK_X_OFFSET = 12;
+    static final int RIGHT_STICK_Y_OFFSET = 14;
+
+    /**
+     * unsigned short up : 1, down : 1, left : 1, right : 1, start : 1, back : 1, l3 : 1, r3 : 1, lButton : 1, rButton :
+     * 1, guideButton : 1, unknown : 1, aButton : 1, bButton : 1, xButton : 1, yButton : 1; // button state bitfield
+     */
+    private static final XboxButton[] INDEX_ORDER = {DPAD_UP, DPAD_DOWN, DPAD_LEFT, DPAD_RIGHT, START, BACK, LEFT_STICK_BUTTON, RIGHT_STICK_BUTTON, LEFT_BUMPER, RIGHT_BUMPER, GUIDE, UNKNOWN, A, B, X, Y};
+
+    private XInputDecoder()
+    {
+        // Utility class
+    }
+
+    /**
+     * Decodes the state only if the snapshot does not already hold the packet reported by the driver.
+     *
+     * @param state    - the state filled by the native call.
+     * @param snapshot - the snapshot to fill.
+     * @return true if the snapshot was decoded, false if the packet number had not changed.
+     */
+    static boolean update(XInputControllerState state, MutableSnapshot snapshot)
+    {
+        if (snapshot.isConnected() && snapshot.packet() == packetOf(state))
+        {
+            return false;
+        }
+
+        decode(state, snapshot);
+        return true;
+    }
+
+    /**
+     * Copies the values of the state into the snapshot and marks it as connected. No objects are allocated.
+     *
+     * @param state    - the state filled by the native call.
+     * @param snapshot - the snapshot to fill.
+     */
+    static void decode(XInputControllerState state, MutableSnapshot snapshot)
+    {
+        snapshot
+                .connected(true)
+                .packet(packetOf(state))
+                .buttons(toButtonMask(state.buttons))
+                .value(LEFT_TRIGGER, normalizeTrigger(state.lTrigger))
+                .value(RIGHT_TRIGGER, normalizeTrigger(state.rTrigger))
+                .value(LEFT_STICK_HORIZONTAL, normalizeStick(state.leftStickY))
+                .value(LEFT_STICK_VERTICAL, normalizeStick(state.leftStickX))
+                .value(RIGHT_STICK_HORIZONTAL, normalizeStick(state.rightStickY))
+                .value(RIGHT_STICK_VERTICAL, normalizeStick(state.rightStickX));
+    }
+
+    /**
+     * Decodes the state only if the snapshot does not already hold the packet reported by the driver.
+     *
+     * @param state    - the native memory filled by the native call, at least {@link #STATE_SIZE} bytes.
+     * @param snapshot - the snapshot to fill.
+     * @return true if the snapshot was decoded, false if the packet number had not changed.
+     */
+    static boolean update(Pointer state, MutableSnapshot snapshot)
+    {
+        if (snapshot.isConnected() && snapshot.packet() == packetOf(state))
+        {
+            return false;
+        }
+
+        decode(state, snapshot);
+        return true;
+    }
+
+    /**
+     * Reads the values at the fixed offsets of the state into the snapshot and marks it as connected. No objects are
+     * allocated.
+     *
+     * @param state    - the native memory filled by the native call, at least {@link #STATE_SIZE} bytes.
+     * @param snapshot - the snapshot to fill.
+     */
+    static void decode(Pointer state, MutableSnapshot snapshot)
+    {
+        snapshot
+                .connected(true)
+                .packet(packetOf(state))
+                .buttons(toButtonMask(state.getShort(BUTTONS_OFFSET)))
+                .value(LEFT_TRIGGER, normalizeTrigger(state.getByte(LEFT_TRIGGER_OFFSET)))
+                .value(RIGHT_TRIGGER, normalizeTrigger(state.getByte(RIGHT_TRIGGER_OFFSET)))
+                .value(LEFT_STICK_HORIZONTAL, normalizeStick(state.getShort(LEFT_STICK_X_OFFSET)))
+                .value(LEFT_STICK_VERTICAL, normalizeStick(state.getShort(LEFT_STICK_Y_OFFSET)))
+                .value(RIGHT_STICK_HORIZONTAL, normalizeStick(state.getShort(RIGHT_STICK_X_OFFSET)))
+                .value(RIGHT_STICK_VERTICAL, normalizeStick(state.getShort(RIGHT_STICK_Y_OFFSET)));
+    }
+
+    /**
+     * XInput reports the packet number as an unsigned 32-bit DWORD.
+     *
+     * @param state - the state filled by the native call.
+     * @return the packet number.
+     */
+    static long packetOf(XInputControllerState state)
+    {
+        return Integer.toUnsignedLong(state.eventCount);
+    }
+
+    static long packetOf(Pointer state)
+    {
+        return Integer.toUnsignedLong(state.getInt(PACKET_OFFSET));
+    }
+
+    /**
+     * Converts the XInput button bitfield to a mask built from {@link XboxButton#mask()}.
+     *
+     * @param btns - the XInput bitfield.
+     * @return the equivalent {@link XboxButton} mask.
+     */
+    static int toButtonMask(short btns)
+    {
+        int mask = 0;
+
+        for (int i = 0; i < INDEX_ORDER.length; i++)
+        {
+            if (BitUtil.getBitFrom(btns, i) == 1)
+            {
+                mask |= INDEX_ORDER[i].mask();
+            }
+        }
+        return mask;
+    }
+
+    static double normalizeTrigger(byte value)
+    {
+        double valueDz = (double) Byte.toUnsignedInt(value);
+        double sizeDz = (double) Byte.MAX_VALUE - Byte.MIN_VALUE;
+
+        return valueDz / sizeDz;
+    }
+
+    static double normalizeStick(short value)
+    {
+        return value / (double) Short.MAX_VALUE;
+    }
+}
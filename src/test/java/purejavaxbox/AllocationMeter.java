@@ -0,0 +1,54 @@
+package purejavaxbox;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Test utility that reports the number of bytes allocated by the current thread while running a task.
+ */
+public final class AllocationMeter
+{
+    private static final int ROUNDS = 5;
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationMeter()
+    {
+
+    }
+
+    /**
+     * Runs the task the requested number of times, and measures the allocations made by the calling thread. The task
+     * is run the same number of times beforehand so class loading and compilation are not measured.
+     * <p>
+     * A recompilation during the measurement can still allocate objects that compiled code had eliminated, so the
+     * measurement is repeated a few times and the lowest count is returned. A task that allocates on every run never
+     * reaches zero this way.
+     *
+     * @param iterations - the number of times to run the task.
+     * @param task       - the task.
+     * @return the number of bytes allocated while running every iteration, in the steadiest measurement.
+     */
+    public static long bytesAllocated(int iterations, Runnable task)
+    {
+        long threadId = Thread
+                .currentThread()
+                .getId();
+
+        for (int i = 0; i < iterations; i++)
+        {
+            task.run();
+        }
+        THREADS.getThreadAllocatedBytes(threadId);
+
+        long lowest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && lowest > 0L; round++)
+        {
+            long start = THREADS.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < iterations; i++)
+            {
+                task.run();
+            }
+            lowest = Math.min(lowest, THREADS.getThreadAllocatedBytes(threadId) - start);
+        }
+        return lowest;
+    }
+}
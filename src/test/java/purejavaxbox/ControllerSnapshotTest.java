@@ -0,0 +1,88 @@
+package purejavaxbox;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class ControllerSnapshotTest
+{
+    @Test
+    public void testMapViewMatchesRawContract()
+    {
+        MutableSnapshot snapshot = new MutableSnapshot()
+                .connected(true)
+                .pressed(XboxButton.A, true)
+                .pressed(XboxButton.DPAD_LEFT, true)
+                .value(XboxButton.LEFT_TRIGGER, 0.5)
+                .value(XboxButton.RIGHT_STICK_HORIZONTAL, -0.25);
+
+        Map<XboxButton, Number> map = snapshot.asMap();
+
+        Assert.assertEquals("Every button present.", XboxButton.values().length, map.size());
+        Assert.assertEquals("Toggle buttons are integers.", 1, map.get(XboxButton.A));
+        Assert.assertEquals("Toggle buttons are integers.", 0, map.get(XboxButton.B));
+        Assert.assertEquals("Dpad pressed.", 1, map.get(XboxButton.DPAD_LEFT));
+        Assert.assertEquals("Analog values are doubles.", 0.5, map.get(XboxButton.LEFT_TRIGGER));
+        Assert.assertEquals("Analog values are doubles.", -0.25, map.get(XboxButton.RIGHT_STICK_HORIZONTAL));
+        Assert.assertEquals("Analog values are doubles.", 0.0, map.get(XboxButton.LEFT_STICK_VERTICAL));
+
+        Assert.assertEquals("Copies have the same contents.", map, new EnumMap<>(map));
+    }
+
+    @Test
+    public void testDisconnectedIsEmpty()
+    {
+        Assert.assertTrue(ControllerSnapshot.DISCONNECTED
+                                  .asMap()
+                                  .isEmpty());
+        Assert.assertSame(ControllerSnapshot.DISCONNECTED, ControllerSnapshot.fromMap(new EnumMap<>(XboxButton.class)));
+        Assert.assertEquals(0.0, ControllerSnapshot.DISCONNECTED.leftTrigger(), 0.0);
+        Assert.assertTrue(ControllerSnapshot.DISCONNECTED.sameValues(new MutableSnapshot()));
+    }
+
+    @Test
+    public void testRoundTripThroughMap()
+    {
+        MutableSnapshot snapshot = new MutableSnapshot()
+                .connected(true)
+                .pressed(XboxButton.Y, true)
+                .value(XboxButton.LEFT_STICK_VERTICAL, 0.75);
+
+        ControllerSnapshot copy = ControllerSnapshot.fromMap(snapshot.asMap());
+
+        Assert.assertTrue("Values survive the conversion.", copy.sameValues(snapshot));
+        Assert.assertEquals(XboxButton.Y.mask(), copy.buttons());
+    }
+
+    @Test
+    public void testImmutableCopyIsDetached()
+    {
+        MutableSnapshot snapshot = new MutableSnapshot()
+                .connected(true)
+                .pressed(XboxButton.X, true);
+
+        ControllerSnapshot copy = snapshot.immutableCopy();
+        snapshot.clear();
+
+        Assert.assertTrue("Copy keeps its values.", copy.isPressed(XboxButton.X));
+        Assert.assertTrue("Copy is still connected.", copy.isConnected());
+        Assert.assertSame("Immutable copies are not copied again.", copy, copy.immutableCopy());
+    }
+
+    @Test
+    public void testCombinationMask()
+    {
+        int mask = XboxButton.A.mask() | XboxButton.B.mask();
+
+        MutableSnapshot snapshot = new MutableSnapshot().pressed(XboxButton.A, true);
+        Assert.assertFalse(snapshot.allPressed(mask));
+
+        snapshot.pressed(XboxButton.B, true);
+        Assert.assertTrue(snapshot.allPressed(mask));
+
+        snapshot.value(XboxButton.A, 0.0);
+        Assert.assertFalse(snapshot.allPressed(mask));
+    }
+}
@@ -0,0 +1,130 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.*;
+
+public class AdaptiveTimingTest
+{
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private AdaptiveSchedule schedule = new AdaptiveTiming()
+            .activeRate(1000)
+            .idleRate(10)
+            .disconnectedRate(2)
+            .idleAfter(100, TimeUnit.MILLISECONDS)
+            .newSchedule();
+
+    @Test
+    public void testDecaysWhenIdle()
+    {
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+
+        Assert.assertEquals(MS, schedule.nextPeriod(snapshot, 0));
+        Assert.assertEquals("Still within the idle period.", MS, schedule.nextPeriod(snapshot, 50 * MS));
+
+        long previous = schedule.nextPeriod(snapshot, 100 * MS);
+        Assert.assertEquals("Starts decaying.", 2 * MS, previous);
+
+        for (int i = 0; i < 10; i++)
+        {
+            long period = schedule.nextPeriod(snapshot, (101 + i) * MS);
+            Assert.assertTrue("Never faster while idle.", period >= previous);
+            previous = period;
+        }
+        Assert.assertEquals("Bounded by the idle rate.", 100 * MS, previous);
+
+        snapshot.pressed(XboxButton.A, true);
+        Assert.assertEquals("Activity restores the active rate.", MS, schedule.nextPeriod(snapshot, 500 * MS));
+    }
+
+    @Test
+    public void testSmallAnalogChangesAreIdle()
+    {
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        schedule.nextPeriod(snapshot, 0);
+
+        snapshot.value(XboxButton.LEFT_STICK_HORIZONTAL, 0.005);
+        Assert.assertEquals("Noise is not activity.", 2 * MS, schedule.nextPeriod(snapshot, 200 * MS));
+
+        snapshot.value(XboxButton.LEFT_STICK_HORIZONTAL, 0.5);
+        Assert.assertEquals("Moving the stick is activity.", MS, schedule.nextPeriod(snapshot, 300 * MS));
+    }
+
+    @Test
+    public void testDisconnectedProbeRate()
+    {
+        Assert.assertEquals(500 * MS, schedule.nextPeriod(ControllerSnapshot.DISCONNECTED, 0));
+    }
+
+    @Test
+    public void testSinglePlayerProbesSlowlyWhenDisconnected() throws InterruptedException
+    {
+        XboxController controller = mock(XboxController.class);
+        AtomicInteger polls = new AtomicInteger();
+        when(controller.poll(any())).thenAnswer(a -> {
+            polls.incrementAndGet();
+            a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear();
+            return false;
+        });
+
+        ControllerApi api = new ControllerBuilder()
+                .controllers(SinglePlayerTest.mockControllers(controller))
+                .adaptiveTiming(new AdaptiveTiming().disconnectedRate(10))
+                .player1();
+
+        Disposable d = api
+                .snapshots()
+                .subscribe();
+        Thread.sleep(250);
+        d.dispose();
+        api.dispose();
+
+        Assert.assertTrue("Polled " + polls.get() + " times.", polls.get() >= 2 && polls.get() <= 4);
+    }
+
+    @Test
+    public void testIdleTimingFollowsTheClock() throws InterruptedException
+    {
+        XboxController controller = mock(XboxController.class);
+        AtomicInteger polls = new AtomicInteger();
+        when(controller.poll(any())).thenAnswer(a -> {
+            polls.incrementAndGet();
+            a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear()
+                    .connected(true);
+            return true;
+        });
+
+        ControllerApi api = new ControllerBuilder()
+                .controllers(SinglePlayerTest.mockControllers(controller))
+                .adaptiveTiming(new AdaptiveTiming()
+                                        .activeRate(500)
+                                        .idleRate(2)
+                                        .idleAfter(1, TimeUnit.MILLISECONDS))
+                .clock(() -> 0L)
+                .registerMetrics(false)
+                .player1();
+
+        Disposable d = api
+                .snapshots()
+                .subscribe();
+        Thread.sleep(250);
+        d.dispose();
+        api.dispose();
+
+        Assert.assertTrue("A stopped clock never goes idle, polled " + polls.get() + " times.", polls.get() >= 30);
+    }
+}
@@ -44,6 +44,11 @@ final class ControllerApiProxy implements ControllerApi
         sink.next(buttons);
     }
 
+    public long subscribers()
+    {
+        return flux.downstreamCount();
+    }
+
     @Override
     public void dispose()
     {
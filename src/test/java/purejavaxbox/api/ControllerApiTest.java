@@ -94,6 +94,32 @@ public class ControllerApiTest
         c.dispose();
     }
 
+    @Test
+    public void testObserveComboUsesSingleSubscription()
+    {
+        AtomicReference<Boolean> actual = new AtomicReference<>(null);
+        Disposable c = proxy
+                .observe(XboxButton.A, XboxButton.B, XboxButton.X, XboxButton.RIGHT_TRIGGER)
+                .subscribe(actual::set);
+
+        Assert.assertEquals("One subscription per combo.", 1, proxy.subscribers());
+
+        Map<XboxButton, Number> values = new EnumMap<>(XboxButton.class);
+        values.put(XboxButton.A, 1);
+        values.put(XboxButton.B, 1);
+        values.put(XboxButton.X, 1);
+        values.put(XboxButton.RIGHT_TRIGGER, 0.5);
+
+        proxy.sendAll(values);
+        Assert.assertFalse("Analog buttons must be fully pressed.", actual.get());
+
+        values.put(XboxButton.RIGHT_TRIGGER, 1.0);
+        proxy.sendAll(values);
+        Assert.assertTrue("All pressed.", actual.get());
+
+        c.dispose();
+    }
+
     @Test
     public void testToggle()
     {
@@ -315,6 +341,52 @@ public class ControllerApiTest
         c.dispose();
     }
 
+    @Test
+    public void testButtonEvents()
+    {
+        List<ButtonEvent> events = new ArrayList<>();
+        Disposable c = proxy
+                .buttonEvents()
+                .subscribe(events::add);
+
+        Map<XboxButton, Number> values = new EnumMap<>(XboxButton.class);
+        values.put(XboxButton.A, 0);
+        values.put(XboxButton.LEFT_TRIGGER, 0.5);
+
+        proxy.sendAll(values);
+        Assert.assertTrue("Nothing pressed.", events.isEmpty());
+
+        values.put(XboxButton.LEFT_TRIGGER, 0.7);
+        proxy.sendAll(values);
+        Assert.assertTrue("Analog values do not produce events.", events.isEmpty());
+
+        values.put(XboxButton.A, 1);
+        values.put(XboxButton.DPAD_UP, 1);
+        proxy.sendAll(values);
+        proxy.sendAll(values);
+        Assert.assertEquals("Only changes produce events.", 2, events.size());
+        Assert.assertEquals(XboxButton.A, events
+                .get(0)
+                .button());
+        Assert.assertEquals(XboxButton.DPAD_UP, events
+                .get(1)
+                .button());
+        Assert.assertTrue(events
+                                  .get(0)
+                                  .isPressed());
+
+        proxy.send(Collections.emptyMap());
+        Assert.assertEquals("Disconnecting releases buttons.", 4, events.size());
+        Assert.assertTrue(events
+                                  .get(2)
+                                  .isReleased());
+        Assert.assertTrue(events
+                                  .get(3)
+                                  .isReleased());
+
+        c.dispose();
+    }
+
     private <T> void testHeldGeneric(AtomicInteger count, AtomicReference<T> actual, Consumer<Integer> buttonToggle, T on, T off)
     {
         Assert.assertEquals("Checking calls", 0, count.get());
@@ -0,0 +1,177 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static purejavaxbox.api.SinglePlayerTest.*;
+
+public class ControllerListenerTest
+{
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private final ControllerListener recorder = new ControllerListener()
+    {
+        @Override
+        public void onButton(int ordinal, boolean pressed, long nanos)
+        {
+            calls.add(XboxButton.values()[ordinal] + "=" + pressed + "@" + nanos);
+        }
+
+        @Override
+        public void onAxis(int ordinal, double value, long nanos)
+        {
+            calls.add(XboxButton.values()[ordinal] + "=" + value + "@" + nanos);
+        }
+    };
+
+    @Test
+    public void testOnlyChangesAreDispatched()
+    {
+        ListenerDispatcher dispatcher = new ListenerDispatcher();
+        dispatcher.add(recorder);
+
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        dispatcher.dispatch(snapshot
+                                    .pressed(XboxButton.A, true)
+                                    .value(XboxButton.LEFT_TRIGGER, 0.5)
+                                    .timestamp(10L));
+        dispatcher.dispatch(snapshot.timestamp(20L));
+        dispatcher.dispatch(snapshot
+                                    .pressed(XboxButton.A, false)
+                                    .pressed(XboxButton.B, true)
+                                    .timestamp(30L));
+        dispatcher.dispatch(ControllerSnapshot.DISCONNECTED);
+
+        Assert.assertEquals(Arrays.asList("A=true@10", "LEFT_TRIGGER=0.5@10", "A=false@30", "B=true@30", "B=false@0", "LEFT_TRIGGER=0.0@0"), calls);
+    }
+
+    @Test
+    public void testRemovedListenerIsNotCalled()
+    {
+        ListenerDispatcher dispatcher = new ListenerDispatcher();
+        ControllerListener other = new ControllerListener()
+        {
+        };
+        dispatcher.add(other);
+        dispatcher.add(recorder);
+        dispatcher.remove(recorder);
+
+        dispatcher.dispatch(new MutableSnapshot().pressed(XboxButton.X, true));
+        Assert.assertTrue(calls.isEmpty());
+
+        dispatcher.remove(other);
+        Assert.assertTrue(dispatcher.isEmpty());
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopOthers()
+    {
+        ListenerDispatcher dispatcher = new ListenerDispatcher();
+        dispatcher.add(new ControllerListener()
+        {
+            @Override
+            public void onButton(int ordinal, boolean pressed, long nanos)
+            {
+                throw new IllegalStateException("Expected.");
+            }
+        });
+        dispatcher.add(recorder);
+
+        dispatcher.dispatch(new MutableSnapshot().pressed(XboxButton.Y, true));
+        Assert.assertEquals(Collections.singletonList("Y=true@0"), calls);
+    }
+
+    @Test
+    public void testDispatchDoesNotAllocate()
+    {
+        ListenerDispatcher dispatcher = new ListenerDispatcher();
+        dispatcher.add(new ControllerListener()
+        {
+        });
+
+        MutableSnapshot pressed = new MutableSnapshot()
+                .connected(true)
+                .pressed(XboxButton.A, true)
+                .value(XboxButton.RIGHT_STICK_HORIZONTAL, 0.25);
+        MutableSnapshot released = new MutableSnapshot().connected(true);
+
+        long bytes = AllocationMeter.bytesAllocated(10_000, () ->
+        {
+            dispatcher.dispatch(pressed);
+            dispatcher.dispatch(released);
+        });
+        Assert.assertEquals(0L, bytes);
+    }
+
+    @Test
+    public void testSinglePlayerCallsListenersFromPollingThread() throws InterruptedException
+    {
+        AtomicBoolean start = new AtomicBoolean();
+        XboxController controller = connectedController(s -> s.pressed(XboxButton.START, start.get()));
+
+        ControllerApi api = builderOf(controller)
+                .player1();
+
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch reported = new CountDownLatch(1);
+        Disposable d = api.addListener(new ControllerListener()
+        {
+            @Override
+            public void onButton(int ordinal, boolean pressed, long nanos)
+            {
+                threads.add(Thread
+                                    .currentThread()
+                                    .getName());
+                calls.add(XboxButton.values()[ordinal] + "=" + pressed);
+                reported.countDown();
+            }
+        });
+
+        awaitPolls(api, api
+                .metrics()
+                .getPollCount() + 2L);
+        start.set(true);
+        Assert.assertTrue(reported.await(5, TimeUnit.SECONDS));
+        awaitPolls(api, api
+                .metrics()
+                .getPollCount() + 2L);
+        d.dispose();
+        api.dispose();
+
+        Assert.assertEquals("Only the change is reported.", Collections.singletonList("START=true"), calls);
+        Assert.assertTrue(threads
+                                  .get(0)
+                                  .startsWith("controller-polling-thread"));
+    }
+
+    @Test
+    public void testDefaultImplementationUsesSnapshots()
+    {
+        ControllerApiProxy proxy = new ControllerApiProxy();
+        Disposable d = proxy.addListener(recorder);
+
+        proxy.send(XboxButton.A, 1);
+        proxy.send(XboxButton.A, 1);
+        d.dispose();
+        proxy.send(XboxButton.A, 0);
+
+        Assert.assertEquals(1, calls.size());
+        Assert.assertTrue(calls
+                                  .get(0)
+                                  .startsWith("A=true@"));
+    }
+}
@@ -0,0 +1,100 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class ControllerMetricsTest
+{
+    @Test
+    public void testMetricsAreRecordedAndRegistered() throws Exception
+    {
+        Map<XboxButton, Number> buttons = new EnumMap<>(XboxButton.class);
+        Arrays
+                .asList(XboxButton.values())
+                .forEach(b -> buttons.put(b, 0));
+
+        XboxController mockedController = mock(XboxController.class);
+        when(mockedController.buttons()).thenReturn(buttons);
+        when(mockedController.poll(any())).thenCallRealMethod();
+
+        ControllerApi sp = new ControllerBuilder()
+                .timing(1000.0)
+                .controllers(SinglePlayerTest.mockControllers(mockedController))
+                .mapper(map -> map.put(XboxButton.B, 1))
+                .player1();
+
+        Disposable d = sp
+                .observe(XboxButton.B)
+                .subscribe();
+        Thread.sleep(100);
+
+        ControllerMetrics metrics = sp.metrics();
+        Assert.assertTrue(metrics.getPollCount() > 0L);
+        Assert.assertTrue(metrics.getNativeCallCount() > 0L);
+        Assert.assertTrue(metrics.getNativeLatencyMeanNanos() > 0.0);
+        Assert.assertTrue(metrics.getEmitMeanNanos() > 0.0);
+        Assert.assertTrue(metrics.getMapperChainMeanNanos() > 0.0);
+        Assert.assertTrue(metrics.getMeanPeriodNanos() > 0.0);
+        Assert.assertEquals(1, metrics.getSubscriberCount());
+        Assert.assertEquals(0L, metrics.getDroppedEmissions());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.objectName();
+        Assert.assertNotNull(name);
+        Assert.assertTrue((Long) server.getAttribute(name, "PollCount") > 0L);
+
+        d.dispose();
+        sp.dispose();
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testStalledSubscribersCountDrops() throws Exception
+    {
+        XboxController mockedController = mock(XboxController.class);
+        when(mockedController.buttons()).thenReturn(new EnumMap<>(XboxButton.class));
+        when(mockedController.poll(any())).thenCallRealMethod();
+
+        SinglePlayer sp = new SinglePlayer(TimeUnit.MILLISECONDS.toNanos(1), SinglePlayerTest.mockControllers(mockedController), false, Pacing.scheduledExecutor(), NanoClock.SYSTEM).start();
+
+        BaseSubscriber<Object> stalled = new BaseSubscriber<Object>()
+        {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription)
+            {
+                subscription.request(1);
+            }
+        };
+        sp
+                .snapshots()
+                .subscribe(stalled);
+
+        Thread.sleep(500);
+        stalled.dispose();
+        sp.dispose();
+
+        Assert.assertNull(sp
+                                  .metrics()
+                                  .objectName());
+        Assert.assertTrue(sp
+                                  .metrics()
+                                  .toString(), sp
+                                  .metrics()
+                                  .getDroppedEmissions() > 0L);
+    }
+}
@@ -0,0 +1,212 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static purejavaxbox.api.SinglePlayerTest.*;
+
+public class ControllerRingTest
+{
+    private ControllerRing ring = new ControllerRing(8);
+    private MutableSnapshot published = new MutableSnapshot().connected(true);
+    private MutableSnapshot received = new MutableSnapshot();
+
+    private void publish(int value)
+    {
+        ring.publish(published
+                             .value(XboxButton.LEFT_TRIGGER, value / 100.0)
+                             .pressed(XboxButton.A, value % 2 == 1)
+                             .timestamp(value)
+                             .sequence(value));
+    }
+
+    @Test
+    public void testCapacityIsRoundedUp()
+    {
+        Assert.assertEquals(8, new ControllerRing(5).capacity());
+        Assert.assertEquals(1, new ControllerRing(1).capacity());
+    }
+
+    @Test
+    public void testConsumersReadInOrder()
+    {
+        RingConsumer first = ring.newConsumer(WaitStrategy.BUSY_SPIN);
+        RingConsumer second = ring.newConsumer(WaitStrategy.BUSY_SPIN);
+
+        Assert.assertFalse(first.poll(received));
+        publish(1);
+        publish(2);
+
+        Assert.assertTrue(first.poll(received));
+        Assert.assertEquals(1L, received.sequence());
+        Assert.assertTrue(received.isPressed(XboxButton.A));
+        Assert.assertEquals(0.01, received.leftTrigger(), 0.0);
+        Assert.assertTrue(received.isConnected());
+
+        Assert.assertTrue(first.poll(received));
+        Assert.assertEquals(2L, received.timestamp());
+        Assert.assertFalse(received.isPressed(XboxButton.A));
+        Assert.assertFalse(first.poll(received));
+
+        Assert.assertTrue("Cursors are independent.", second.poll(received));
+        Assert.assertEquals(1L, received.sequence());
+    }
+
+    @Test
+    public void testSlowConsumerLosesOldestSnapshots()
+    {
+        RingConsumer consumer = ring.newConsumer(WaitStrategy.BUSY_SPIN);
+        for (int i = 0; i < 20; i++)
+        {
+            publish(i);
+        }
+
+        Assert.assertTrue(consumer.poll(received));
+        Assert.assertEquals(12L, received.sequence());
+        Assert.assertEquals(12L, consumer.lost());
+    }
+
+    @Test
+    public void testLatestSkipsOlderSnapshots()
+    {
+        RingConsumer consumer = ring.newConsumer(WaitStrategy.BUSY_SPIN);
+        publish(1);
+        publish(2);
+        publish(3);
+
+        Assert.assertTrue(consumer.latest(received));
+        Assert.assertEquals(3L, received.sequence());
+        Assert.assertFalse(consumer.poll(received));
+        Assert.assertEquals(0L, consumer.lost());
+    }
+
+    @Test
+    public void testOverrunSingleSlotRingNeverTears() throws InterruptedException
+    {
+        ControllerRing single = new ControllerRing(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread publisher = new Thread(() ->
+        {
+            MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+            for (int i = 1; running.get(); i++)
+            {
+                single.publish(snapshot
+                                       .value(XboxButton.LEFT_TRIGGER, i / 1e9)
+                                       .timestamp(i)
+                                       .sequence(i));
+            }
+        });
+        publisher.start();
+
+        try
+        {
+            RingConsumer consumer = single.newConsumer(WaitStrategy.BUSY_SPIN);
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            while (System.nanoTime() < end)
+            {
+                if (consumer.poll(received))
+                {
+                    Assert.assertEquals("The snapshot holds the sequence the consumer read.", consumer.sequence(), received.sequence());
+                    Assert.assertEquals(received.timestamp(), received.sequence());
+                    Assert.assertEquals(received.timestamp() / 1e9, received.leftTrigger(), 0.0);
+                }
+            }
+            Assert.assertTrue("The publisher overran the consumer.", consumer.lost() > 0L);
+        }
+        finally
+        {
+            running.set(false);
+            publisher.join();
+        }
+    }
+
+    @Test
+    public void testTakeWaitsForPublisher() throws InterruptedException
+    {
+        for (WaitStrategy strategy : new WaitStrategy[]{WaitStrategy.BUSY_SPIN, WaitStrategy.YIELD, WaitStrategy.PARK})
+        {
+            RingConsumer consumer = ring.newConsumer(strategy);
+            long expected = ring.cursor() + 1L;
+
+            Thread publisher = new Thread(() ->
+            {
+                sleep(20);
+                publish((int) expected);
+            });
+            publisher.start();
+
+            Assert.assertTrue(consumer.take(received));
+            Assert.assertEquals(expected, received.sequence());
+            publisher.join();
+        }
+    }
+
+    @Test
+    public void testTakeReturnsWhenDisposed() throws InterruptedException
+    {
+        RingConsumer consumer = ring.newConsumer(WaitStrategy.PARK);
+        AtomicBoolean result = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(1);
+
+        new Thread(() ->
+        {
+            try
+            {
+                result.set(consumer.take(received));
+            }
+            catch (InterruptedException e)
+            {
+                Thread
+                        .currentThread()
+                        .interrupt();
+            }
+            done.countDown();
+        }).start();
+
+        sleep(20);
+        ring.dispose();
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assert.assertFalse(result.get());
+    }
+
+    @Test
+    public void testPublishAndPollDoNotAllocate()
+    {
+        RingConsumer consumer = ring.newConsumer(WaitStrategy.BUSY_SPIN);
+        long bytes = AllocationMeter.bytesAllocated(10_000, () ->
+        {
+            publish(1);
+            consumer.poll(received);
+        });
+
+        Assert.assertEquals(0L, bytes);
+    }
+
+    @Test
+    public void testBuilderPublishesMappedPolls() throws InterruptedException
+    {
+        XboxController controller = connectedController(s -> s.pressed(XboxButton.B, true));
+
+        ControllerRing ring = builderOf(controller)
+                .mapper(map -> map.put(XboxButton.A, 1))
+                .ring(16);
+        RingConsumer consumer = ring.newConsumer(WaitStrategy.YIELD);
+
+        Assert.assertTrue(consumer.take(received));
+        ring.dispose();
+
+        Assert.assertTrue(received.isPressed(XboxButton.A));
+        Assert.assertTrue(received.isPressed(XboxButton.B));
+        Assert.assertTrue(ring
+                                  .metrics()
+                                  .getPollCount() > 0L);
+    }
+}
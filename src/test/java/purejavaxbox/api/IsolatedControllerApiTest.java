@@ -0,0 +1,184 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.XboxButton;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static purejavaxbox.api.SinglePlayerTest.sleep;
+
+public class IsolatedControllerApiTest
+{
+    private ControllerMetrics metrics = new ControllerMetrics(new PacingRecorder(), () -> 0, () -> 0);
+
+    private ControllerApiProxy proxy = new ControllerApiProxy();
+
+    private ControllerApi parent = new ControllerApi()
+    {
+        @Override
+        public Flux<Map<XboxButton, Number>> get()
+        {
+            return proxy.get();
+        }
+
+        @Override
+        public ControllerMetrics metrics()
+        {
+            return metrics;
+        }
+
+        @Override
+        public void dispose()
+        {
+            proxy.dispose();
+        }
+    };
+
+    @Test
+    public void testSlowSubscriberDoesNotBlockThePollingThread() throws InterruptedException
+    {
+        ControllerApi api = new IsolatedControllerApi(parent, new SubscriberIsolation().slowThreshold(20, TimeUnit.MILLISECONDS));
+
+        List<Number> slow = Collections.synchronizedList(new ArrayList<>());
+        List<Number> fast = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(2);
+
+        Disposable d1 = api
+                .observe(XboxButton.LEFT_TRIGGER)
+                .subscribe(n ->
+                {
+                    threads.add(Thread
+                                        .currentThread()
+                                        .getName());
+                    slow.add(n);
+                    sleep(100);
+                    if (n.doubleValue() == 99.0)
+                    {
+                        done.countDown();
+                    }
+                });
+        Disposable d2 = api
+                .observe(XboxButton.LEFT_TRIGGER)
+                .subscribe(n ->
+                {
+                    fast.add(n);
+                    if (n.doubleValue() == 99.0)
+                    {
+                        done.countDown();
+                    }
+                });
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++)
+        {
+            proxy.send(XboxButton.LEFT_TRIGGER, (double) i);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertTrue("Waited for subscribers: " + elapsed + " ms", elapsed < 100);
+        Assert.assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        Assert.assertTrue("Conflated: " + slow, slow.size() <= 3);
+        Assert.assertEquals(99.0, slow
+                .get(slow.size() - 1)
+                .doubleValue(), 0.0);
+        Assert.assertEquals(99.0, fast
+                .get(fast.size() - 1)
+                .doubleValue(), 0.0);
+        Assert.assertTrue(threads
+                                  .get(0)
+                                  .startsWith("controller-delivery"));
+
+        d1.dispose();
+        d2.dispose();
+    }
+
+    @Test
+    public void testSlowSubscriberIsFlagged() throws InterruptedException
+    {
+        ControllerApi api = new IsolatedControllerApi(parent, new SubscriberIsolation().slowThreshold(20, TimeUnit.MILLISECONDS));
+
+        Disposable fast = api
+                .snapshots()
+                .subscribe();
+        Disposable slow = api
+                .snapshots()
+                .subscribe(s -> sleep(100));
+
+        for (int i = 0; i < 40; i++)
+        {
+            proxy.send(XboxButton.A, i % 2);
+            Thread.sleep(5);
+        }
+
+        Assert.assertEquals("Only the slow subscriber is flagged.", 1, metrics.getSlowSubscribers());
+        slow.dispose();
+        Assert.assertEquals(0, metrics.getSlowSubscribers());
+        fast.dispose();
+    }
+
+    @Test
+    public void testQueuedEventsAreNotConflated() throws InterruptedException
+    {
+        ControllerApi api = new IsolatedControllerApi(parent, new SubscriberIsolation().queueEvents(true));
+
+        List<ButtonEvent> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(40);
+        Disposable d = api
+                .buttonEvents()
+                .subscribe(e ->
+                {
+                    sleep(1);
+                    events.add(e);
+                    done.countDown();
+                });
+
+        for (int i = 0; i < 20; i++)
+        {
+            proxy.send(XboxButton.A, 1);
+            proxy.send(XboxButton.A, 0);
+        }
+
+        Assert.assertTrue(done.await(2, TimeUnit.SECONDS));
+        d.dispose();
+
+        for (int i = 0; i < events.size(); i++)
+        {
+            Assert.assertEquals(i % 2 == 0, events
+                    .get(i)
+                    .isPressed());
+        }
+        Assert.assertEquals(0L, metrics.getEventOverflows());
+    }
+
+    @Test
+    public void testEventQueueOverflowFlagsSubscriber() throws InterruptedException
+    {
+        ControllerApi api = new IsolatedControllerApi(parent, new SubscriberIsolation()
+                .queueEvents(true)
+                .eventCapacity(4));
+
+        Disposable d = api
+                .buttonEvents()
+                .subscribe(e -> sleep(200));
+
+        for (int i = 0; i < 20; i++)
+        {
+            proxy.send(XboxButton.A, 1);
+            proxy.send(XboxButton.A, 0);
+        }
+
+        Assert.assertTrue(metrics.getEventOverflows() > 0L);
+        Assert.assertEquals(1, metrics.getSlowSubscribers());
+        d.dispose();
+    }
+}
@@ -0,0 +1,124 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static purejavaxbox.api.SinglePlayerTest.*;
+
+public class LatestSnapshotTest
+{
+    private LatestSnapshot latest = new LatestSnapshot();
+    private MutableSnapshot received = new MutableSnapshot();
+
+    private static MutableSnapshot fill(MutableSnapshot snapshot, long k)
+    {
+        double value = k / 1000.0;
+        return snapshot
+                .connected(true)
+                .buttons((int) k)
+                .value(XboxButton.LEFT_STICK_HORIZONTAL, value)
+                .value(XboxButton.LEFT_STICK_VERTICAL, value)
+                .value(XboxButton.RIGHT_STICK_HORIZONTAL, value)
+                .value(XboxButton.RIGHT_STICK_VERTICAL, value)
+                .value(XboxButton.LEFT_TRIGGER, value)
+                .value(XboxButton.RIGHT_TRIGGER, value)
+                .timestamp(k)
+                .sequence(k);
+    }
+
+    @Test
+    public void testNothingPublished()
+    {
+        Assert.assertFalse(latest.read(received));
+        Assert.assertFalse(received.isConnected());
+    }
+
+    @Test
+    public void testReadsLatest()
+    {
+        MutableSnapshot published = new MutableSnapshot();
+        latest.publish(fill(published, 1L));
+        latest.publish(fill(published, 2L));
+
+        Assert.assertTrue(latest.read(received));
+        Assert.assertTrue(received.sameValues(published));
+        Assert.assertEquals(2L, received.sequence());
+        Assert.assertEquals(2L, received.timestamp());
+    }
+
+    @Test
+    public void testReadsAreNeverTorn() throws InterruptedException
+    {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() ->
+        {
+            MutableSnapshot published = new MutableSnapshot();
+            long k = 1L;
+            while (running.get())
+            {
+                latest.publish(fill(published, k++ & 0xFFFF));
+            }
+        });
+        writer.start();
+
+        try
+        {
+            MutableSnapshot expected = new MutableSnapshot();
+            for (int i = 0; i < 200_000; i++)
+            {
+                if (latest.read(received))
+                {
+                    fill(expected, received.sequence());
+                    Assert.assertTrue(received + " is torn.", received.sameValues(expected));
+                    Assert.assertEquals(received.sequence(), received.timestamp());
+                }
+            }
+        }
+        finally
+        {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testReadDoesNotAllocate()
+    {
+        latest.publish(fill(new MutableSnapshot(), 3L));
+        long bytes = AllocationMeter.bytesAllocated(10_000, () -> latest.read(received));
+        Assert.assertEquals("Bytes per read, " + bytes + " in total.", 0L, bytes);
+    }
+
+    @Test
+    public void testSampleFromPlayer() throws InterruptedException
+    {
+        XboxController controller = connectedController(s -> s.value(XboxButton.RIGHT_TRIGGER, 0.75));
+
+        ControllerApi api = builderOf(controller)
+                .mapper(map -> map.put(XboxButton.X, 1))
+                .player1();
+
+        awaitPolls(api, 2L);
+        boolean sampled = api.sample(received);
+        api.dispose();
+
+        Assert.assertTrue(sampled);
+        Assert.assertEquals(0.75, received.rightTrigger(), 0.0);
+        Assert.assertTrue("Mappers are applied.", received.isPressed(XboxButton.X));
+        Assert.assertTrue(received.sequence() >= 0L);
+    }
+
+    @Test
+    public void testDefaultKeepsNoState()
+    {
+        received.pressed(XboxButton.A, true);
+        Assert.assertFalse(new ControllerApiProxy().sample(received));
+        Assert.assertTrue("The snapshot is left untouched.", received.isPressed(XboxButton.A));
+    }
+}
@@ -0,0 +1,113 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static purejavaxbox.api.SinglePlayerTest.sleep;
+
+public class PacingTest
+{
+    private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Test
+    public void testStrategiesKeepThePeriod() throws Exception
+    {
+        List<Pacing> strategies = Arrays.asList(Pacing.scheduledExecutor(), Pacing.parkNanos(), Pacing.hybrid());
+
+        for (Pacing pacing : strategies)
+        {
+            AtomicInteger ticks = new AtomicInteger();
+            Pacer pacer = pacing.newPacer(start ->
+            {
+                ticks.incrementAndGet();
+                return PERIOD;
+            });
+
+            pacer.start();
+            Thread.sleep(300);
+            pacer.stop(1, TimeUnit.SECONDS);
+
+            int count = ticks.get();
+            Thread.sleep(20);
+            Assert.assertEquals(pacing + " stopped ticking", count, ticks.get());
+
+            PacingStatistics statistics = pacing.statistics();
+            Assert.assertEquals(pacing.toString(), count, statistics.ticks());
+            Assert.assertTrue(pacing + " " + statistics, count > 75 && count <= 151);
+            Assert.assertEquals(pacing + " " + statistics, PERIOD, statistics.meanPeriodNanos(), PERIOD);
+            Assert.assertTrue(pacing + " " + statistics, statistics.minPeriodNanos() > 0L);
+            Assert.assertEquals(count, Arrays
+                    .stream(statistics.latenessHistogram())
+                    .sum());
+        }
+    }
+
+    @Test
+    public void testOverrunsSkipMissedDeadlines() throws Exception
+    {
+        Pacing pacing = Pacing.parkNanos();
+        Pacer pacer = pacing.newPacer(start ->
+        {
+            sleep(5);
+            return PERIOD;
+        });
+
+        pacer.start();
+        Thread.sleep(100);
+        pacer.stop(1, TimeUnit.SECONDS);
+
+        PacingStatistics statistics = pacing.statistics();
+        Assert.assertTrue(statistics.toString(), statistics.overruns() > 0L);
+        Assert.assertTrue("Missed deadlines are not run back to back", statistics.minPeriodNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testStopFromTick() throws Exception
+    {
+        Pacing pacing = Pacing.hybrid(100, TimeUnit.MICROSECONDS);
+        AtomicInteger ticks = new AtomicInteger();
+        Pacer[] pacer = new Pacer[1];
+        pacer[0] = pacing.newPacer(start ->
+        {
+            if (ticks.incrementAndGet() == 3)
+            {
+                try
+                {
+                    pacer[0].stop(1, TimeUnit.SECONDS);
+                }
+                catch (Exception e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return PERIOD;
+        });
+
+        pacer[0].start();
+        Thread.sleep(50);
+        Assert.assertEquals(3, ticks.get());
+    }
+
+    @Test
+    public void testLatenessPercentiles()
+    {
+        PacingRecorder recorder = new PacingRecorder();
+        for (int i = 0; i < 98; i++)
+        {
+            recorder.tick(0L, PERIOD);
+        }
+        recorder.tick(1_000L, PERIOD);
+        recorder.tick(100_000L, PERIOD);
+
+        PacingStatistics statistics = recorder.snapshot();
+        Assert.assertEquals(0L, statistics.latenessPercentile(50.0));
+        Assert.assertEquals(1024L, statistics.latenessPercentile(99.0));
+        Assert.assertEquals(131_072L, statistics.latenessPercentile(100.0));
+        Assert.assertEquals(PERIOD, statistics.meanPeriodNanos(), 0.0);
+    }
+}
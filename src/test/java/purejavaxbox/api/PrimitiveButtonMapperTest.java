@@ -0,0 +1,176 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.Mockito.*;
+import static purejavaxbox.api.SinglePlayerTest.awaitPolls;
+import static purejavaxbox.api.SinglePlayerTest.builderOf;
+
+public class PrimitiveButtonMapperTest
+{
+    private static List<ButtonMapper> deadZones()
+    {
+        StickDeadZones sticks = new StickDeadZones()
+                .innerDeadZone((short) 7849)
+                .outerDeadZone((short) 32000);
+        TriggerDeadZones triggers = new TriggerDeadZones()
+                .innerDeadZone(30)
+                .outerDeadZone(250);
+
+        return Arrays.asList(sticks.buildAxialDeadZone(), sticks.buildRadialDeadZone(), sticks
+                .rightStick()
+                .buildScaledRadialDeadZone(), triggers
+                                     .rightTrigger()
+                                     .buildLinearScalar());
+    }
+
+    @Test
+    public void testDeadZonesMatchMapVersion()
+    {
+        Random random = new Random(42L);
+        MutableSnapshot snapshot = new MutableSnapshot();
+
+        for (ButtonMapper mapper : deadZones())
+        {
+            Assert.assertTrue(mapper instanceof PrimitiveButtonMapper);
+
+            for (int i = 0; i < 1000; i++)
+            {
+                snapshot
+                        .clear()
+                        .connected(true);
+                for (XboxButton button : XboxButton.values())
+                {
+                    if (button.isAnalog())
+                    {
+                        double value = i == 0 ? 0.0 : random.nextDouble() * 2.0 - 1.0;
+                        snapshot.value(button, button.name().contains("TRIGGER") ? Math.abs(value) : value);
+                    }
+                }
+
+                Map<XboxButton, Number> expected = new EnumMap<>(snapshot.asMap());
+                mapper.accept(expected);
+
+                ((PrimitiveButtonMapper) mapper).apply(snapshot);
+                for (XboxButton button : XboxButton.values())
+                {
+                    Assert.assertEquals(button.name(), expected
+                            .get(button)
+                            .doubleValue(), snapshot.value(button), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMapMappersAreAdaptedAndFused()
+    {
+        PrimitiveButtonMapper primitive = s -> s.value(XboxButton.LEFT_TRIGGER, 0.5);
+        ButtonMapper first = map -> map.put(XboxButton.A, 1);
+        ButtonMapper second = map -> map.put(XboxButton.B, map
+                .get(XboxButton.A)
+                .intValue());
+
+        MapperChain chain = MapperChain.of(Arrays.asList(PrimitiveButtonMapper.of(first), PrimitiveButtonMapper.of(second), primitive, PrimitiveButtonMapper.of(first)));
+        Assert.assertEquals("Consecutive map mappers share an adapter.", 3, chain.size());
+
+        MutableSnapshot snapshot = new MutableSnapshot()
+                .connected(true)
+                .packet(3L)
+                .timestamp(7L)
+                .sequence(9L);
+        chain.apply(snapshot);
+
+        Assert.assertTrue(snapshot.isPressed(XboxButton.A));
+        Assert.assertTrue(snapshot.isPressed(XboxButton.B));
+        Assert.assertEquals(0.5, snapshot.leftTrigger(), 0.0);
+        Assert.assertEquals(3L, snapshot.packet());
+        Assert.assertEquals(7L, snapshot.timestamp());
+        Assert.assertEquals(9L, snapshot.sequence());
+    }
+
+    @Test
+    public void testPrimitiveChainDoesNotAllocate()
+    {
+        List<PrimitiveButtonMapper> mappers = new ArrayList<>();
+        deadZones().forEach(mapper -> mappers.add(PrimitiveButtonMapper.of(mapper)));
+        MapperChain chain = MapperChain.of(mappers);
+
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        long bytes = AllocationMeter.bytesAllocated(10_000, () ->
+        {
+            snapshot
+                    .value(XboxButton.LEFT_STICK_HORIZONTAL, 0.6)
+                    .value(XboxButton.LEFT_STICK_VERTICAL, -0.4)
+                    .value(XboxButton.RIGHT_TRIGGER, 0.7);
+            chain.apply(snapshot);
+        });
+        Assert.assertEquals("Bytes per pass, " + bytes + " in total.", 0L, bytes);
+    }
+
+    @Test
+    public void testStickMapPathOnlyAllocatesTheBoxedValues()
+    {
+        ButtonMapper mapper = new StickDeadZones()
+                .innerDeadZone((short) 7849)
+                .buildScaledRadialDeadZone();
+        Map<XboxButton, Number> map = new EnumMap<>(XboxButton.class);
+        Runnable fill = () ->
+        {
+            map.put(XboxButton.LEFT_STICK_HORIZONTAL, 0.6);
+            map.put(XboxButton.LEFT_STICK_VERTICAL, -0.4);
+        };
+
+        long filled = AllocationMeter.bytesAllocated(10_000, fill);
+        long bytes = AllocationMeter.bytesAllocated(10_000, () ->
+        {
+            fill.run();
+            mapper.modifyMapInPlace(map);
+        });
+        Assert.assertEquals("The mapper only boxes the two values it puts, like the fill.", 2 * filled, bytes);
+    }
+
+    @Test
+    public void testPollStepMapsACopyOfTheRawPoll() throws InterruptedException
+    {
+        AtomicBoolean decoded = new AtomicBoolean();
+        XboxController controller = mock(XboxController.class);
+        when(controller.poll(any())).thenAnswer(a ->
+        {
+            if (!decoded.getAndSet(true))
+            {
+                a
+                        .<MutableSnapshot>getArgument(0)
+                        .clear()
+                        .connected(true)
+                        .packet(1L)
+                        .value(XboxButton.LEFT_TRIGGER, 0.5);
+            }
+            return true;
+        });
+
+        ControllerApi api = builderOf(controller)
+                .primitiveMapper(s -> s.value(XboxButton.LEFT_TRIGGER, s.leftTrigger() + 0.25))
+                .player1();
+
+        awaitPolls(api, 4L);
+        MutableSnapshot sample = new MutableSnapshot();
+        api.sample(sample);
+        api.dispose();
+
+        Assert.assertEquals("The mapper is applied once, even when decoding is skipped.", 0.75, sample.leftTrigger(), 0.0);
+    }
+}
@@ -0,0 +1,160 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class ResponseCurvesTest
+{
+    private static double trigger(ButtonMapper mapper, int raw)
+    {
+        MutableSnapshot snapshot = new MutableSnapshot()
+                .connected(true)
+                .value(XboxButton.RIGHT_TRIGGER, raw / 255.0);
+        ((PrimitiveButtonMapper) mapper).apply(snapshot);
+        return snapshot.rightTrigger();
+    }
+
+    private static double stick(ButtonMapper mapper, int raw)
+    {
+        MutableSnapshot snapshot = new MutableSnapshot()
+                .connected(true)
+                .value(XboxButton.LEFT_STICK_HORIZONTAL, raw / 32767.0);
+        ((PrimitiveButtonMapper) mapper).apply(snapshot);
+        return snapshot.leftStickHorizontal();
+    }
+
+    @Test
+    public void testTriggerTableMatchesCurveAtEveryRawValue()
+    {
+        ButtonMapper mapper = new ResponseCurves()
+                .rightTrigger()
+                .innerDeadZone(30)
+                .outerDeadZone(250)
+                .exponential(2.0)
+                .build();
+
+        for (int raw = 0; raw <= 255; raw++)
+        {
+            double value = raw / 255.0;
+            double x = Math.max(0.0, Math.min(1.0, (value - 30 / 255.0) / (220 / 255.0)));
+            double expected = raw < 30 ? 0.0 : Math.expm1(2.0 * x) / Math.expm1(2.0);
+            Assert.assertEquals("Raw " + raw, expected, trigger(mapper, raw), 1e-12);
+        }
+    }
+
+    @Test
+    public void testStickCurveKeepsSignAndDeadZones()
+    {
+        ButtonMapper mapper = new ResponseCurves()
+                .axis(XboxButton.LEFT_STICK_HORIZONTAL)
+                .innerDeadZone(7849)
+                .sCurve(6.0)
+                .build();
+
+        Assert.assertEquals(0.0, stick(mapper, 0), 0.0);
+        Assert.assertEquals(0.0, stick(mapper, 7848), 0.0);
+        Assert.assertEquals(0.0, stick(mapper, -7848), 0.0);
+        Assert.assertEquals(1.0, stick(mapper, Short.MAX_VALUE), 1e-6);
+        Assert.assertEquals(-1.0, stick(mapper, Short.MIN_VALUE), 1e-6);
+
+        int middle = 7849 + (32767 - 7849) / 2;
+        Assert.assertEquals(0.5, stick(mapper, middle), 1e-4);
+        Assert.assertEquals(-stick(mapper, 20000), stick(mapper, -20000), 0.0);
+    }
+
+    @Test
+    public void testPiecewiseAndSplinePassThroughControlPoints()
+    {
+        double[] x = {0.0, 0.2, 0.6, 1.0};
+        double[] y = {0.0, 0.05, 0.7, 1.0};
+
+        ButtonMapper piecewise = new ResponseCurves()
+                .rightTrigger()
+                .piecewise(x, y)
+                .build();
+        ButtonMapper spline = new ResponseCurves()
+                .rightTrigger()
+                .spline(x, y)
+                .build();
+
+        for (int i = 0; i < x.length; i++)
+        {
+            int raw = (int) Math.round(x[i] * 255.0);
+            Assert.assertEquals(y[i], trigger(piecewise, raw), 0.01);
+            Assert.assertEquals(y[i], trigger(spline, raw), 0.01);
+        }
+
+        double previous = -1.0;
+        for (int raw = 0; raw <= 255; raw++)
+        {
+            double value = trigger(spline, raw);
+            Assert.assertTrue("The spline is monotone at " + raw, value >= previous);
+            previous = value;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testControlPointsMustIncrease()
+    {
+        new ResponseCurves().spline(new double[]{0.0, 0.5, 0.5}, new double[]{0.0, 0.5, 1.0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testButtonsAreNotAxes()
+    {
+        new ResponseCurves().axis(XboxButton.A);
+    }
+
+    @Test
+    public void testMapVersionMatchesPrimitiveVersion()
+    {
+        ButtonMapper mapper = new ResponseCurves()
+                .axis(XboxButton.RIGHT_STICK_VERTICAL)
+                .innerDeadZone(8689)
+                .exponential(3.0)
+                .build();
+
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        for (int raw = Short.MIN_VALUE; raw <= Short.MAX_VALUE; raw += 97)
+        {
+            snapshot.value(XboxButton.RIGHT_STICK_VERTICAL, raw / 32767.0);
+            Map<XboxButton, Number> expected = new EnumMap<>(snapshot.asMap());
+            mapper.accept(expected);
+            ((PrimitiveButtonMapper) mapper).apply(snapshot);
+
+            Assert.assertEquals(expected
+                                        .get(XboxButton.RIGHT_STICK_VERTICAL)
+                                        .doubleValue(), snapshot.rightStickVertical(), 0.0);
+        }
+    }
+
+    @Test
+    public void testLookupDoesNotAllocate()
+    {
+        PrimitiveButtonMapper trigger = (PrimitiveButtonMapper) new ResponseCurves()
+                .leftTrigger()
+                .sCurve(4.0)
+                .build();
+        PrimitiveButtonMapper stick = (PrimitiveButtonMapper) new ResponseCurves()
+                .axis(XboxButton.LEFT_STICK_VERTICAL)
+                .exponential(2.0)
+                .build();
+
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        long bytes = AllocationMeter.bytesAllocated(10_000, () ->
+        {
+            snapshot
+                    .value(XboxButton.LEFT_TRIGGER, 0.7)
+                    .value(XboxButton.LEFT_STICK_VERTICAL, -0.4);
+            trigger.apply(snapshot);
+            stick.apply(snapshot);
+        });
+        Assert.assertEquals("Bytes per lookup, " + bytes + " in total.", 0L, bytes);
+    }
+}
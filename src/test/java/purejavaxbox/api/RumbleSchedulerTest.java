@@ -0,0 +1,222 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.InOrder;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.raw.XboxController;
+import reactor.core.Disposable;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+public class RumbleSchedulerTest
+{
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    @Test
+    public void testUnchangedSpeedsAreWrittenOnce()
+    {
+        XboxController controller = mock(XboxController.class);
+        RumbleScheduler scheduler = new RumbleScheduler();
+        scheduler.play(RumbleEffect.constant(0.5, 0.25));
+
+        for (int i = 0; i < 100; i++)
+        {
+            scheduler.tick(i * MS, controller);
+        }
+
+        verify(controller, times(1)).rumble(0.5, 0.25);
+        verifyNoMoreInteractions(controller);
+    }
+
+    @Test
+    public void testChangesSmallerThanTheResolutionAreCoalesced()
+    {
+        XboxController controller = mock(XboxController.class);
+        RumbleScheduler scheduler = new RumbleScheduler().resolution(4);
+        scheduler.play(RumbleEffect.ramp(0.0, 0.0, 1.0, 1.0, 100, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i <= 100; i++)
+        {
+            scheduler.tick(i * MS, controller);
+        }
+
+        InOrder order = inOrder(controller);
+        order
+                .verify(controller)
+                .rumble(0.25, 0.25);
+        order
+                .verify(controller)
+                .rumble(0.5, 0.5);
+        order
+                .verify(controller)
+                .rumble(0.75, 0.75);
+        order
+                .verify(controller)
+                .rumble(1.0, 1.0);
+        verifyNoMoreInteractions(controller);
+    }
+
+    @Test
+    public void testHigherPrioritySilencesLowerAndDurationsExpire()
+    {
+        XboxController controller = mock(XboxController.class);
+        RumbleScheduler scheduler = new RumbleScheduler();
+        scheduler.play(RumbleEffect.constant(0.25, 0.25));
+        scheduler.play(RumbleEffect.constant(0.0, 0.5));
+        scheduler.tick(0L, controller);
+        verify(controller).rumble(0.25, 0.5);
+
+        scheduler.play(RumbleEffect
+                               .constant(1.0, 0.0)
+                               .priority(1)
+                               .duration(10, TimeUnit.MILLISECONDS));
+        scheduler.tick(MS, controller);
+        verify(controller).rumble(1.0, 0.0);
+
+        scheduler.tick(11 * MS, controller);
+        verify(controller, times(2)).rumble(0.25, 0.5);
+    }
+
+    @Test
+    public void testPulseAndDecay()
+    {
+        RumbleEffect pulse = RumbleEffect
+                .constant(1.0, 0.5)
+                .pulse(10, 5, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1.0, pulse.low(0L), 0.0);
+        Assert.assertEquals(0.5, pulse.high(9 * MS), 0.0);
+        Assert.assertEquals(0.0, pulse.low(10 * MS), 0.0);
+        Assert.assertEquals(1.0, pulse.low(15 * MS), 0.0);
+
+        RumbleEffect decay = RumbleEffect
+                .constant(1.0, 1.0)
+                .decay(20, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1.0, decay.low(0L), 0.0);
+        Assert.assertEquals(0.5, decay.low(20 * MS), 1e-12);
+        Assert.assertEquals(0.25, decay.high(40 * MS), 1e-12);
+    }
+
+    @Test
+    public void testStoppedEffectsAndDisposalStopTheMotors()
+    {
+        XboxController controller = mock(XboxController.class);
+        RumbleScheduler scheduler = new RumbleScheduler();
+        Disposable effect = scheduler.play(RumbleEffect.constant(1.0, 1.0));
+        scheduler.tick(0L, controller);
+        effect.dispose();
+        scheduler.tick(MS, controller);
+        verify(controller).rumble(0.0, 0.0);
+
+        scheduler.play(RumbleEffect.constant(0.5, 0.5));
+        scheduler.tick(2 * MS, controller);
+        scheduler.stopAll();
+        scheduler.tick(3 * MS, controller);
+        verify(controller, times(2)).rumble(0.0, 0.0);
+
+        scheduler.play(RumbleEffect.constant(0.5, 0.5));
+        scheduler.tick(4 * MS, controller);
+        scheduler.release();
+        verify(controller, times(3)).rumble(0.0, 0.0);
+    }
+
+    @Test
+    public void testSwitchingControllersStopsThePreviousOne()
+    {
+        XboxController first = mock(XboxController.class);
+        XboxController second = mock(XboxController.class);
+        RumbleScheduler scheduler = new RumbleScheduler();
+        scheduler.play(RumbleEffect.constant(0.5, 0.5));
+
+        scheduler.tick(0L, first);
+        scheduler.tick(MS, second);
+        scheduler.tick(2 * MS, null);
+        scheduler.tick(3 * MS, second);
+
+        verify(first).rumble(0.5, 0.5);
+        verify(first).rumble(0.0, 0.0);
+        verify(second, times(2)).rumble(0.5, 0.5);
+    }
+
+    @Test
+    public void testTicksDoNotAllocate()
+    {
+        XboxController controller = mock(XboxController.class);
+        RumbleScheduler scheduler = new RumbleScheduler().resolution(1);
+        scheduler.play(RumbleEffect
+                               .ramp(0.0, 0.2, 0.4, 0.2, 1, TimeUnit.SECONDS)
+                               .pulse(3, 2, TimeUnit.MILLISECONDS)
+                               .decay(1, TimeUnit.SECONDS));
+        scheduler.play(RumbleEffect
+                               .constant(0.3, 0.3)
+                               .priority(-1));
+        scheduler.tick(0L, controller);
+
+        long[] now = {0L};
+        long bytes = AllocationMeter.bytesAllocated(10_000, () -> scheduler.tick(now[0] += MS / 10, controller));
+        Assert.assertEquals("Bytes per tick, " + bytes + " in total.", 0L, bytes);
+    }
+
+    @Test
+    public void testPlayerTicksTheScheduler() throws InterruptedException
+    {
+        XboxController controller = mock(XboxController.class);
+        when(controller.poll(any())).thenAnswer(a -> a
+                .<MutableSnapshot>getArgument(0)
+                .connected(true)
+                .isConnected());
+
+        RumbleScheduler scheduler = new RumbleScheduler();
+        scheduler.play(RumbleEffect.constant(1.0, 0.5));
+        ControllerApi api = new ControllerBuilder()
+                .timing(200.0)
+                .registerMetrics(false)
+                .controllers(SinglePlayerTest.mockControllers(controller))
+                .rumble(scheduler)
+                .player1();
+
+        Thread.sleep(50);
+        api.dispose();
+
+        InOrder order = inOrder(controller);
+        order
+                .verify(controller)
+                .rumble(1.0, 0.5);
+        order
+                .verify(controller)
+                .rumble(0.0, 0.0);
+    }
+
+    @Test
+    public void testDisposeFromAnInterruptedThreadStopsTheMotors() throws InterruptedException
+    {
+        XboxController controller = SinglePlayerTest.connectedController(s ->
+        {
+        });
+
+        RumbleScheduler scheduler = new RumbleScheduler();
+        scheduler.play(RumbleEffect.constant(1.0, 0.5));
+        ControllerApi api = SinglePlayerTest
+                .builderOf(controller)
+                .rumble(scheduler)
+                .player1();
+
+        SinglePlayerTest.awaitPolls(api, 2L);
+        Thread
+                .currentThread()
+                .interrupt();
+        api.dispose();
+
+        Assert.assertTrue("The interrupt is kept.", Thread.interrupted());
+        InOrder order = inOrder(controller);
+        order
+                .verify(controller)
+                .rumble(1.0, 0.5);
+        order
+                .verify(controller)
+                .rumble(0.0, 0.0);
+    }
+}
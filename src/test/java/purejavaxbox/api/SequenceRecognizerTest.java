@@ -0,0 +1,140 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.XboxButton;
+import reactor.core.Disposable;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static purejavaxbox.XboxButton.*;
+import static purejavaxbox.api.SequenceRecognizer.step;
+
+public class SequenceRecognizerTest
+{
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final int FIREBALL = 1;
+    private static final int DOUBLE_TAP = 2;
+
+    private SequenceRecognizer recognizer = new SequenceRecognizer()
+            .pattern(FIREBALL, 250, TimeUnit.MILLISECONDS, step(DPAD_DOWN), step(DPAD_DOWN, DPAD_RIGHT), step(DPAD_RIGHT), step(DPAD_RIGHT, X))
+            .pattern(DOUBLE_TAP, 200, TimeUnit.MILLISECONDS, step(A), step(), step(A));
+
+    @Test
+    public void testMotionWithinWindow()
+    {
+        SequenceAutomaton.Matcher matcher = recognizer
+                .compile()
+                .matcher();
+
+        Assert.assertEquals(Collections.emptyList(), matcher.advance(0, 0));
+        Assert.assertEquals(Collections.emptyList(), matcher.advance(DPAD_DOWN.mask(), 10 * MS));
+        Assert.assertEquals("Holding does not take steps.", Collections.emptyList(), matcher.advance(DPAD_DOWN.mask(), 20 * MS));
+        Assert.assertEquals(Collections.emptyList(), matcher.advance(DPAD_DOWN.mask() | DPAD_RIGHT.mask(), 40 * MS));
+        Assert.assertEquals(Collections.emptyList(), matcher.advance(DPAD_RIGHT.mask() | LEFT_BUMPER.mask(), 60 * MS));
+        Assert.assertEquals("Unrelated buttons are ignored.", Collections.singletonList(FIREBALL), matcher.advance(DPAD_RIGHT.mask() | X.mask(), 80 * MS));
+    }
+
+    @Test
+    public void testMotionTooSlow()
+    {
+        SequenceAutomaton.Matcher matcher = recognizer
+                .compile()
+                .matcher();
+
+        matcher.advance(DPAD_DOWN.mask(), 0);
+        matcher.advance(DPAD_DOWN.mask() | DPAD_RIGHT.mask(), 100 * MS);
+        matcher.advance(DPAD_RIGHT.mask(), 200 * MS);
+        Assert.assertEquals(Collections.emptyList(), matcher.advance(DPAD_RIGHT.mask() | X.mask(), 300 * MS));
+    }
+
+    @Test
+    public void testBrokenMotion()
+    {
+        SequenceAutomaton.Matcher matcher = recognizer
+                .compile()
+                .matcher();
+
+        matcher.advance(DPAD_DOWN.mask(), 0);
+        matcher.advance(DPAD_DOWN.mask() | DPAD_UP.mask(), 10 * MS);
+        matcher.advance(DPAD_RIGHT.mask(), 20 * MS);
+        Assert.assertEquals(Collections.emptyList(), matcher.advance(DPAD_RIGHT.mask() | X.mask(), 30 * MS));
+    }
+
+    @Test
+    public void testDoubleTap()
+    {
+        SequenceAutomaton.Matcher matcher = recognizer
+                .compile()
+                .matcher();
+
+        matcher.advance(A.mask(), 0);
+        matcher.advance(0, 50 * MS);
+        Assert.assertEquals(Collections.singletonList(DOUBLE_TAP), matcher.advance(A.mask(), 100 * MS));
+
+        matcher.advance(0, 500 * MS);
+        matcher.advance(A.mask(), 1000 * MS);
+        matcher.advance(0, 1100 * MS);
+        Assert.assertEquals("Too slow.", Collections.emptyList(), matcher.advance(A.mask(), 1300 * MS));
+    }
+
+    @Test
+    public void testOverlappingPatterns()
+    {
+        SequenceAutomaton.Matcher matcher = new SequenceRecognizer()
+                .pattern(10, 1, TimeUnit.SECONDS, step(A), step(B))
+                .pattern(20, 1, TimeUnit.SECONDS, step(B))
+                .pattern(30, 1, TimeUnit.SECONDS, step(X), step(A), step(B))
+                .compile()
+                .matcher();
+
+        matcher.advance(X.mask(), 0);
+        matcher.advance(A.mask(), 1);
+        Assert.assertEquals(Arrays.asList(30, 10, 20), matcher.advance(B.mask(), 2));
+    }
+
+    @Test
+    public void testManyPatterns()
+    {
+        XboxButton[] alphabet = {A, B, X, Y, DPAD_UP, DPAD_DOWN, DPAD_LEFT, DPAD_RIGHT};
+        Random random = new Random(42);
+
+        SequenceRecognizer many = new SequenceRecognizer();
+        for (int id = 0; id < 500; id++)
+        {
+            int[] steps = new int[2 + random.nextInt(5)];
+            for (int i = 0; i < steps.length; i++)
+            {
+                steps[i] = step(alphabet[random.nextInt(alphabet.length)], alphabet[random.nextInt(alphabet.length)]);
+            }
+            many.pattern(id, 1, TimeUnit.SECONDS, steps);
+        }
+        many.pattern(1000, 1, TimeUnit.SECONDS, step(LEFT_BUMPER), step(RIGHT_BUMPER));
+
+        SequenceAutomaton.Matcher matcher = many
+                .compile()
+                .matcher();
+        matcher.advance(LEFT_BUMPER.mask(), 0);
+        Assert.assertEquals(Collections.singletonList(1000), matcher.advance(RIGHT_BUMPER.mask(), 1));
+    }
+
+    @Test
+    public void testObserve()
+    {
+        ControllerApiProxy proxy = new ControllerApiProxy();
+        List<Integer> matches = new ArrayList<>();
+
+        Disposable c = recognizer
+                .observe(proxy)
+                .subscribe(matches::add);
+
+        proxy.send(A, 1);
+        proxy.send(A, 0);
+        proxy.send(A, 1);
+
+        Assert.assertEquals(Collections.singletonList(DOUBLE_TAP), matches);
+        c.dispose();
+    }
+}
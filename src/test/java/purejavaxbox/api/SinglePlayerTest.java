@@ -4,6 +4,8 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import purejavaxbox.ControllerSnapshot;
+import purejavaxbox.MutableSnapshot;
 import purejavaxbox.XboxButton;
 import purejavaxbox.raw.XboxController;
 import purejavaxbox.raw.XboxControllers;
@@ -13,9 +15,11 @@ import java.util.*;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class SinglePlayerTest
@@ -39,6 +43,7 @@ public class SinglePlayerTest
 
         XboxController mockedController = mock(XboxController.class);
         when(mockedController.buttons()).thenReturn(buttons);
+        when(mockedController.poll(any())).thenCallRealMethod();
 
         XboxControllers controllers = mock(XboxControllers.class);
         doAnswer(a -> {
@@ -111,6 +116,7 @@ public class SinglePlayerTest
         sp.dispose();
         sp.dispose();
         sp.dispose();
+        verify(controllers).close();
 
         Assert.assertEquals("Barrier was not advanced.", cancelBarrier.getPhase(), 1);
     }
@@ -125,9 +131,11 @@ public class SinglePlayerTest
 
         XboxController mockedController = mock(XboxController.class);
         when(mockedController.buttons()).thenReturn(buttons);
+        when(mockedController.poll(any())).thenCallRealMethod();
 
         XboxController emptyController = mock(XboxController.class);
         when(emptyController.buttons()).thenReturn(Collections.emptyMap());
+        when(emptyController.poll(any())).thenCallRealMethod();
 
         List<XboxController> controllerList = Arrays.asList(emptyController, mockedController, emptyController, emptyController);
 
@@ -160,4 +168,228 @@ public class SinglePlayerTest
         barrier.awaitAdvanceInterruptibly(barrier.arrive(), 500, TimeUnit.MILLISECONDS);
         sp.dispose();
     }
+
+    @Test
+    public void testChangeDetectionSkipsUnchangedPolls() throws TimeoutException, InterruptedException
+    {
+        Map<XboxButton, Number> released = new EnumMap<>(XboxButton.class);
+        Arrays
+                .asList(XboxButton.values())
+                .forEach(b -> released.put(b, 0));
+
+        Map<XboxButton, Number> pressed = new EnumMap<>(released);
+        pressed.put(XboxButton.A, 1);
+
+        AtomicReference<Map<XboxButton, Number>> current = new AtomicReference<>(released);
+
+        XboxController mockedController = mock(XboxController.class);
+        when(mockedController.buttons()).thenAnswer(a -> current.get());
+        when(mockedController.poll(any())).thenCallRealMethod();
+
+        XboxControllers controllers = mockControllers(mockedController);
+
+        ControllerApi sp = new ControllerBuilder()
+                .timing(200.0)
+                .changeDetection(true)
+                .controllers(controllers)
+                .player1();
+
+        List<Number> values = Collections.synchronizedList(new ArrayList<>());
+        Disposable d = sp
+                .observe(XboxButton.A)
+                .subscribe(values::add);
+
+        Thread.sleep(100);
+        current.set(pressed);
+        Thread.sleep(100);
+
+        d.dispose();
+        sp.dispose();
+
+        Assert.assertEquals("Only changes are distributed.", Arrays.asList(0, 1), values);
+    }
+
+    @Test
+    public void testButtonEventsFromPollingThread() throws InterruptedException
+    {
+        Map<XboxButton, Number> released = new EnumMap<>(XboxButton.class);
+        Arrays
+                .asList(XboxButton.values())
+                .forEach(b -> released.put(b, 0));
+
+        Map<XboxButton, Number> pressed = new EnumMap<>(released);
+        pressed.put(XboxButton.B, 1);
+
+        AtomicReference<Map<XboxButton, Number>> current = new AtomicReference<>(released);
+
+        XboxController mockedController = mock(XboxController.class);
+        when(mockedController.buttons()).thenAnswer(a -> current.get());
+        when(mockedController.poll(any())).thenCallRealMethod();
+
+        ControllerApi sp = new ControllerBuilder()
+                .timing(200.0)
+                .controllers(mockControllers(mockedController))
+                .player1();
+
+        List<ButtonEvent> events = Collections.synchronizedList(new ArrayList<>());
+        Disposable d = sp
+                .buttonEvents()
+                .subscribe(events::add);
+
+        Thread.sleep(50);
+        current.set(pressed);
+        Thread.sleep(50);
+        current.set(released);
+        Thread.sleep(50);
+
+        d.dispose();
+        sp.dispose();
+
+        Assert.assertEquals("Press and release.", 2, events.size());
+        Assert.assertEquals(XboxButton.B, events
+                .get(0)
+                .button());
+        Assert.assertTrue(events
+                                  .get(0)
+                                  .isPressed());
+        Assert.assertTrue(events
+                                  .get(1)
+                                  .isReleased());
+    }
+
+    @Test
+    public void testObserveHeldUsesPollTimestamps() throws InterruptedException
+    {
+        Map<XboxButton, Number> released = new EnumMap<>(XboxButton.class);
+        Arrays
+                .asList(XboxButton.values())
+                .forEach(b -> released.put(b, 0));
+
+        Map<XboxButton, Number> pressed = new EnumMap<>(released);
+        pressed.put(XboxButton.A, 1);
+
+        AtomicReference<Map<XboxButton, Number>> current = new AtomicReference<>(released);
+
+        XboxController mockedController = mock(XboxController.class);
+        when(mockedController.buttons()).thenAnswer(a -> current.get());
+        when(mockedController.poll(any())).thenCallRealMethod();
+
+        long step = TimeUnit.MILLISECONDS.toNanos(100);
+        AtomicLong virtualTime = new AtomicLong();
+
+        ControllerApi sp = new ControllerBuilder()
+                .timing(200.0)
+                .clock(() -> virtualTime.addAndGet(step))
+                .controllers(mockControllers(mockedController))
+                .player1();
+
+        List<ControllerSnapshot> snapshots = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> pressedPollsWhenHeld = Collections.synchronizedList(new ArrayList<>());
+        Disposable d1 = sp
+                .snapshots()
+                .subscribe(snapshots::add);
+        Disposable d2 = sp
+                .observeHeld(250, TimeUnit.MILLISECONDS, XboxButton.A)
+                .filter(held -> held)
+                .subscribe(held -> pressedPollsWhenHeld.add((int) snapshots
+                        .stream()
+                        .filter(s -> s.isPressed(XboxButton.A))
+                        .count()));
+
+        Thread.sleep(50);
+        current.set(pressed);
+        Thread.sleep(100);
+
+        d1.dispose();
+        d2.dispose();
+        sp.dispose();
+
+        Assert.assertEquals("Held on the third pressed poll, in virtual time.", Collections.singletonList(3), pressedPollsWhenHeld);
+
+        for (int i = 1; i < snapshots.size(); i++)
+        {
+            ControllerSnapshot previous = snapshots.get(i - 1);
+            ControllerSnapshot snapshot = snapshots.get(i);
+            Assert.assertEquals(step, snapshot.timestamp() - previous.timestamp());
+            Assert.assertEquals(previous.sequence() + 1, snapshot.sequence());
+        }
+    }
+
+    static XboxControllers mockControllers(XboxController... controllerList)
+    {
+        XboxControllers controllers = mock(XboxControllers.class);
+        doAnswer(a -> {
+            Consumer<XboxController> c = a.getArgument(0);
+            for (XboxController controller : controllerList)
+            {
+                c.accept(controller);
+            }
+            return null;
+        })
+                .when(controllers)
+                .forEach(any());
+        return controllers;
+    }
+
+    /**
+     * @param input - fills the cleared snapshot of each poll.
+     * @return a controller that is always connected.
+     */
+    static XboxController connectedController(Consumer<MutableSnapshot> input)
+    {
+        XboxController controller = mock(XboxController.class);
+        when(controller.poll(any())).thenAnswer(a ->
+        {
+            MutableSnapshot snapshot = a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear()
+                    .connected(true);
+            input.accept(snapshot);
+            return true;
+        });
+        return controller;
+    }
+
+    /**
+     * @return a builder polling the controller 200 times per second, without registering its metrics.
+     */
+    static ControllerBuilder builderOf(XboxController controller)
+    {
+        return new ControllerBuilder()
+                .timing(200.0)
+                .registerMetrics(false)
+                .controllers(mockControllers(controller));
+    }
+
+    /**
+     * Waits until the api has started the given number of polls, so every earlier poll has completed.
+     */
+    static void awaitPolls(ControllerApi api, long polls) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+        while (api
+                .metrics()
+                .getPollCount() < polls)
+        {
+            Assert.assertTrue("Timed out waiting for " + polls + " polls.", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Sleeps, restoring the interrupt flag instead of throwing. Used from callbacks that cannot throw.
+     */
+    static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread
+                    .currentThread()
+                    .interrupt();
+        }
+    }
 }
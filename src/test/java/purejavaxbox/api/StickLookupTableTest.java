@@ -0,0 +1,117 @@
+package purejavaxbox.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.util.function.Function;
+
+public class StickLookupTableTest
+{
+    private static final short[] INNER = {0, 1638, 4915, 4916, 6554, 7849, 8689, 9830, 16384};
+    private static final short[] OUTER = {29491, Short.MAX_VALUE};
+
+    private static double maxError(Function<StickDeadZones, ButtonMapper> strategy, short inner, short outer)
+    {
+        PrimitiveButtonMapper math = PrimitiveButtonMapper.of(strategy.apply(new StickDeadZones()
+                                                                                      .innerDeadZone(inner)
+                                                                                      .outerDeadZone(outer)));
+        PrimitiveButtonMapper table = PrimitiveButtonMapper.of(strategy.apply(new StickDeadZones()
+                                                                                       .innerDeadZone(inner)
+                                                                                       .outerDeadZone(outer)
+                                                                                       .lookupTable(true)));
+
+        MutableSnapshot expected = new MutableSnapshot().connected(true);
+        MutableSnapshot actual = new MutableSnapshot().connected(true);
+        double error = 0.0;
+
+        for (int x = -500; x <= 500; x++)
+        {
+            for (int y = -500; y <= 500; y++)
+            {
+                double h = x / 500.0;
+                double v = y / 500.0;
+                expected
+                        .value(XboxButton.LEFT_STICK_HORIZONTAL, h)
+                        .value(XboxButton.LEFT_STICK_VERTICAL, v);
+                actual
+                        .value(XboxButton.LEFT_STICK_HORIZONTAL, h)
+                        .value(XboxButton.LEFT_STICK_VERTICAL, v);
+                math.apply(expected);
+                table.apply(actual);
+
+                error = Math.max(error, Math.abs(expected.leftStickHorizontal() - actual.leftStickHorizontal()));
+                error = Math.max(error, Math.abs(expected.leftStickVertical() - actual.leftStickVertical()));
+            }
+        }
+        return error;
+    }
+
+    private static void assertWithinBound(Function<StickDeadZones, ButtonMapper> strategy)
+    {
+        for (short inner : INNER)
+        {
+            for (short outer : OUTER)
+            {
+                double error = maxError(strategy, inner, outer);
+                Assert.assertTrue(inner + "/" + outer + ": " + error, error < StickLookupTable.ERROR_BOUND);
+            }
+        }
+    }
+
+    @Test
+    public void testAxialAccuracy()
+    {
+        assertWithinBound(StickDeadZones::buildAxialDeadZone);
+    }
+
+    @Test
+    public void testRadialAccuracy()
+    {
+        assertWithinBound(StickDeadZones::buildRadialDeadZone);
+    }
+
+    @Test
+    public void testScaledRadialAccuracy()
+    {
+        assertWithinBound(StickDeadZones::buildScaledRadialDeadZone);
+    }
+
+    @Test
+    public void testScaledRadialBoundHoldsAtTheSmallestInnerDeadZone()
+    {
+        double inner = StickLookupTable.MIN_SCALED_INNER;
+        StickLookupTable table = StickLookupTable.scaledRadial(inner, 1.0);
+        double error = 0.0;
+
+        for (int i = 1; i < 1_000_000; i++)
+        {
+            double magnitude = inner + (1.0 - inner) * i / 1_000_000;
+            double direct = (magnitude - inner) / ((1.0 - inner) * magnitude * magnitude);
+            error = Math.max(error, magnitude * Math.abs(table.scale(magnitude * magnitude) - direct));
+        }
+        Assert.assertTrue(String.valueOf(error), error < StickLookupTable.ERROR_BOUND);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testScaledRadialTableRejectsSmallInnerDeadZones()
+    {
+        StickLookupTable.scaledRadial(0.05, 1.0);
+    }
+
+    @Test
+    public void testBoundariesAreExact()
+    {
+        StickLookupTable table = StickLookupTable.scaledRadial(0.25, 0.9);
+
+        Assert.assertEquals(0.0, table.scale(0.0), 0.0);
+        Assert.assertEquals(0.0, table.scale(0.0624), 0.0);
+        Assert.assertEquals("The scaled radial strategy divides by the squared magnitude.", 1.0 / 0.81, table.scale(0.81), 1e-12);
+        Assert.assertEquals(1.0 / 0.9, table.scale(0.8101), 1e-4);
+        Assert.assertEquals(1.0 / Math.sqrt(2.0), table.scale(2.0), 1e-12);
+        Assert.assertEquals(1.0, StickLookupTable
+                .radial(0.25, 0.9)
+                .scale(0.5), 0.0);
+    }
+}
@@ -0,0 +1,470 @@
+package purejavaxbox.raw;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.xinput.XInputControllerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class XboxControllersTest
+{
+    @Test
+    public void testDisconnectedSlotIsProbedWithBackoff() throws InterruptedException
+    {
+        AtomicInteger probes = new AtomicInteger();
+        XboxController empty = mock(XboxController.class);
+        when(empty.poll(any())).then(a ->
+        {
+            probes.incrementAndGet();
+            a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear();
+            return false;
+        });
+
+        XboxControllers controllers = new XboxControllers(Collections.singletonList(empty)).probeBackoff(20, 80, TimeUnit.MILLISECONDS);
+        MutableSnapshot snapshot = new MutableSnapshot();
+
+        for (int i = 0; i < 10; i++)
+        {
+            Assert.assertFalse(controllers
+                    .getController(0)
+                    .poll(snapshot));
+        }
+        Assert.assertEquals("Only the first poll reaches the backend", 1, probes.get());
+
+        SlotStatus status = controllers
+                .slotStatus()
+                .get(0);
+        Assert.assertFalse(status.isConnected());
+        Assert.assertEquals(1, status.failedProbes());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(20), status.backoffNanos());
+        Assert.assertTrue(status.nanosUntilProbe() > 0);
+
+        Thread.sleep(30);
+        controllers
+                .getController(0)
+                .poll(snapshot);
+        Assert.assertEquals(2, probes.get());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(40), controllers
+                .slotStatus()
+                .get(0)
+                .backoffNanos());
+
+        controllers.probeAll();
+        controllers
+                .getController(0)
+                .poll(snapshot);
+        Assert.assertEquals(3, probes.get());
+        Assert.assertEquals("Backoff is capped", TimeUnit.MILLISECONDS.toNanos(80), controllers
+                .slotStatus()
+                .get(0)
+                .backoffNanos());
+    }
+
+    @Test
+    public void testConnectionEvents()
+    {
+        AtomicBoolean plugged = new AtomicBoolean(true);
+        XboxController controller = mock(XboxController.class);
+        when(controller.poll(any())).then(a ->
+        {
+            MutableSnapshot snapshot = a.getArgument(0);
+            snapshot.clear();
+            if (plugged.get())
+            {
+                snapshot
+                        .connected(true)
+                        .pressed(XboxButton.A, true);
+            }
+            return plugged.get();
+        });
+
+        XboxControllers controllers = new XboxControllers(Arrays.asList(controller));
+        List<ConnectionEvent> events = new ArrayList<>();
+        controllers
+                .connectionEvents()
+                .subscribe(events::add);
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        XboxController tracked = controllers.getController(0);
+
+        Assert.assertTrue(tracked.poll(snapshot));
+        Assert.assertTrue(tracked.poll(snapshot));
+        plugged.set(false);
+        Assert.assertFalse(tracked.poll(snapshot));
+        Assert.assertFalse(snapshot.isConnected());
+        plugged.set(true);
+        controllers.probeAll();
+        Assert.assertTrue(tracked.poll(snapshot));
+
+        Assert.assertEquals(3, events.size());
+        Assert.assertTrue(events
+                .get(0)
+                .isConnected());
+        Assert.assertFalse(events
+                .get(1)
+                .isConnected());
+        Assert.assertTrue(events
+                .get(2)
+                .isConnected());
+        Assert.assertEquals(0, events
+                .get(2)
+                .slot());
+
+        SlotStatus status = controllers
+                .slotStatus()
+                .get(0);
+        Assert.assertTrue(status.isConnected());
+        Assert.assertEquals(0, status.failedProbes());
+        Assert.assertEquals(0L, status.nanosUntilProbe());
+        verify(controller, times(4)).poll(any());
+    }
+
+    @Test
+    public void testCompositeDoesNotWaitForASlowBackend() throws InterruptedException
+    {
+        AtomicInteger fastPolls = new AtomicInteger();
+        XboxController fast = mock(XboxController.class);
+        when(fast.poll(any())).then(a ->
+        {
+            a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear()
+                    .connected(true)
+                    .pressed(XboxButton.A, true)
+                    .packet(fastPolls.incrementAndGet());
+            return true;
+        });
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger slowPolls = new AtomicInteger();
+        XboxController slow = mock(XboxController.class);
+        when(slow.poll(any())).then(a ->
+        {
+            if (slowPolls.incrementAndGet() > 1)
+            {
+                release.await();
+            }
+            a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear()
+                    .connected(true)
+                    .pressed(XboxButton.B, true)
+                    .packet(slowPolls.get());
+            return true;
+        });
+
+        XboxControllers controllers = XboxControllers
+                .composite(Arrays.asList(factory("fast", fast), factory("slow", slow)))
+                .pollingDeadline(20, TimeUnit.MILLISECONDS);
+        MutableSnapshot first = new MutableSnapshot();
+        MutableSnapshot second = new MutableSnapshot();
+
+        try
+        {
+            controllers.forEach(c -> c.poll(c == controllers.getController(0) ? first : second));
+            Assert.assertEquals(1L, first.packet());
+            Assert.assertTrue(second.isPressed(XboxButton.B));
+
+            for (int i = 2; i <= 3; i++)
+            {
+                long start = System.nanoTime();
+                controllers.forEach(c -> c.poll(c == controllers.getController(0) ? first : second));
+                Assert.assertTrue("The slow backend must not hold the iteration", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+                Assert.assertEquals(i, first.packet());
+                Assert.assertTrue(second.isConnected());
+                Assert.assertEquals("The slow backend reports its last completed poll", 1L, second.packet());
+            }
+            Assert.assertEquals("A busy backend is not asked again", 2, slowPolls.get());
+        }
+        finally
+        {
+            release.countDown();
+            controllers.close();
+        }
+    }
+
+    @Test
+    public void testIteratorPollsCompositeBackends()
+    {
+        XboxController controller = mock(XboxController.class);
+        when(controller.poll(any())).then(a ->
+        {
+            a
+                    .<MutableSnapshot>getArgument(0)
+                    .clear()
+                    .connected(true)
+                    .pressed(XboxButton.A, true);
+            return true;
+        });
+
+        try (XboxControllers controllers = XboxControllers
+                .composite(Collections.singletonList(factory("only", controller)))
+                .pollingDeadline(1, TimeUnit.SECONDS))
+        {
+            MutableSnapshot snapshot = new MutableSnapshot();
+            Assert.assertFalse("Not polled before the first iteration", controllers
+                    .getController(0)
+                    .poll(snapshot));
+
+            for (XboxController c : controllers)
+            {
+                Assert.assertTrue(c.poll(snapshot));
+            }
+            Assert.assertTrue(snapshot.isPressed(XboxButton.A));
+        }
+    }
+
+    @Test
+    public void testCloseStopsBackendsAndClosesControllers() throws InterruptedException
+    {
+        XboxController a = mock(XboxController.class);
+        XboxController b = mock(XboxController.class);
+        XboxControllers controllers = XboxControllers.composite(Arrays.asList(factory("closing", a), factory("closing-too", b)));
+        controllers.forEach(c -> c.poll(new MutableSnapshot()));
+
+        controllers.close();
+        controllers.close();
+
+        verify(a).close();
+        verify(b).close();
+        for (Thread thread : liveThreads())
+        {
+            Assert.assertFalse(thread.getName(), thread
+                    .getName()
+                    .startsWith("controller-backend-closing"));
+        }
+    }
+
+
+    @Test
+    public void testCompositeKeepsFactoryOrderAndBackends()
+    {
+        XboxController a = mock(XboxController.class);
+        XboxController b = mock(XboxController.class);
+        XboxController c = mock(XboxController.class);
+        XboxControllerFactory broken = new XboxControllerFactory()
+        {
+            @Override
+            public List<XboxController> get()
+            {
+                throw new IllegalStateException("No native library");
+            }
+        };
+
+        try (XboxControllers controllers = XboxControllers.composite(Arrays.asList(factory("first", a, b), broken, factory("second", c))))
+        {
+            Assert.assertEquals(3, controllers
+                    .slotStatus()
+                    .size());
+            Assert.assertEquals("first", controllers
+                    .getController(1)
+                    .backend());
+            Assert.assertEquals("second", controllers
+                    .getController(2)
+                    .backend());
+            Assert.assertEquals("second", controllers
+                    .slotStatus()
+                    .get(2)
+                    .backend());
+
+            controllers
+                    .getController(2)
+                    .rumble(1.0, 0.0);
+            verify(c).rumble(1.0, 0.0);
+        }
+    }
+
+    @Test
+    public void testCompositeListsEachPadOnce()
+    {
+        XboxController event = mock(XboxController.class);
+        XboxController other = mock(XboxController.class);
+        XboxController hid = mock(XboxController.class);
+        XboxController unknown = mock(XboxController.class);
+        when(event.physicalId()).thenReturn("7c:ed:8d:12:34:56");
+        when(other.physicalId()).thenReturn("usb-0000:00:14.0-2/input0");
+        when(hid.physicalId()).thenReturn("7c:ed:8d:12:34:56");
+
+        try (XboxControllers controllers = XboxControllers.composite(Arrays.asList(factory("evdev", event, other), factory("hidraw", hid, unknown))))
+        {
+            Assert.assertEquals("The pad found by both backends is listed once.", 3, controllers.size());
+            Assert.assertEquals("7c:ed:8d:12:34:56", controllers
+                    .getController(0)
+                    .physicalId());
+            Assert.assertEquals("evdev", controllers
+                    .getController(0)
+                    .backend());
+            Assert.assertEquals("hidraw", controllers
+                    .getController(2)
+                    .backend());
+            Assert.assertNull(controllers
+                                      .getController(2)
+                                      .physicalId());
+            verify(hid).close();
+        }
+    }
+
+    @Test
+    public void testUnsupportedFactoriesAreProbedOnceAndNeverLoaded()
+    {
+        CountingFactory unsupported = new CountingFactory(false);
+        List<XboxControllerFactory> factories = Arrays.asList(unsupported, new FailingProbeFactory(), factory("supported", mock(XboxController.class)));
+
+        for (int i = 0; i < 2; i++)
+        {
+            try (XboxControllers controllers = XboxControllers.composite(factories))
+            {
+                Assert.assertEquals(1, controllers
+                        .slotStatus()
+                        .size());
+            }
+        }
+
+        Assert.assertEquals("Probe results are cached", 1, unsupported.probes.get());
+        Assert.assertEquals(0, unsupported.loads.get());
+    }
+
+    @Test
+    public void testProbesAreCachedPerFactoryInstance()
+    {
+        CountingFactory unsupported = new CountingFactory(false);
+        CountingFactory supported = new CountingFactory(true);
+
+        try (XboxControllers controllers = XboxControllers.composite(Arrays.asList(unsupported, supported)))
+        {
+            Assert.assertEquals(1, controllers.size());
+        }
+        Assert.assertEquals(1, unsupported.probes.get());
+        Assert.assertEquals("Another instance of the same class is probed again", 1, supported.probes.get());
+        Assert.assertEquals(1, supported.loads.get());
+    }
+
+    @Test
+    public void testFactoriesThatCannotBeFoundAreSkipped()
+    {
+        XboxControllerFactory found = factory("found", mock(XboxController.class));
+        Iterator<XboxControllerFactory> broken = new Iterator<XboxControllerFactory>()
+        {
+            private int calls;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (calls++ == 0)
+                {
+                    throw new ServiceConfigurationError("Malformed provider configuration");
+                }
+                return calls == 2;
+            }
+
+            @Override
+            public XboxControllerFactory next()
+            {
+                return found;
+            }
+        };
+
+        try (XboxControllers controllers = XboxControllers.composite(() -> broken))
+        {
+            Assert.assertEquals(1, controllers.size());
+        }
+    }
+
+    @Test
+    public void testXInputIsNotLoadedOutsideOfWindows()
+    {
+        XInputControllerFactory factory = new XInputControllerFactory();
+        Assume.assumeFalse(System
+                                   .getProperty("os.name")
+                                   .startsWith("Windows"));
+
+        Assert.assertFalse(factory.isSupported());
+        Assert.assertTrue(factory
+                                  .get()
+                                  .isEmpty());
+    }
+
+    private static class CountingFactory implements XboxControllerFactory
+    {
+        final AtomicInteger probes = new AtomicInteger();
+        final AtomicInteger loads = new AtomicInteger();
+        private final boolean supported;
+
+        CountingFactory(boolean supported)
+        {
+            this.supported = supported;
+        }
+
+        @Override
+        public boolean isSupported()
+        {
+            probes.incrementAndGet();
+            return supported;
+        }
+
+        @Override
+        public List<XboxController> get()
+        {
+            loads.incrementAndGet();
+            return Collections.singletonList(mock(XboxController.class));
+        }
+    }
+
+    private static class FailingProbeFactory implements XboxControllerFactory
+    {
+        @Override
+        public boolean isSupported()
+        {
+            throw new UnsatisfiedLinkError("No native library");
+        }
+
+        @Override
+        public List<XboxController> get()
+        {
+            throw new AssertionError("Unsupported factories are never loaded");
+        }
+    }
+
+    private static List<Thread> liveThreads()
+    {
+        Thread[] threads = new Thread[Thread.activeCount() * 2];
+        return Arrays
+                .asList(threads)
+                .subList(0, Thread.enumerate(threads));
+    }
+
+    private static XboxControllerFactory factory(String id, XboxController... controllers)
+    {
+        return new XboxControllerFactory()
+        {
+            @Override
+            public List<XboxController> get()
+            {
+                return Arrays.asList(controllers);
+            }
+
+            @Override
+            public String getId()
+            {
+                return id;
+            }
+        };
+    }
+}
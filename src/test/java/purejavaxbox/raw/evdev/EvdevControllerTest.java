@@ -0,0 +1,255 @@
+package purejavaxbox.raw.evdev;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class EvdevControllerTest
+{
+    /**
+     * Events of an Xbox 360 controller in the 64-bit little endian layout: A pressed, left stick pushed up and half
+     * right, right trigger pulled with the directional pad up, A released, then an event without its SYN_REPORT.
+     */
+    private static final String RECORDING = "xbox360.events";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Path recording() throws URISyntaxException
+    {
+        return Paths.get(EvdevControllerTest.class
+                                 .getResource(RECORDING)
+                                 .toURI());
+    }
+
+    private static void assertFinalState(MutableSnapshot snapshot)
+    {
+        Assert.assertTrue(snapshot.isConnected());
+        Assert.assertFalse(snapshot.isPressed(XboxButton.A));
+        Assert.assertTrue(snapshot.isPressed(XboxButton.DPAD_UP));
+        Assert.assertEquals(16384 / 32767.0, snapshot.leftStickHorizontal(), 0.0);
+        Assert.assertEquals("Up is positive.", 1.0, snapshot.leftStickVertical(), 0.0);
+        Assert.assertEquals(1.0, snapshot.rightTrigger(), 0.0);
+    }
+
+    @Test
+    public void testDecodesRecordingAcrossPartialReads() throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(recording());
+        EvdevDecoder decoder = new EvdevDecoder(EvdevDecoder.EVENT_SIZE_64, 255);
+        EvdevController controller = new EvdevController(recording(), decoder);
+
+        ByteBuffer buffer = ByteBuffer
+                .allocateDirect(64)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int reports = 0;
+        for (int offset = 0; offset < bytes.length; )
+        {
+            int length = Math.min(buffer.remaining(), Math.min(37, bytes.length - offset));
+            buffer.put(bytes, offset, length);
+            offset += length;
+
+            buffer.flip();
+            reports += decoder.decode(buffer, controller);
+            buffer.compact();
+        }
+
+        Assert.assertEquals(4, reports);
+        Assert.assertEquals("Incomplete reports are kept pending.", 20000 / 32767.0, decoder
+                .pending()
+                .leftStickHorizontal(), 0.0);
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue(controller.poll(snapshot));
+        assertFinalState(snapshot);
+        Assert.assertEquals(4L, snapshot.packet());
+    }
+
+    @Test
+    public void testReaderThreadPublishesCompleteReports() throws Exception
+    {
+        // The reader thread uses the native byte order, and the recording is little endian.
+        Assume.assumeTrue(ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN);
+        EvdevController controller = new EvdevController(recording(), new EvdevDecoder(EvdevDecoder.EVENT_SIZE_64, 255)).start();
+        controller.awaitEnd(5, TimeUnit.SECONDS);
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue(controller.poll(snapshot));
+        assertFinalState(snapshot);
+        Assert.assertEquals("The open state and four reports.", 5L, snapshot.packet());
+
+        snapshot.pressed(XboxButton.B, true);
+        controller.poll(snapshot);
+        Assert.assertTrue("The same report is not copied again.", snapshot.isPressed(XboxButton.B));
+
+        Assert.assertSame(controller.buttons(), controller.buttons());
+
+        controller.close();
+        Assert.assertFalse("Closed controllers are disconnected.", controller.poll(snapshot));
+    }
+
+    @Test
+    public void testMissingDeviceIsDisconnected() throws Exception
+    {
+        EvdevController controller = new EvdevController(folder
+                                                                 .getRoot()
+                                                                 .toPath()
+                                                                 .resolve("event9"), new EvdevDecoder(EvdevDecoder.EVENT_SIZE_64, 1023)).start();
+        Thread.sleep(50);
+
+        MutableSnapshot snapshot = new MutableSnapshot().connected(true);
+        Assert.assertFalse(controller.poll(snapshot));
+        Assert.assertFalse(snapshot.isConnected());
+        Assert.assertTrue(controller
+                                  .buttons()
+                                  .isEmpty());
+        controller.close();
+    }
+
+    @Test
+    public void testDropReleasesButtonsAndIgnoresEventsUntilTheNextReport()
+    {
+        EvdevDecoder decoder = new EvdevDecoder(EvdevDecoder.EVENT_SIZE_64, 1023);
+        decoder.event(EvdevDecoder.EV_KEY, EvdevDecoder.BTN_B, 1);
+        decoder.event(EvdevDecoder.EV_ABS, EvdevDecoder.ABS_HAT0X, -1);
+        decoder.event(EvdevDecoder.EV_ABS, EvdevDecoder.ABS_RZ, 1023);
+        Assert.assertTrue(decoder.event(EvdevDecoder.EV_SYN, EvdevDecoder.SYN_REPORT, 0));
+
+        decoder.event(EvdevDecoder.EV_SYN, EvdevDecoder.SYN_DROPPED, 0);
+        decoder.event(EvdevDecoder.EV_KEY, EvdevDecoder.BTN_X, 1);
+        Assert.assertTrue("The released state is published.", decoder.event(EvdevDecoder.EV_SYN, EvdevDecoder.SYN_REPORT, 0));
+        MutableSnapshot pending = decoder.pending();
+        Assert.assertFalse(pending.isPressed(XboxButton.X));
+        Assert.assertFalse("A button released during the drop does not stay pressed.", pending.isPressed(XboxButton.B));
+        Assert.assertFalse(pending.isPressed(XboxButton.DPAD_LEFT));
+        Assert.assertEquals("Axes keep their last value.", 1.0, pending.rightTrigger(), 0.0);
+
+        decoder.event(EvdevDecoder.EV_KEY, EvdevDecoder.BTN_B, 1);
+        decoder.event(EvdevDecoder.EV_ABS, EvdevDecoder.ABS_Z, 1023);
+        decoder.event(EvdevDecoder.EV_KEY, EvdevDecoder.BTN_DPAD_FIRST + 3, 1);
+        decoder.event(EvdevDecoder.EV_ABS, EvdevDecoder.ABS_HAT0Y, 1);
+        decoder.event(EvdevDecoder.EV_ABS, EvdevDecoder.ABS_HAT0Y, 0);
+        Assert.assertTrue(decoder.event(EvdevDecoder.EV_SYN, EvdevDecoder.SYN_REPORT, 0));
+
+        Assert.assertTrue(pending.isPressed(XboxButton.B));
+        Assert.assertTrue("Either source keeps the direction pressed.", pending.isPressed(XboxButton.DPAD_DOWN));
+        Assert.assertEquals(1.0, pending.leftTrigger(), 0.0);
+    }
+
+    @Test
+    public void testDecodeDoesNotAllocate() throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(recording());
+        ByteBuffer buffer = ByteBuffer
+                .allocateDirect(bytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer
+                .put(bytes)
+                .flip();
+        EvdevDecoder decoder = new EvdevDecoder(EvdevDecoder.EVENT_SIZE_64, 255);
+        EvdevController controller = new EvdevController(recording(), decoder);
+
+        long bytesAllocated = AllocationMeter.bytesAllocated(10_000, () ->
+        {
+            buffer.position(0);
+            decoder.decode(buffer, controller);
+        });
+        Assert.assertEquals("Bytes per recording, " + bytesAllocated + " in total.", 0L, bytesAllocated);
+    }
+
+    @Test
+    public void testFactoryFindsGamepadsInDeviceOrder() throws Exception
+    {
+        Path devices = folder.newFolder("dev").toPath();
+        Path sysfs = folder.newFolder("sys").toPath();
+
+        device(devices, sysfs, "event10", "1f 7fff000000000000 0 0 0 0", "02ea");
+        device(devices, sysfs, "event2", "7cdb000000000000 0 0 0 0", "028e");
+        device(devices, sysfs, "event3", "10000 0 0 0", "0000");
+        Files.write(devices.resolve("mouse0"), new byte[0]);
+
+        EvdevControllerFactory factory = new EvdevControllerFactory(devices, sysfs, EvdevDecoder.EVENT_SIZE_64);
+        List<XboxController> controllers = factory.get();
+
+        Assert.assertEquals(2, controllers.size());
+        Assert.assertEquals(devices.resolve("event2"), ((EvdevController) controllers.get(0)).device());
+        Assert.assertEquals(devices.resolve("event10"), ((EvdevController) controllers.get(1)).device());
+        Assert.assertEquals(255, factory.triggerMax(devices.resolve("event2")));
+        Assert.assertEquals(1023, factory.triggerMax(devices.resolve("event10")));
+
+        for (XboxController controller : controllers)
+        {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void testFactoryReadsPhysicalIds() throws Exception
+    {
+        Path devices = folder.newFolder("dev").toPath();
+        Path sysfs = folder.newFolder("sys").toPath();
+
+        device(devices, sysfs, "event2", "7cdb000000000000 0 0 0 0", "02ea");
+        device(devices, sysfs, "event3", "7cdb000000000000 0 0 0 0", "02ea");
+        device(devices, sysfs, "event4", "7cdb000000000000 0 0 0 0", "02ea");
+        Files.write(sysfs.resolve("event2/device/uniq"), "7c:ed:8d:12:34:56\n".getBytes("US-ASCII"));
+        Files.write(sysfs.resolve("event2/device/phys"), "00:1a:7d:da:71:13\n".getBytes("US-ASCII"));
+        Files.write(sysfs.resolve("event3/device/uniq"), "\n".getBytes("US-ASCII"));
+        Files.write(sysfs.resolve("event3/device/phys"), "usb-0000:00:14.0-2/input0\n".getBytes("US-ASCII"));
+
+        EvdevControllerFactory factory = new EvdevControllerFactory(devices, sysfs, EvdevDecoder.EVENT_SIZE_64);
+        Assert.assertEquals("7c:ed:8d:12:34:56", factory.physicalId(devices.resolve("event2")));
+        Assert.assertEquals("usb-0000:00:14.0-2/input0", factory.physicalId(devices.resolve("event3")));
+        Assert.assertNull(factory.physicalId(devices.resolve("event4")));
+
+        List<XboxController> controllers = factory.get();
+        Assert.assertEquals("7c:ed:8d:12:34:56", controllers
+                .get(0)
+                .physicalId());
+        for (XboxController controller : controllers)
+        {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void testFactoryWithoutDevicesIsEmpty()
+    {
+        Path missing = folder
+                .getRoot()
+                .toPath()
+                .resolve("missing");
+        Assert.assertTrue(new EvdevControllerFactory(missing, missing, EvdevDecoder.EVENT_SIZE_64)
+                                  .get()
+                                  .isEmpty());
+    }
+
+    private static void device(Path devices, Path sysfs, String name, String keys, String product) throws IOException
+    {
+        Files.write(devices.resolve(name), new byte[0]);
+
+        Path info = Files.createDirectories(sysfs
+                                                    .resolve(name)
+                                                    .resolve("device"));
+        Files.createDirectories(info.resolve("capabilities"));
+        Files.createDirectories(info.resolve("id"));
+        Files.write(info.resolve("capabilities/key"), (keys + "\n").getBytes("US-ASCII"));
+        Files.write(info.resolve("id/product"), (product + "\n").getBytes("US-ASCII"));
+    }
+}
@@ -0,0 +1,269 @@
+package purejavaxbox.raw.hidraw;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+import purejavaxbox.raw.XboxController;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+public class HidrawControllerTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Path fixture(String name) throws URISyntaxException
+    {
+        return Paths.get(HidrawControllerTest.class
+                                 .getResource(name)
+                                 .toURI());
+    }
+
+    private static ByteBuffer report(String name) throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(fixture(name));
+        ByteBuffer buffer = ByteBuffer
+                .allocateDirect(bytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer
+                .put(bytes)
+                .flip();
+        return buffer;
+    }
+
+    private static ReportLayout bluetooth()
+    {
+        return ReportLayout
+                .load(HidrawControllerFactory.defaultLayouts())
+                .get(ReportLayout.key(0x045e, 0x0b13));
+    }
+
+    @Test
+    public void testDecodesCapturedReports() throws Exception
+    {
+        ReportLayout layout = bluetooth();
+        MutableSnapshot snapshot = new MutableSnapshot();
+
+        ByteBuffer neutral = report("bluetooth-neutral.report");
+        Assert.assertTrue(layout.matches(neutral));
+        layout.decode(neutral, snapshot);
+        Assert.assertTrue(snapshot.isConnected());
+        Assert.assertEquals(0, snapshot.buttons());
+        Assert.assertEquals(0.0, snapshot.leftStickHorizontal(), 0.0);
+        Assert.assertEquals(0.0, snapshot.leftStickVertical(), 0.0);
+        Assert.assertEquals(0.0, snapshot.leftTrigger(), 0.0);
+
+        layout.decode(report("bluetooth-pressed.report"), snapshot);
+        Assert.assertEquals(XboxButton.A.mask() | XboxButton.RIGHT_BUMPER.mask() | XboxButton.START.mask() | XboxButton.DPAD_UP.mask() | XboxButton.DPAD_RIGHT.mask(), snapshot.buttons());
+        Assert.assertEquals("Up is positive.", 1.0, snapshot.leftStickVertical(), 0.0);
+        Assert.assertEquals(-1.0, snapshot.rightStickHorizontal(), 0.0);
+        Assert.assertEquals(1.0, snapshot.leftTrigger(), 1e-12);
+        Assert.assertEquals(512 / 1023.0, snapshot.rightTrigger(), 1e-12);
+
+        Assert.assertFalse("Battery reports are ignored.", layout.matches(report("bluetooth-battery.report")));
+    }
+
+    @Test
+    public void testDecodeDoesNotAllocate() throws Exception
+    {
+        ReportLayout layout = bluetooth();
+        ByteBuffer report = report("bluetooth-pressed.report");
+        MutableSnapshot snapshot = new MutableSnapshot();
+
+        long bytes = AllocationMeter.bytesAllocated(100_000, () -> layout.decode(report, snapshot));
+        Assert.assertEquals("Bytes per report, " + bytes + " in total.", 0L, bytes);
+    }
+
+    @Test
+    public void testNewRevisionsOnlyNeedALayout()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("pad.ids", "1234:abcd");
+        properties.setProperty("pad.length", "4");
+        properties.setProperty("pad.LEFT_TRIGGER", "u8@1");
+        properties.setProperty("pad.RIGHT_STICK_VERTICAL", "s16@2,inverted");
+        properties.setProperty("pad.Y", "0.7");
+
+        ReportLayout layout = ReportLayout
+                .load(properties)
+                .get("1234:abcd");
+        ByteBuffer report = ByteBuffer
+                .allocateDirect(4)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .put((byte) 0x80)
+                .put((byte) 255)
+                .putShort(Short.MAX_VALUE);
+        report.flip();
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue("Layouts without a report id accept any report.", layout.matches(report));
+        layout.decode(report, snapshot);
+
+        Assert.assertTrue(snapshot.isPressed(XboxButton.Y));
+        Assert.assertEquals(1.0, snapshot.leftTrigger(), 0.0);
+        Assert.assertEquals(-1.0, snapshot.rightStickVertical(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffsetsOutsideOfTheReportAreRejected()
+    {
+        Properties properties = new Properties();
+        properties.setProperty("pad.ids", "1234:abcd");
+        properties.setProperty("pad.length", "4");
+        properties.setProperty("pad.LEFT_TRIGGER", "u16@3");
+        ReportLayout.load(properties);
+    }
+
+    @Test
+    public void testReaderThreadPublishesMatchingReports() throws Exception
+    {
+        HidrawController controller = new HidrawController(fixture("bluetooth-pressed.report"), bluetooth()).start();
+        controller.awaitEnd(5, TimeUnit.SECONDS);
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue(controller.poll(snapshot));
+        Assert.assertTrue(snapshot.isPressed(XboxButton.A));
+        Assert.assertEquals("The open state and one report.", 2L, snapshot.packet());
+
+        Assert.assertFalse(controller.accept(report("bluetooth-battery.report")));
+        Map<XboxButton, Number> buttons = controller.buttons();
+        Assert.assertSame("Ignored reports do not change the state.", buttons, controller.buttons());
+        Assert.assertEquals(1, buttons
+                .get(XboxButton.A)
+                .intValue());
+
+        controller.close();
+        Assert.assertFalse("Closed controllers are disconnected.", controller.poll(snapshot));
+    }
+
+    @Test
+    public void testRumbleWritesTheOutputReport() throws Exception
+    {
+        Path device = folder
+                .newFile("hidraw0")
+                .toPath();
+        HidrawController controller = new HidrawController(device, bluetooth());
+
+        controller.rumble(1.0, 0.5);
+        Assert.assertArrayEquals(new byte[]{0x03, 0x0f, 0, 0, 100, 50, (byte) 0xff, 0, (byte) 0xff}, Files.readAllBytes(device));
+    }
+
+    @Test(timeout = 10_000L)
+    public void testBlockedRumbleDoesNotStallReportsOrPolls() throws Exception
+    {
+        // Opening a FIFO for writing blocks until it is opened for reading.
+        Path device = folder
+                .getRoot()
+                .toPath()
+                .resolve("hidraw0");
+        Assume.assumeTrue(new ProcessBuilder("mkfifo", device.toString())
+                                  .start()
+                                  .waitFor() == 0);
+        HidrawController controller = new HidrawController(device, bluetooth());
+
+        Thread rumble = new Thread(() -> controller.rumble(1.0, 0.5));
+        rumble.setDaemon(true);
+        rumble.start();
+        // A thread blocked in a native call stays runnable, so give it time to get there.
+        Thread.sleep(100);
+
+        Assert.assertTrue(controller.accept(report("bluetooth-pressed.report")));
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue(controller.poll(snapshot));
+        Assert.assertTrue(snapshot.isPressed(XboxButton.A));
+
+        try (FileChannel channel = FileChannel.open(device, StandardOpenOption.READ))
+        {
+            rumble.join(TimeUnit.SECONDS.toMillis(5));
+            Assert.assertFalse(rumble.isAlive());
+            controller.close();
+            Assert.assertEquals(1, channel.read(ByteBuffer.allocate(1)));
+        }
+    }
+
+    @Test
+    public void testFactoryMatchesDevicesToLayouts() throws Exception
+    {
+        Path devices = folder
+                .newFolder("dev")
+                .toPath();
+        Path sysfs = folder
+                .newFolder("sys")
+                .toPath();
+        device(devices, sysfs, "hidraw11", "HID_ID=0005:0000045E:00000B13");
+        device(devices, sysfs, "hidraw3", "HID_ID=0005:0000045E:000002FD");
+        device(devices, sysfs, "hidraw0", "HID_ID=0003:0000046D:0000C52B");
+
+        List<XboxController> controllers = new HidrawControllerFactory(devices, sysfs, null).get();
+
+        Assert.assertEquals(2, controllers.size());
+        Assert.assertEquals(devices.resolve("hidraw3"), ((HidrawController) controllers.get(0)).device());
+        Assert.assertEquals(devices.resolve("hidraw11"), ((HidrawController) controllers.get(1)).device());
+        Assert.assertEquals("xbox-bluetooth", ((HidrawController) controllers.get(0))
+                .layout()
+                .name());
+
+        for (XboxController controller : controllers)
+        {
+            controller.close();
+        }
+    }
+
+    @Test
+    public void testFactoryReadsPhysicalIds() throws Exception
+    {
+        Path devices = folder
+                .newFolder("dev")
+                .toPath();
+        Path sysfs = folder
+                .newFolder("sys")
+                .toPath();
+        device(devices, sysfs, "hidraw3", "HID_ID=0005:0000045E:000002FD\nHID_PHYS=00:1a:7d:da:71:13\nHID_UNIQ=7c:ed:8d:12:34:56");
+        device(devices, sysfs, "hidraw4", "HID_ID=0003:0000045E:00000B13\nHID_PHYS=usb-0000:00:14.0-2/input0\nHID_UNIQ=");
+        device(devices, sysfs, "hidraw5", "HID_ID=0005:0000045E:00000B13");
+
+        List<XboxController> controllers = new HidrawControllerFactory(devices, sysfs, null).get();
+
+        Assert.assertEquals(3, controllers.size());
+        Assert.assertEquals("7c:ed:8d:12:34:56", controllers
+                .get(0)
+                .physicalId());
+        Assert.assertEquals("An empty unique id falls back to the path.", "usb-0000:00:14.0-2/input0", controllers
+                .get(1)
+                .physicalId());
+        Assert.assertNull(controllers
+                                  .get(2)
+                                  .physicalId());
+
+        for (XboxController controller : controllers)
+        {
+            controller.close();
+        }
+    }
+
+    private static void device(Path devices, Path sysfs, String name, String id) throws IOException
+    {
+        Files.write(devices.resolve(name), new byte[0]);
+        Path info = Files.createDirectories(sysfs
+                                                    .resolve(name)
+                                                    .resolve("device"));
+        Files.write(info.resolve("uevent"), ("DRIVER=hid-generic\n" + id + "\nHID_NAME=Controller\n").getBytes("US-ASCII"));
+    }
+}
@@ -27,6 +27,28 @@ public class BitUtilTest
         }
     }
 
+    @Test
+    public void testBitmapOf64BitWords()
+    {
+        String keys = "1f 7fff000000000000 0 0 0 0";
+        Assert.assertTrue(BitUtil.isBitSet(keys, 0x130));
+        Assert.assertTrue(BitUtil.isBitSet(keys, 0x13e));
+        Assert.assertFalse(BitUtil.isBitSet(keys, 0x12f));
+        Assert.assertTrue(BitUtil.isBitSet(keys, 0x140));
+        Assert.assertFalse("Bits beyond the printed words are not set.", BitUtil.isBitSet(keys, 0x200));
+    }
+
+    @Test
+    public void testBitmapOf32BitWords()
+    {
+        String keys = "1f 7fff0000 0 0 0 0 0 0 0 0 0\n";
+        Assert.assertTrue(BitUtil.isBitSet(keys, 0x130));
+        Assert.assertTrue(BitUtil.isBitSet(keys, 0x13e));
+        Assert.assertFalse(BitUtil.isBitSet(keys, 0x12f));
+        Assert.assertTrue(BitUtil.isBitSet(keys, 0x140));
+        Assert.assertFalse(BitUtil.isBitSet("10000 0 0 0", 0x130));
+    }
+
     private void createResultFrom(short value, int size, StringBuilder result)
     {
         result.delete(0, result.length());
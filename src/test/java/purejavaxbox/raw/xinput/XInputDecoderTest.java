@@ -0,0 +1,138 @@
+package purejavaxbox.raw.xinput;
+
+import com.sun.jna.Memory;
+import org.junit.Assert;
+import org.junit.Test;
+import purejavaxbox.AllocationMeter;
+import purejavaxbox.MutableSnapshot;
+import purejavaxbox.XboxButton;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class XInputDecoderTest
+{
+    /**
+     * A captured XINPUT_STATE, little endian, with A, Y and down pressed.
+     */
+    private static Memory fixture(String name) throws Exception
+    {
+        byte[] bytes = Files.readAllBytes(Paths.get(XInputDecoderTest.class
+                                                            .getResource(name)
+                                                            .toURI()));
+        Memory memory = new Memory(XInputDecoder.STATE_SIZE);
+        memory.write(0, bytes, 0, bytes.length);
+        return memory;
+    }
+
+    @Test
+    public void testDecode()
+    {
+        XInputControllerState state = new XInputControllerState();
+        state.buttons = (short) (1 << 12 | 1 << 1 | 1 << 15);
+        state.lTrigger = (byte) 255;
+        state.rTrigger = 0;
+        state.leftStickY = Short.MAX_VALUE;
+        state.leftStickX = (short) -Short.MAX_VALUE;
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        XInputDecoder.decode(state, snapshot);
+
+        Assert.assertTrue(snapshot.isConnected());
+        Assert.assertEquals(XboxButton.A.mask() | XboxButton.DPAD_DOWN.mask() | XboxButton.Y.mask(), snapshot.buttons());
+        Assert.assertEquals(1.0, snapshot.leftTrigger(), 0.0);
+        Assert.assertEquals(0.0, snapshot.rightTrigger(), 0.0);
+        Assert.assertEquals(1.0, snapshot.leftStickHorizontal(), 0.0);
+        Assert.assertEquals(-1.0, snapshot.leftStickVertical(), 0.0);
+    }
+
+    @Test
+    public void testUpdateSkipsSamePacket()
+    {
+        XInputControllerState state = new XInputControllerState();
+        state.eventCount = 7;
+        state.buttons = (short) (1 << 12);
+
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue("First poll decodes.", XInputDecoder.update(state, snapshot));
+        Assert.assertEquals(7L, snapshot.packet());
+
+        state.buttons = 0;
+        Assert.assertFalse("Same packet is not decoded.", XInputDecoder.update(state, snapshot));
+        Assert.assertTrue("Values are untouched.", snapshot.isPressed(XboxButton.A));
+
+        state.eventCount = -1;
+        Assert.assertTrue("New packet decodes.", XInputDecoder.update(state, snapshot));
+        Assert.assertFalse(snapshot.isPressed(XboxButton.A));
+        Assert.assertEquals("Packet numbers are unsigned.", 0xFFFFFFFFL, snapshot.packet());
+    }
+
+    @Test
+    public void testDecodeDoesNotAllocate()
+    {
+        XInputControllerState state = new XInputControllerState();
+        MutableSnapshot snapshot = new MutableSnapshot();
+
+        long bytes = AllocationMeter.bytesAllocated(100_000, () -> {
+            state.buttons++;
+            state.leftStickX++;
+            XInputDecoder.decode(state, snapshot);
+        });
+
+        Assert.assertEquals("Bytes per poll, " + bytes + " in total.", 0L, bytes);
+    }
+
+    @Test
+    public void testDecodeMemory() throws Exception
+    {
+        Memory memory = fixture("gamepad-pressed.state");
+        MutableSnapshot snapshot = new MutableSnapshot();
+        XInputDecoder.decode(memory, snapshot);
+
+        Assert.assertTrue(snapshot.isConnected());
+        Assert.assertEquals(0x12345678L, snapshot.packet());
+        Assert.assertEquals(XboxButton.A.mask() | XboxButton.DPAD_DOWN.mask() | XboxButton.Y.mask(), snapshot.buttons());
+        Assert.assertEquals(1.0, snapshot.leftTrigger(), 0.0);
+        Assert.assertEquals(128 / 255.0, snapshot.rightTrigger(), 0.0);
+        Assert.assertEquals(1.0, snapshot.leftStickHorizontal(), 0.0);
+        Assert.assertEquals(-1.0, snapshot.leftStickVertical(), 0.0);
+        Assert.assertEquals(0.0, snapshot.rightStickHorizontal(), 0.0);
+        Assert.assertEquals(16384 / 32767.0, snapshot.rightStickVertical(), 0.0);
+
+        MutableSnapshot structure = new MutableSnapshot();
+        XInputDecoder.decode(new XInputControllerState(memory), structure);
+        Assert.assertEquals("Offsets match the structure.", structure.asMap(), snapshot.asMap());
+        Assert.assertEquals(structure.packet(), snapshot.packet());
+    }
+
+    @Test
+    public void testUpdateMemorySkipsSamePacket() throws Exception
+    {
+        Memory memory = fixture("gamepad-pressed.state");
+        MutableSnapshot snapshot = new MutableSnapshot();
+        Assert.assertTrue(XInputDecoder.update(memory, snapshot));
+
+        memory.setShort(XInputDecoder.BUTTONS_OFFSET, (short) 0);
+        Assert.assertFalse("Same packet is not decoded.", XInputDecoder.update(memory, snapshot));
+        Assert.assertTrue(snapshot.isPressed(XboxButton.A));
+
+        memory.setInt(XInputDecoder.PACKET_OFFSET, -1);
+        Assert.assertTrue(XInputDecoder.update(memory, snapshot));
+        Assert.assertFalse(snapshot.isPressed(XboxButton.A));
+        Assert.assertEquals(0xFFFFFFFFL, snapshot.packet());
+    }
+
+    @Test
+    public void testDecodeMemoryDoesNotAllocate() throws Exception
+    {
+        Memory memory = fixture("gamepad-pressed.state");
+        MutableSnapshot snapshot = new MutableSnapshot();
+
+        long bytes = AllocationMeter.bytesAllocated(100_000, () -> {
+            memory.setShort(XInputDecoder.LEFT_STICK_X_OFFSET, (short) (memory.getShort(XInputDecoder.LEFT_STICK_X_OFFSET) + 1));
+            XInputDecoder.decode(memory, snapshot);
+        });
+
+        Assert.assertEquals("Bytes per poll, " + bytes + " in total.", 0L, bytes);
+    }
+}